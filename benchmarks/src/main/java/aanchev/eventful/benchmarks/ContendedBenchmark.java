@@ -0,0 +1,102 @@
+package aanchev.eventful.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import aanchev.eventful.EventStream;
+import aanchev.eventful.Eventful;
+
+/**
+ * Measures firing on instances shared by several threads, so the cost of contention becomes visible.
+ * Only the thread-safe variants are measured.
+ *
+ * <p>
+ * The thread counts are fixed per benchmark method;
+ * others can be measured by overriding them with <code>-t</code>.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ContendedBenchmark {
+
+	/** The number of handlers attached to the event (half of which accept the fired data). */
+	@Param({"10", "100"})
+	public int handlers;
+
+
+	private Eventful<Object> eventful;
+	private EventStream<Object> stream;
+	private Object data;
+
+
+	@Setup
+	public void setup(Blackhole blackhole) {
+		eventful = new Eventful.Concurrent<Object>() {};
+		stream = new EventStream.Concurrent<Object>() {};
+		data = Events.at(2);
+
+		for (int i = 0; i < handlers; i++) {
+			eventful.on("event", Events.typeOf(i, Events.matches(i, 0.5), 2), Events.consuming(blackhole));
+			stream.on(Events.typeOf(i, Events.matches(i, 0.5), 2), Events.consuming(blackhole));
+		}
+	}
+
+
+	/* Eventful.Concurrent */
+
+	@Benchmark
+	@Threads(1)
+	public boolean eventful_1() {
+		return eventful.fire("event", data);
+	}
+
+	@Benchmark
+	@Threads(4)
+	public boolean eventful_4() {
+		return eventful.fire("event", data);
+	}
+
+	@Benchmark
+	@Threads(Threads.MAX)
+	public boolean eventful_max() {
+		return eventful.fire("event", data);
+	}
+
+
+	/* EventStream.Concurrent */
+
+	@Benchmark
+	@Threads(1)
+	public boolean stream_1() {
+		return stream.fire(data);
+	}
+
+	@Benchmark
+	@Threads(4)
+	public boolean stream_4() {
+		return stream.fire(data);
+	}
+
+	@Benchmark
+	@Threads(Threads.MAX)
+	public boolean stream_max() {
+		return stream.fire(data);
+	}
+}
@@ -0,0 +1,119 @@
+package aanchev.eventful.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import aanchev.eventful.EventStream;
+import aanchev.eventful.Handler;
+
+/**
+ * Measures {@link EventStream#fire(Object)} on a single thread.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventStreamBenchmark {
+
+	public enum Variant {
+		DEFAULT {
+			@Override
+			EventStream<Object> create() {
+				return new EventStream.Default<Object>() {};
+			}
+		},
+		ORGANIZING {
+			@Override
+			EventStream<Object> create() {
+				return new EventStream.Organizing.Default<Object>() {};
+			}
+		},
+		CONCURRENT {
+			@Override
+			EventStream<Object> create() {
+				return new EventStream.Concurrent<Object>() {};
+			}
+		},
+		RANKED {
+			@Override
+			EventStream<Object> create() {
+				return new EventStream.Ranked<Object>() {};
+			}
+		},
+		SEALED {
+			@Override
+			EventStream<Object> create() {
+				return new EventStream.Concurrent<Object>() {};
+			}
+
+			@Override
+			void ready(EventStream<Object> stream) {
+				((EventStream.Concurrent<Object>) stream).seal();
+			}
+		};
+
+		abstract EventStream<Object> create();
+
+		/** Called once the handlers are attached. */
+		void ready(EventStream<Object> stream) {}
+	}
+
+
+	@Param
+	public Variant variant;
+
+	/** The number of attached handlers. */
+	@Param({"1", "10", "100"})
+	public int handlers;
+
+	/** The fraction of the handlers that accept the fired data. */
+	@Param({"0.1", "1.0"})
+	public double matchRatio;
+
+	/** How far below the root of the hierarchy the class of the fired data is. */
+	@Param({"0", "4", "8"})
+	public int depth;
+
+	@Param
+	public Outcome outcome;
+
+
+	private EventStream<Object> stream;
+	private Object data;
+
+
+	@Setup
+	public void setup(Blackhole blackhole) {
+		stream = variant.create();
+		data = Events.at(depth);
+
+		for (int i = 0; i < handlers; i++)
+			stream.on(Events.typeOf(i, Events.matches(i, matchRatio), depth), Events.consuming(blackhole));
+
+		Handler<Object> last = outcome.handler();
+		if (last != null)
+			stream.on(last);
+
+		variant.ready(stream);
+	}
+
+
+	@Benchmark
+	public boolean fire() {
+		return stream.fire(data);
+	}
+}
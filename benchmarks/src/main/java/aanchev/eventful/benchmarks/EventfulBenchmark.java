@@ -0,0 +1,142 @@
+package aanchev.eventful.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import aanchev.eventful.EventKey;
+import aanchev.eventful.Eventful;
+import aanchev.eventful.Handler;
+
+/**
+ * Measures {@link Eventful#fire(String, Object)} on a single thread.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventfulBenchmark {
+
+	public enum Variant {
+		DEFAULT {
+			@Override
+			Eventful<Object> create() {
+				return new Eventful.Default<Object>() {};
+			}
+		},
+		CONCURRENT {
+			@Override
+			Eventful<Object> create() {
+				return new Eventful.Concurrent<Object>() {};
+			}
+		},
+		RANKED {
+			@Override
+			Eventful<Object> create() {
+				return new Eventful.Ranked.Default<Object>() {};
+			}
+		},
+		RANKED_CONCURRENT {
+			@Override
+			Eventful<Object> create() {
+				return new Eventful.Ranked.Concurrent<Object>() {};
+			}
+		},
+		SEALED {
+			@Override
+			Eventful<Object> create() {
+				return new Eventful.Concurrent<Object>() {};
+			}
+
+			@Override
+			void ready(Eventful<Object> eventful) {
+				((Eventful.Concurrent<Object>) eventful).seal();
+			}
+		};
+
+		abstract Eventful<Object> create();
+
+		/** Called once the handlers are attached. */
+		void ready(Eventful<Object> eventful) {}
+	}
+
+
+	@Param
+	public Variant variant;
+
+	/** The number of handlers attached to each event. */
+	@Param({"1", "10", "100"})
+	public int handlers;
+
+	/** The fraction of the handlers that accept the fired data. */
+	@Param({"0.1", "1.0"})
+	public double matchRatio;
+
+	/** The number of distinct event names, which are fired in turn. */
+	@Param({"1", "1000"})
+	public int names;
+
+	@Param
+	public Outcome outcome;
+
+
+	private Eventful<Object> eventful;
+	private String[] events;
+	private EventKey<Object>[] keys;
+	private Object data;
+	private int cursor = 0;
+
+
+	@Setup
+	public void setup(Blackhole blackhole) {
+		eventful = variant.create();
+		events = Events.names(names);
+		keys = Events.keys(eventful, events);
+		data = Events.at(0);
+
+		for (String event : events) {
+			for (int i = 0; i < handlers; i++)
+				eventful.on(event, Events.typeOf(i, Events.matches(i, matchRatio), 0), Events.consuming(blackhole));
+
+			Handler<Object> last = outcome.handler();
+			if (last != null)
+				eventful.on(event, last);
+		}
+
+		variant.ready(eventful);
+	}
+
+
+	@Benchmark
+	public boolean fire() {
+		String event = events[cursor];
+
+		if (++cursor == events.length)
+			cursor = 0;
+
+		return eventful.fire(event, data);
+	}
+
+	@Benchmark
+	public boolean fireByKey() {
+		EventKey<Object> key = keys[cursor];
+
+		if (++cursor == keys.length)
+			cursor = 0;
+
+		return eventful.fire(key, data);
+	}
+}
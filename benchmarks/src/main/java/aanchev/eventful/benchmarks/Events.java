@@ -0,0 +1,99 @@
+package aanchev.eventful.benchmarks;
+
+import org.openjdk.jmh.infra.Blackhole;
+
+import aanchev.eventful.EventKey;
+import aanchev.eventful.Eventful;
+import aanchev.eventful.Handler;
+
+/**
+ * The event data and handlers shared by the benchmarks.
+ */
+final class Events {
+
+	private Events() {}
+
+
+	/* Event Data */
+
+	/**
+	 * A chain of event classes, so the depth of the fired event in the type hierarchy can be varied.
+	 */
+	static class Level0 {}
+	static class Level1 extends Level0 {}
+	static class Level2 extends Level1 {}
+	static class Level3 extends Level2 {}
+	static class Level4 extends Level3 {}
+	static class Level5 extends Level4 {}
+	static class Level6 extends Level5 {}
+	static class Level7 extends Level6 {}
+	static class Level8 extends Level7 {}
+
+	/**
+	 * The type of the handlers which never match.
+	 */
+	static class Unrelated {}
+
+
+	static final Class<?>[] LEVELS = {
+		Level0.class, Level1.class, Level2.class, Level3.class, Level4.class,
+		Level5.class, Level6.class, Level7.class, Level8.class
+	};
+
+	static Object at(int depth) {
+		try {
+			return LEVELS[depth].newInstance();
+		}
+		catch (ReflectiveOperationException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Spreads the matching handlers evenly over the types from the root of the hierarchy down to the fired event.
+	 *
+	 * @param index the index of the handler
+	 * @param matching whether the handler should accept the fired event
+	 * @param depth the depth of the fired event
+	 */
+	@SuppressWarnings("unchecked")
+	static Class<Object> typeOf(int index, boolean matching, int depth) {
+		return (Class<Object>) (matching? LEVELS[index % (depth + 1)] : Unrelated.class);
+	}
+
+	/**
+	 * @return whether the handler with the given index should match, so that the ratio of matching ones is kept
+	 */
+	static boolean matches(int index, double matchRatio) {
+		return Math.floor((index + 1) * matchRatio) > Math.floor(index * matchRatio);
+	}
+
+
+	/* Handlers */
+
+	/**
+	 * @return a new (distinct) handler, since identical ones would be deduplicated
+	 */
+	static Handler<Object> consuming(Blackhole blackhole) {
+		return e -> blackhole.consume(e);
+	}
+
+	static String[] names(int count) {
+		String[] names = new String[count];
+
+		for (int i = 0; i < count; i++)
+			names[i] = "event-" + i;
+
+		return names;
+	}
+
+	@SuppressWarnings("unchecked")
+	static EventKey<Object>[] keys(Eventful<Object> eventful, String[] names) {
+		EventKey<Object>[] keys = new EventKey[names.length];
+
+		for (int i = 0; i < names.length; i++)
+			keys[i] = eventful.key(names[i]);
+
+		return keys;
+	}
+}
@@ -0,0 +1,39 @@
+package aanchev.eventful.benchmarks;
+
+import java.io.IOException;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks like the standard JMH launcher (so it accepts the same options),
+ * but with the <code>gc</code> profiler enabled unless other profilers are given,
+ * so that allocation rates are reported next to throughput.
+ */
+public final class Main {
+
+	private Main() {}
+
+
+	public static void main(String[] args) throws CommandLineOptionException, RunnerException, IOException {
+		CommandLineOptions cli = new CommandLineOptions(args);
+
+		if (cli.shouldHelp() || cli.shouldList() || cli.shouldListWithParams()
+				|| cli.shouldListProfilers() || cli.shouldListResultFormats()) {
+			org.openjdk.jmh.Main.main(args);
+			return;
+		}
+
+		ChainedOptionsBuilder options = new OptionsBuilder().parent(cli);
+
+		if (cli.getProfilers().isEmpty())
+			options.addProfiler(GCProfiler.class);
+
+		new Runner(options.build()).run();
+	}
+}
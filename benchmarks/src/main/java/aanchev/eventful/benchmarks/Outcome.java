@@ -0,0 +1,42 @@
+package aanchev.eventful.benchmarks;
+
+import aanchev.eventful.ConsumeEventException;
+import aanchev.eventful.Handler;
+import aanchev.eventful.Signal;
+import aanchev.eventful.SignalHandler;
+import aanchev.eventful.VetoEventException;
+
+/**
+ * How the dispatch ends.
+ */
+public enum Outcome {
+	/** All matching handlers are called. */
+	PASS,
+	/** An extra matching handler vetoes the event. */
+	VETO,
+	/** An extra matching handler consumes the event. */
+	CONSUME,
+	/** An extra matching handler vetoes the event by returning a {@link Signal}. */
+	VETO_SIGNAL,
+	/** An extra matching handler consumes the event by returning a {@link Signal}. */
+	CONSUME_SIGNAL;
+
+	Handler<Object> handler() {
+		switch (this) {
+			case VETO:
+				return e -> { throw new VetoEventException(); };
+
+			case CONSUME:
+				return e -> { throw new ConsumeEventException(); };
+
+			case VETO_SIGNAL:
+				return (SignalHandler<Object>) e -> Signal.VETO;
+
+			case CONSUME_SIGNAL:
+				return (SignalHandler<Object>) e -> Signal.CONSUME;
+
+			default:
+				return null;
+		}
+	}
+}
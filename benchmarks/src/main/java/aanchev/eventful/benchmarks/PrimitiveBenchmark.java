@@ -0,0 +1,62 @@
+package aanchev.eventful.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import aanchev.eventful.EventStream;
+import aanchev.eventful.LongEventStream;
+
+/**
+ * Compares firing <code>long</code> values through {@link LongEventStream} and a boxing {@link EventStream}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PrimitiveBenchmark {
+
+	@Param({"1", "10"})
+	public int handlers;
+
+
+	private LongEventStream primitive;
+	private EventStream<Long> boxed;
+	private long value = 1_000_000L; // beyond the cache of Long.valueOf()
+
+
+	@Setup
+	public void setup(Blackhole blackhole) {
+		primitive = new LongEventStream.Default() {};
+		boxed = new EventStream.Default<Long>() {};
+
+		for (int i = 0; i < handlers; i++) {
+			primitive.on(l -> blackhole.consume(l));
+			boxed.on((Long l) -> blackhole.consume(l));
+		}
+	}
+
+
+	@Benchmark
+	public boolean primitive() {
+		return primitive.fire(value++);
+	}
+
+	@Benchmark
+	public boolean boxed() {
+		return boxed.fire(value++);
+	}
+}
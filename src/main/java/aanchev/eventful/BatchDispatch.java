@@ -0,0 +1,82 @@
+package aanchev.eventful;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Fires a batch of events (of the same name) in one pass.
+ *
+ * <p>
+ * The handlers are looked up only once for the whole batch,
+ * and the matching handlers are resolved only once per distinct runtime class of event data.
+ * Runs of events of the same class - the common case - reuse the last resolution without any lookup at all.
+ * The events are still delivered in their original order.
+ * </p>
+ */
+final class BatchDispatch {
+
+	private BatchDispatch() {}
+
+
+	/**
+	 * @param dispatchTable the cache to resolve matching handlers through, or <code>null</code> to resolve them locally
+	 * @param key the event name to use with the dispatch table
+	 * @param handlers all handlers of the event, in invocation order; may be <code>null</code>
+	 * @return the indices of the vetoed events
+	 */
+	public static BitSet fire(Collection<?> events, DispatchTable dispatchTable, Object key, Iterable<? extends Handler<?>> handlers) {
+		if (dispatchTable != null) {
+			return fire(events, data -> {
+				Handler<Object>[] matching = dispatchTable.get(key, data);
+				return (matching != null)? matching : dispatchTable.put(key, data, handlers);
+			});
+		}
+
+		Map<Class<?>, Handler<Object>[]> resolved = new HashMap<>();
+		return fire(events, data -> resolved.computeIfAbsent((data == null)? null : data.getClass(), type -> DispatchTable.matching(handlers, type)));
+	}
+
+	/**
+	 * @param resolve gets the handlers that accept the given event data
+	 * @return the indices of the vetoed events
+	 */
+	public static BitSet fire(Collection<?> events, Function<Object, Handler<Object>[]> resolve) {
+		BitSet vetoed = new BitSet(events.size());
+
+		Class<?> lastType = null;
+		Handler<Object>[] matching = null;
+		int i = 0;
+
+		for (Object data : events) {
+			Class<?> type = (data == null)? null : data.getClass();
+
+			if (matching == null || type != lastType) {
+				matching = resolve.apply(data);
+				lastType = type;
+			}
+
+			try {
+				for (Handler<Object> handler : matching) {
+					Signal signal = handler.signal(data);
+					if (signal == Signal.VETO)
+						vetoed.set(i);
+					if (signal != Signal.CONTINUE)
+						break;
+				}
+			}
+			catch (VetoEventException e) {
+				vetoed.set(i);
+			}
+			catch (ConsumeEventException e) {
+				// only stops the handlers of this one event
+			}
+
+			i++;
+		}
+
+		return vetoed;
+	}
+}
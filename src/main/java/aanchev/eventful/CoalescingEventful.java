@@ -0,0 +1,342 @@
+package aanchev.eventful;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.Collector;
+
+/**
+ * An {@link Eventful} in front of another one, which coalesces the events with selected names:
+ * firing such an event only records it as pending, replacing the previously pending one,
+ * and the latest event is delivered to the handlers at a fixed interval (or on {@link #flush()}), on a scheduler thread.
+ *
+ * <pre>{@code
+ * CoalescingEventful<Object> coalescing = new CoalescingEventful<>(eventful, 16, TimeUnit.MILLISECONDS)
+ *     .coalesce("resize")
+ *     .coalesce("price-update", (Price price) -> price.getSymbol());
+ *coalescing.fire("resize", size); // handlers get the last size once per 16ms, however often it is fired
+ * }</pre>
+ *
+ * <p>
+ * At most one event is pending per name - or per key extracted from the event data, if a key function is given -
+ * so handlers only ever see the latest one.
+ * The events of other names are fired on the target right away, and everything else (attaching handlers, keys, etc.)
+ * is delegated to the target, so the two share their handlers.
+ * That includes {@link #on(String, java.util.function.Predicate, Handler) filtered} handlers, whose filter is only tested
+ * against the delivered event - so a pending event that passes it may still be replaced by a later one that does not.
+ * </p>
+ *
+ * <p>
+ * Firing a coalesced event does not lock nor allocate (except for the slot of a key that is not pending),
+ * and always returns <code>true</code>, as the outcome is not known yet.
+ * The slots of keys are dropped once their event is delivered, so keys that are seen once do not accumulate. Delivery is serialized, but happens on the scheduler thread,
+ * so a target that is also fired into directly should be thread-safe (e.g. {@link Eventful.Concurrent}).
+ * </p>
+ *
+ * @param <E> the type of event data of the target
+ */
+public class CoalescingEventful<E> extends ForwardingEventful<E> implements AutoCloseable {
+	private static final Object EMPTY = new Object();
+	private static final Object NULL = new Object();
+
+
+	/**
+	 * The pending event of a name (and key).
+	 */
+	private static final class Slot extends AtomicReference<Object> {
+		private static final long serialVersionUID = 1L;
+
+		final String event;
+		final Map<Object, Slot> slots; // that holds this slot, if keyed
+		final Object key;
+
+		Slot(String event) {
+			this(event, null, null);
+		}
+
+		Slot(String event, Map<Object, Slot> slots, Object key) {
+			super(EMPTY);
+			this.event = event;
+			this.slots = slots;
+			this.key = key;
+		}
+
+		/**
+		 * Drops the slot of a key once its event is delivered.
+		 * An event offered meanwhile is still delivered, as the slot is pending then - later ones get a new slot.
+		 */
+		void evict() {
+			if (slots != null)
+				slots.remove(key, this);
+		}
+	}
+
+	/**
+	 * The slots of a coalesced name.
+	 */
+	private static final class Coalesced<E> {
+		final Slot slot; // if not keyed
+		final Function<? super E, ?> key;
+		final Map<Object, Slot> slots;
+
+		Coalesced(String event, Function<? super E, ?> key) {
+			this.slot = (key == null)? new Slot(event) : null;
+			this.key = key;
+			this.slots = (key == null)? null : new ConcurrentHashMap<>();
+		}
+
+		Slot slotOf(String event, E data) {
+			if (key == null)
+				return slot;
+
+			Object k = key.apply(data);
+			if (k == null)
+				k = NULL;
+
+			Slot slot = slots.get(k);
+			return (slot != null)? slot : slots.computeIfAbsent(k, x -> new Slot(event, slots, x));
+		}
+	}
+
+
+	private final Map<String, Coalesced<E>> coalesced = new ConcurrentHashMap<>();
+	private final ConcurrentLinkedQueue<Slot> pending = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger size = new AtomicInteger();
+
+	private final ScheduledExecutorService scheduler;
+	private final boolean ownScheduler;
+	private final ScheduledFuture<?> delivery;
+
+
+	/* Constructors */
+
+	/**
+	 * Delivers pending events on a daemon thread of its own.
+	 *
+	 * @see #CoalescingEventful(Eventful, long, TimeUnit, ScheduledExecutorService)
+	 */
+	public CoalescingEventful(Eventful<E> target, long interval, TimeUnit unit) {
+		this(target, interval, unit, daemonThread(), true);
+	}
+
+	/**
+	 * @param target the eventful instance to deliver the events to
+	 * @param interval how often to deliver the pending events, or <code>0</code> to only deliver them on {@link #flush()}
+	 * @param scheduler the scheduler to deliver on, which is not shut down by {@link #close()}
+	 */
+	public CoalescingEventful(Eventful<E> target, long interval, TimeUnit unit, ScheduledExecutorService scheduler) {
+		this(target, interval, unit, scheduler, false);
+	}
+
+	private CoalescingEventful(Eventful<E> target, long interval, TimeUnit unit, ScheduledExecutorService scheduler, boolean ownScheduler) {
+		super(target);
+
+		if (interval < 0)
+			throw new IllegalArgumentException("The interval cannot be negative, but was " + interval);
+
+		this.scheduler = scheduler;
+		this.ownScheduler = ownScheduler;
+		this.delivery = (interval == 0)? null : scheduler.scheduleWithFixedDelay(this::flush, interval, interval, unit);
+	}
+
+	private static ScheduledExecutorService daemonThread() {
+		return Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "eventful-coalescer");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+
+	/* Configuration */
+
+	/**
+	 * Coalesces the events with the given name, keeping only the latest one pending.
+	 *
+	 * @return this instance, for chaining
+	 */
+	public CoalescingEventful<E> coalesce(String event) {
+		coalesced.put(event, new Coalesced<>(event, null));
+		return this;
+	}
+
+	/**
+	 * Coalesces the events with the given name, keeping the latest one pending per key.
+	 *
+	 * @param key extracts the key of the event data; events with equal keys replace each other
+	 * @return this instance, for chaining
+	 */
+	@SuppressWarnings("unchecked")
+	public <T extends E> CoalescingEventful<E> coalesce(String event, Function<? super T, ?> key) {
+		coalesced.put(event, new Coalesced<>(event, (Function<? super E, ?>) key));
+		return this;
+	}
+
+	public boolean isCoalesced(String event) {
+		return coalesced.containsKey(event);
+	}
+
+	/**
+	 * @return the number of events waiting to be delivered
+	 */
+	public int pending() {
+		return size.get();
+	}
+
+	/**
+	 * @return the number of keys with a slot for the coalesced event
+	 */
+	int slots(String event) {
+		Coalesced<E> c = coalesced.get(event);
+		return (c == null || c.slots == null)? 0 : c.slots.size();
+	}
+
+
+	/* Firing of Events */
+
+	/**
+	 * Fires the event on the target, unless it is coalesced - then it is only recorded as pending.
+	 *
+	 * @return what firing on the target returned, or <code>true</code> if the event is coalesced
+	 */
+	@Override
+	public boolean fire(String event, E data) {
+		Coalesced<E> c = coalesced.get(event);
+
+		if (c == null)
+			return target.fire(event, data);
+
+		offer(c.slotOf(event, data), data);
+		return true;
+	}
+
+	@Override
+	public <T extends E> boolean fire(EventKey<T> key, T data) {
+		Coalesced<E> c = coalesced.get(key.name());
+
+		if (c == null)
+			return target.fire(key, data);
+
+		offer(c.slotOf(key.name(), data), data);
+		return true;
+	}
+
+	/**
+	 * Records every event as pending, if coalesced, so only the last one (per key) is delivered.
+	 */
+	@Override
+	public BitSet fireAll(String event, Collection<? extends E> data) {
+		Coalesced<E> c = coalesced.get(event);
+
+		if (c == null)
+			return target.fireAll(event, data);
+
+		for (E d : data)
+			offer(c.slotOf(event, d), d);
+
+		return new BitSet();
+	}
+
+	@Override
+	public CompletableFuture<Boolean> fireParallel(String event, E data, Executor executor) {
+		if (!isCoalesced(event))
+			return target.fireParallel(event, data, executor);
+
+		fire(event, data);
+		return CompletableFuture.completedFuture(true);
+	}
+
+	/**
+	 * Asks the target, unless the event is coalesced - its responses are not known until it is delivered.
+	 *
+	 * @throws UnsupportedOperationException if the event is coalesced
+	 */
+	@Override
+	public <R, A, T> T ask(String event, E data, Collector<? super R, A, T> collector) {
+		if (isCoalesced(event))
+			throw new UnsupportedOperationException("Cannot ask the coalesced event " + event);
+
+		return target.ask(event, data, collector);
+	}
+
+	/**
+	 * @throws UnsupportedOperationException if the event is coalesced
+	 * @see #ask(String, Object, Collector)
+	 */
+	@Override
+	public <T extends E, R, A, U> U ask(EventKey<T> key, T data, Collector<? super R, A, U> collector) {
+		if (isCoalesced(key.name()))
+			throw new UnsupportedOperationException("Cannot ask the coalesced event " + key.name());
+
+		return target.ask(key, data, collector);
+	}
+
+	private void offer(Slot slot, E data) {
+		if (slot.getAndSet((data == null)? NULL : data) == EMPTY) { // not pending yet
+			size.incrementAndGet();
+			pending.offer(slot);
+		}
+	}
+
+
+	/* Delivery */
+
+	/**
+	 * Delivers the pending events to the target, on the calling thread, in the order they became pending.
+	 * Events that become pending meanwhile are left for the next delivery.
+	 *
+	 * <p>
+	 * Exceptions thrown by handlers are reported to the uncaught exception handler of the thread,
+	 * and do not prevent the delivery of the other events.
+	 * </p>
+	 */
+	@SuppressWarnings("unchecked")
+	public synchronized void flush() {
+		for (int n = size.get(); n > 0; n--) {
+			Slot slot = pending.poll();
+			if (slot == null)
+				break;
+
+			size.decrementAndGet();
+			Object data = slot.getAndSet(EMPTY);
+			slot.evict();
+
+			try {
+				target.fire(slot.event, (data == NULL)? null : (E) data);
+			}
+			catch (Throwable t) { // an Error would otherwise drop the rest of the polled events
+				Thread thread = Thread.currentThread();
+				thread.getUncaughtExceptionHandler().uncaughtException(thread, t);
+			}
+		}
+	}
+
+
+	/* Lifecycle */
+
+	/**
+	 * Stops the periodic delivery and delivers the events still pending.
+	 * Later events are only delivered on {@link #flush()}.
+	 */
+	@Override
+	public void close() {
+		if (delivery != null)
+			delivery.cancel(false);
+
+		if (ownScheduler)
+			scheduler.shutdown();
+
+		flush();
+	}
+}
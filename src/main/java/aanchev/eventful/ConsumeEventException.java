@@ -8,4 +8,19 @@ package aanchev.eventful;
  */
 public class ConsumeEventException extends Exception {
 	private static final long serialVersionUID = 1L;
+
+	/**
+	 * A shared instance, to throw without allocating - it has no stack trace, as it is only used for control flow.
+	 */
+	public static final ConsumeEventException INSTANCE = new ConsumeEventException(null, null, false, false);
+
+
+	public ConsumeEventException() {}
+
+	/**
+	 * @see Exception#Exception(String, Throwable, boolean, boolean)
+	 */
+	protected ConsumeEventException(String message, Throwable cause, boolean enableSuppression, boolean writableStackTrace) {
+		super(message, cause, enableSuppression, writableStackTrace);
+	}
 }
\ No newline at end of file
@@ -0,0 +1,45 @@
+package aanchev.eventful;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Executors for {@link Eventful#fireAsync(String, Object, Executor) asynchronous}
+ * and {@link Eventful#fireParallel(String, Object, Executor) parallel} dispatch.
+ *
+ * <pre>{@code
+ * eventful.fireParallel("order-placed", order, DispatchExecutors.virtualThreads());
+ * }</pre>
+ *
+ * <p>
+ * This is the Java 8 version of the class - the library is a multi-release JAR,
+ * and on Java 21+ {@link #virtualThreads()} starts a virtual thread per handler invocation instead.
+ * </p>
+ */
+public final class DispatchExecutors {
+
+	private DispatchExecutors() {}
+
+
+	/**
+	 * Gets an executor that runs each task on a new virtual thread, where they are available (Java 21+),
+	 * so handlers that block (e.g. on I/O) do not hold up each other nor a pool of platform threads.
+	 * There is no pool to size - thousands of blocking handlers can be fanned out at once.
+	 *
+	 * <p>
+	 * Without virtual threads (this version), it is the common {@link ForkJoinPool}.
+	 * </p>
+	 *
+	 * @see #isVirtual()
+	 */
+	public static Executor virtualThreads() {
+		return ForkJoinPool.commonPool();
+	}
+
+	/**
+	 * @return whether {@link #virtualThreads()} actually uses virtual threads, on this Java version
+	 */
+	public static boolean isVirtual() {
+		return false;
+	}
+}
@@ -0,0 +1,203 @@
+package aanchev.eventful;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An {@link Instrumentation} that counts, per event, how many times it was fired
+ * and how many of those matched no handlers, were vetoed or were consumed,
+ * and keeps a {@link LatencyHistogram} of the invocations of each handler.
+ *
+ * <pre>{@code
+ * DispatchMetrics metrics = new DispatchMetrics();
+ *eventful.instrument(metrics);
+ * ...
+ *System.out.println(metrics.snapshot());
+ * }</pre>
+ *
+ * <p>
+ * All counters are {@link LongAdder}s, so recording from many threads does not contend.
+ * Handlers are identified as attached - by the handler passed to <code>on()</code>, not by the proxy that wraps it -
+ * and are held weakly, by identity, so the metrics do not keep detached handlers (and what they capture) reachable.
+ * </p>
+ */
+public class DispatchMetrics implements Instrumentation {
+
+	private static final class Counters {
+		final LongAdder fired = new LongAdder();
+		final LongAdder unmatched = new LongAdder();
+		final LongAdder vetoed = new LongAdder();
+		final LongAdder consumed = new LongAdder();
+		final WeakIdentityMap<Handler<?>, LatencyHistogram> handlers = new WeakIdentityMap<>();
+	}
+
+
+	private final Map<Object, Counters> events = new ConcurrentHashMap<>();
+
+
+	/* Instrumentation */
+
+	@Override
+	public void fired(Object event, int handlers) {
+		Counters counters = countersOf(event);
+
+		counters.fired.increment();
+		if (handlers == 0)
+			counters.unmatched.increment();
+	}
+
+	@Override
+	public void handled(Object event, Handler<?> handler, long nanos) {
+		WeakIdentityMap<Handler<?>, LatencyHistogram> handlers = countersOf(event).handlers;
+		Handler<?> h = unwrap(handler);
+
+		LatencyHistogram histogram = handlers.get(h);
+		if (histogram == null)
+			histogram = handlers.computeIfAbsent(h, k -> new LatencyHistogram());
+
+		histogram.record(nanos);
+	}
+
+	@Override
+	public void completed(Object event, Signal outcome) {
+		switch (outcome) {
+			case VETO:
+				countersOf(event).vetoed.increment();
+				break;
+
+			case CONSUME:
+				countersOf(event).consumed.increment();
+				break;
+
+			default:
+				break;
+		}
+	}
+
+	private Counters countersOf(Object event) {
+		Counters counters = events.get(event); // cheaper than computeIfAbsent when present
+		return (counters != null)? counters : events.computeIfAbsent(event, k -> new Counters());
+	}
+
+	private static Handler<?> unwrap(Handler<?> handler) {
+		while (handler instanceof TypedHandler)
+			handler = ((TypedHandler<?>) handler).handler;
+
+		return handler;
+	}
+
+
+	/* Reading */
+
+	/**
+	 * Takes a (weakly consistent) copy of the metrics of all events fired so far.
+	 */
+	public Snapshot snapshot() {
+		Map<Object, EventMetrics> snapshot = new LinkedHashMap<>();
+
+		events.forEach((event, counters) -> {
+			Map<Handler<?>, LatencyHistogram.Snapshot> latencies = new LinkedHashMap<>();
+			counters.handlers.forEach((handler, histogram) -> latencies.put(handler, histogram.snapshot()));
+
+			snapshot.put(event, new EventMetrics(
+					counters.fired.sum(), counters.unmatched.sum(), counters.vetoed.sum(), counters.consumed.sum(),
+					Collections.unmodifiableMap(latencies)));
+		});
+
+		return new Snapshot(Collections.unmodifiableMap(snapshot));
+	}
+
+	public void reset() {
+		events.clear();
+	}
+
+
+	/**
+	 * An immutable copy of the metrics of a {@link DispatchMetrics}.
+	 */
+	public static final class Snapshot {
+		private final Map<Object, EventMetrics> events;
+
+		Snapshot(Map<Object, EventMetrics> events) {
+			this.events = events;
+		}
+
+		public Map<Object, EventMetrics> events() {
+			return events;
+		}
+
+		/**
+		 * @return the metrics of the given event, or <code>null</code> if it was never fired
+		 */
+		public EventMetrics of(Object event) {
+			return events.get(event);
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder sb = new StringBuilder();
+			events.forEach((event, metrics) -> sb.append(event).append(": ").append(metrics).append('\n'));
+			return sb.toString();
+		}
+	}
+
+	/**
+	 * The metrics of a single event.
+	 */
+	public static final class EventMetrics {
+		private final long fired;
+		private final long unmatched;
+		private final long vetoed;
+		private final long consumed;
+		private final Map<Handler<?>, LatencyHistogram.Snapshot> latencies;
+
+		EventMetrics(long fired, long unmatched, long vetoed, long consumed, Map<Handler<?>, LatencyHistogram.Snapshot> latencies) {
+			this.fired = fired;
+			this.unmatched = unmatched;
+			this.vetoed = vetoed;
+			this.consumed = consumed;
+			this.latencies = latencies;
+		}
+
+		public long fired() {
+			return fired;
+		}
+
+		/**
+		 * @return the number of times the event was fired with data that no handler accepts
+		 */
+		public long unmatched() {
+			return unmatched;
+		}
+
+		public long vetoed() {
+			return vetoed;
+		}
+
+		public long consumed() {
+			return consumed;
+		}
+
+		/**
+		 * @return the latencies of the handlers of the event, in nanoseconds
+		 */
+		public Map<Handler<?>, LatencyHistogram.Snapshot> latencies() {
+			return latencies;
+		}
+
+		/**
+		 * @return the latencies of the given handler (as attached), or <code>null</code> if it was never called
+		 */
+		public LatencyHistogram.Snapshot latencyOf(Handler<?> handler) {
+			return latencies.get(unwrap(handler));
+		}
+
+		@Override
+		public String toString() {
+			return "fired=" + fired + " unmatched=" + unmatched + " vetoed=" + vetoed + " consumed=" + consumed + " handlers=" + latencies.size();
+		}
+	}
+}
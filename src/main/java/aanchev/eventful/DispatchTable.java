@@ -0,0 +1,223 @@
+package aanchev.eventful;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+
+/**
+ * A cache of the handlers that match a given event (key) and a given concrete event data class.
+ *
+ * <p>
+ * Looking up the handlers is a single hash lookup, returning a flat array
+ * whose handlers can be called directly, without any further type checks.
+ * The table is kept up to date incrementally through {@link #update(Object, Class, Iterable)},
+ * which only touches the entries of the changed event (found through an index by key)
+ * whose event data class is assignable to the type of the changed handler.
+ * </p>
+ *
+ * <p>
+ * Lookups are lock-free and safe to perform concurrently with modifications.
+ * A <code>null</code> key is permitted (e.g. for single-stream usages),
+ * as is a <code>null</code> class (for <code>null</code> event data, which every handler accepts).
+ * </p>
+ *
+ * <p>
+ * The table is bounded - once it holds {@value #MAX_SIZE} entries, it is cleared and starts over,
+ * so keys of unbounded cardinality (e.g. topics matched by patterns) do not grow it forever.
+ * </p>
+ */
+public final class DispatchTable {
+	private static final int INITIAL_CAPACITY = 16;
+	static final int MAX_SIZE = 1 << 14;
+
+	private static final Handler<Object>[] NONE = newHandlers(0);
+
+
+	private static final class Entry {
+		final Object key;
+		final Class<?> type;
+		final int hash;
+		final Entry next;
+
+		volatile Handler<Object>[] handlers;
+
+		Entry(Object key, Class<?> type, int hash, Entry next, Handler<Object>[] handlers) {
+			this.key = key;
+			this.type = type;
+			this.hash = hash;
+			this.next = next;
+			this.handlers = handlers;
+		}
+	}
+
+
+	private volatile Entry[] buckets = new Entry[INITIAL_CAPACITY];
+	private final Map<Object, List<Entry>> byKey = new HashMap<>(); // guarded by this
+	private int size = 0;
+
+
+	/* Lookup */
+
+	/**
+	 * Gets the cached handlers for the given event and event data.
+	 *
+	 * @return the matching handlers, or <code>null</code> if they have not been resolved yet
+	 */
+	public Handler<Object>[] get(Object key, Object data) {
+		Class<?> type = (data == null)? null : data.getClass();
+		int hash = hash(key, type);
+
+		Entry[] buckets = this.buckets;
+		for (Entry e = buckets[hash & (buckets.length - 1)]; e != null; e = e.next) {
+			if (e.hash == hash && e.type == type && (e.key == key || (key != null && key.equals(e.key))))
+				return e.handlers;
+		}
+
+		return null;
+	}
+
+	/**
+	 * Resolves, caches and returns the handlers for the given event and event data.
+	 *
+	 * @param handlers all handlers attached to the event, in invocation order; may be <code>null</code>
+	 * @return the handlers that accept the event data, in the same order
+	 */
+	public synchronized Handler<Object>[] put(Object key, Object data, Iterable<? extends Handler<?>> handlers) {
+		Class<?> type = (data == null)? null : data.getClass();
+		int hash = hash(key, type);
+		Handler<Object>[] matching = matching(handlers, type);
+
+		if (size >= MAX_SIZE)
+			clear(); // cheaper than tracking the use of every entry, and rare for a bounded set of keys
+
+		Entry[] buckets = this.buckets;
+		int i = hash & (buckets.length - 1);
+
+		for (Entry e = buckets[i]; e != null; e = e.next) {
+			if (e.hash == hash && e.type == type && (e.key == key || (key != null && key.equals(e.key)))) {
+				e.handlers = matching;
+				return matching;
+			}
+		}
+
+		buckets[i] = new Entry(key, type, hash, buckets[i], matching);
+		byKey.computeIfAbsent(key, k -> new ArrayList<>()).add(buckets[i]);
+
+		if (++size > buckets.length * 3 / 4)
+			resize();
+		else
+			this.buckets = buckets; // the volatile write publishes the new entry
+
+		return matching;
+	}
+
+
+	/**
+	 * @return the number of cached entries
+	 */
+	synchronized int size() {
+		return size;
+	}
+
+
+	/* Modification */
+
+	/**
+	 * Re-resolves the cached entries of an event that could be affected by a handler of the given type.
+	 *
+	 * @param key the event whose handlers changed
+	 * @param type the event type of the added or removed handler
+	 * @param handlers all handlers (now) attached to the event, in invocation order; may be <code>null</code>
+	 */
+	public synchronized void update(Object key, Class<?> type, Iterable<? extends Handler<?>> handlers) {
+		List<Entry> entries = byKey.get(key);
+		if (entries == null)
+			return;
+
+		for (Entry e : entries) {
+			if (e.type == null || type.isAssignableFrom(e.type))
+				e.handlers = matching(handlers, e.type);
+		}
+	}
+
+	/**
+	 * Re-resolves the cached entries of all events that pass the filter, and could be affected by a handler of the given type.
+	 *
+	 * @param keys tells which events (keys) to update
+	 * @param handlers gets all handlers (now) attached to an event, in invocation order
+	 */
+	public synchronized void update(Predicate<Object> keys, Class<?> type, Function<Object, Iterable<? extends Handler<?>>> handlers) {
+		byKey.forEach((key, entries) -> {
+			if (!keys.test(key))
+				return;
+
+			Iterable<? extends Handler<?>> all = null;
+
+			for (Entry e : entries) {
+				if (e.type == null || type.isAssignableFrom(e.type)) {
+					if (all == null)
+						all = handlers.apply(key);
+
+					e.handlers = matching(all, e.type);
+				}
+			}
+		});
+	}
+
+	public synchronized void clear() {
+		buckets = new Entry[INITIAL_CAPACITY];
+		byKey.clear();
+		size = 0;
+	}
+
+
+	/* Helpers */
+
+	private static int hash(Object key, Class<?> type) {
+		int h = (key == null)? 0 : key.hashCode();
+		h = h * 31 + ((type == null)? 0 : type.hashCode());
+		return h ^ (h >>> 16);
+	}
+
+	private void resize() {
+		Entry[] old = this.buckets;
+		Entry[] resized = new Entry[old.length * 2];
+		byKey.clear(); // re-indexed, as the entries are copied
+
+		for (Entry bucket : old) {
+			for (Entry e = bucket; e != null; e = e.next) {
+				int i = e.hash & (resized.length - 1);
+				resized[i] = new Entry(e.key, e.type, e.hash, resized[i], e.handlers);
+				byKey.computeIfAbsent(e.key, k -> new ArrayList<>()).add(resized[i]);
+			}
+		}
+
+		this.buckets = resized;
+	}
+
+	static Handler<Object>[] matching(Iterable<? extends Handler<?>> handlers, Class<?> type) {
+		if (handlers == null)
+			return NONE;
+
+		List<Handler<?>> matching = new ArrayList<>();
+
+		for (Handler<?> handler : handlers) {
+			if (type == null || handler.getEventType().isAssignableFrom(type))
+				matching.add(handler);
+		}
+
+		return matching.isEmpty()? NONE : matching.toArray(newHandlers(matching.size()));
+	}
+
+	/**
+	 * @return a new array of handlers, as generic arrays cannot be created directly
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	static Handler<Object>[] newHandlers(int length) {
+		return new Handler[length];
+	}
+}
@@ -0,0 +1,131 @@
+package aanchev.eventful;
+
+import java.util.Set;
+
+/**
+ * A primitive specialization of {@link EventStream} for <code>double</code> events,
+ * so firing neither boxes the value nor type-checks it for every handler.
+ *
+ * <p>
+ * Handlers are {@link DoubleHandler}s and the semantics of {@link VetoEventException} and {@link ConsumeEventException}
+ * are the same as with {@link EventStream}.
+ * </p>
+ *
+ * <p>
+ * The {@link DoubleEventStream.Default} interface manages state like {@link EventStream.Default} does,
+ * but keeps the handlers in a copy-on-write snapshot, so {@link #fire(double) fire()} does not allocate
+ * (and is thread-safe).
+ * The {@link DoubleEventStream.Ranked} interface adds priorities, like {@link EventStream.Ranked}.
+ * </p>
+ *
+ * @see EventStream
+ */
+public interface DoubleEventStream {
+
+	/* State Getters */
+	// may need overriding
+
+	public Set<DoubleHandler> getHandlers();
+
+
+	/* Handler/Listener Attaching */
+
+	public default DoubleHandler on(DoubleHandler handler) {
+		getHandlers().add(handler);
+		return handler;
+	}
+
+	public default boolean off(DoubleHandler handler) {
+		return getHandlers().remove(handler);
+	}
+
+	/**
+	 * Detaches all handlers, eagerly.
+	 *
+	 * @see EventStream#dispose()
+	 */
+	public default void dispose() {
+		getHandlers().clear();
+	}
+
+
+	/* Firing of Events */
+
+	public default boolean fire(double data) {
+		Set<DoubleHandler> handlers = getHandlers();
+
+		try {
+			if (handlers instanceof Snapshotting) {
+				for (Object handler : ((Snapshotting) handlers).snapshot()) {
+					((DoubleHandler) handler).handle(data);
+				}
+			}
+			else {
+				for (DoubleHandler handler : handlers) {
+					handler.handle(data);
+				}
+			}
+
+			return true;
+		}
+		catch (VetoEventException e) {
+			return false;
+		}
+		catch (ConsumeEventException e) {
+			return true;
+		}
+	}
+
+
+	/* Specialized Implementations */
+
+	/**
+	 * A sub-interface of {@link DoubleEventStream} that also manages state, like {@link EventStream.Default}.
+	 */
+	public interface Default extends DoubleEventStream {
+		final static WeakIdentityMap<Object, Set<DoubleHandler>> eventStreams = new WeakIdentityMap<>();
+
+		@Override
+		public default Set<DoubleHandler> getHandlers() {
+			return eventStreams.computeIfAbsent(this, k -> new SnapshotSet<>());
+		}
+
+		@Override
+		public default void dispose() {
+			eventStreams.remove(this);
+		}
+	}
+
+	/**
+	 * A sub-interface of {@link DoubleEventStream.Default} that allows handlers to have priorities, like {@link EventStream.Ranked}.
+	 * Handlers are called by ascending priority, and handlers with the same priority in the order they were attached.
+	 */
+	public interface Ranked extends DoubleEventStream.Default {
+		@Override
+		public default Set<DoubleHandler> getHandlers() {
+			return eventStreams.computeIfAbsent(this, k -> new RankedSet<>(DoubleHandler.Ranked::priorityOf));
+		}
+
+
+		@Override
+		default DoubleHandler on(DoubleHandler handler) {
+			return this.on(handler, 0);
+		}
+
+		default DoubleHandler.Ranked on(DoubleHandler handler, int priority) {
+			DoubleHandler.Ranked rankedHandler = new DoubleHandler.Ranked(handler, priority);
+
+			DoubleEventStream.Default.super.on(rankedHandler);
+
+			return rankedHandler;
+		}
+
+		@Override
+		default boolean off(DoubleHandler handler) {
+			if (!(handler instanceof DoubleHandler.Ranked))
+				handler = new DoubleHandler.Ranked(handler, 0);
+
+			return DoubleEventStream.Default.super.off(handler);
+		}
+	}
+}
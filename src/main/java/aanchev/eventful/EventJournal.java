@@ -0,0 +1,633 @@
+package aanchev.eventful;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.stream.Collector;
+
+/**
+ * An append-only log of fired events, kept in memory-mapped segment files,
+ * which can be replayed - e.g. to recover the state built by the handlers after a crash, or to warm up new handlers.
+ *
+ * <pre>{@code
+ * EventJournal<Object> journal = new EventJournal<>(Paths.get("journal"), EventJournal.Serializer.java());
+ * Eventful<Object> journaled = journal.journaling(eventful); // appends every event, then fires it on eventful
+ * ...
+ * journal.replay(0, recovered); // fires all recorded events on recovered, in order
+ * }</pre>
+ *
+ * <p>
+ * Every event is written as a record - its length, its name (for {@link Eventful}) and its serialized data -
+ * directly into the mapped segment, by the {@link Serializer}, without intermediate copies.
+ * Records are identified by their offset in the journal, which only grows, across segments.
+ * Appending never waits for the records to reach the disk:
+ * they survive the process crashing as soon as they are appended, but survive the system crashing only once {@link #sync() synced}.
+ * </p>
+ *
+ * <p>
+ * When a record does not fit in the current segment, a new one is started,
+ * and the oldest segments are deleted according to the {@link Retention} policy.
+ * Only the current segment stays mapped - the full ones are mapped by the replays that read them, for as long as they do.
+ * </p>
+ *
+ * <p>
+ * Appends are serialized; replays run concurrently with them, and see the records appended before they started
+ * (except for the segments that the retention deletes meanwhile).
+ * </p>
+ *
+ * @param <E> the type of event data
+ */
+public class EventJournal<E> implements AutoCloseable {
+	private static final String SUFFIX = ".log";
+	private static final int HEADER = 4;
+	private static final int NO_NAME = -1;
+
+	public static final int DEFAULT_SEGMENT_SIZE = 64 << 20;
+
+
+	/**
+	 * Writes event data into journal records, and reads it back.
+	 */
+	public interface Serializer<E> {
+		/**
+		 * Writes the data at the position of the buffer, advancing it.
+		 * Other exceptions than a {@link BufferOverflowException} are passed on to the caller of the append.
+		 *
+		 * @throws BufferOverflowException if the data does not fit in the rest of the buffer
+		 */
+		public void write(E data, ByteBuffer buffer) throws BufferOverflowException;
+
+		/**
+		 * Reads the data written by {@link #write(Object, ByteBuffer) write()}, which spans the whole rest of the buffer.
+		 */
+		public E read(ByteBuffer buffer);
+
+
+		/**
+		 * @return a serializer that uses Java serialization
+		 */
+		public static <E extends Serializable> Serializer<E> java() {
+			return new Serializer<E>() {
+				@Override
+				public void write(E data, ByteBuffer buffer) {
+					try (ObjectOutputStream out = new ObjectOutputStream(new OutputStream() {
+						@Override
+						public void write(int b) {
+							buffer.put((byte) b);
+						}
+
+						@Override
+						public void write(byte[] b, int off, int len) {
+							buffer.put(b, off, len);
+						}
+					})) {
+						out.writeObject(data);
+					}
+					catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				}
+
+				@SuppressWarnings("unchecked")
+				@Override
+				public E read(ByteBuffer buffer) {
+					try (ObjectInputStream in = new ObjectInputStream(new InputStream() {
+						@Override
+						public int read() {
+							return buffer.hasRemaining()? (buffer.get() & 0xFF) : -1;
+						}
+
+						@Override
+						public int read(byte[] b, int off, int len) {
+							if (!buffer.hasRemaining())
+								return -1;
+
+							len = Math.min(len, buffer.remaining());
+							buffer.get(b, off, len);
+							return len;
+						}
+					})) {
+						return (E) in.readObject();
+					}
+					catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+					catch (ClassNotFoundException e) {
+						throw new IllegalStateException(e);
+					}
+				}
+			};
+		}
+
+		/**
+		 * @return a serializer of (non-<code>null</code>) strings, as UTF-8
+		 */
+		public static Serializer<String> strings() {
+			ThreadLocal<CharsetEncoder> encoders = ThreadLocal.withInitial(StandardCharsets.UTF_8::newEncoder);
+
+			return new Serializer<String>() {
+				@Override
+				public void write(String data, ByteBuffer buffer) {
+					CharsetEncoder encoder = encoders.get().reset();
+					CoderResult result = encoder.encode(CharBuffer.wrap(data), buffer, true);
+
+					if (result.isOverflow() || encoder.flush(buffer).isOverflow())
+						throw new BufferOverflowException();
+				}
+
+				@Override
+				public String read(ByteBuffer buffer) {
+					return StandardCharsets.UTF_8.decode(buffer).toString();
+				}
+			};
+		}
+	}
+
+	/**
+	 * Which of the full segments to keep. The segment being appended to is always kept.
+	 */
+	public static final class Retention {
+		public static final Retention FOREVER = new Retention(Integer.MAX_VALUE, Long.MAX_VALUE);
+
+		private final int segments;
+		private final long millis;
+
+		private Retention(int segments, long millis) {
+			this.segments = segments;
+			this.millis = millis;
+		}
+
+		/**
+		 * @param segments the maximum number of segments, including the current one
+		 * @param age the maximum time since a segment was filled
+		 */
+		public static Retention of(int segments, long age, TimeUnit unit) {
+			if (segments < 1)
+				throw new IllegalArgumentException("At least one segment must be retained");
+
+			return new Retention(segments, unit.toMillis(age));
+		}
+
+		public static Retention ofSegments(int segments) {
+			return of(segments, Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+		}
+
+		public static Retention ofAge(long age, TimeUnit unit) {
+			return of(Integer.MAX_VALUE, age, unit);
+		}
+	}
+
+
+	/**
+	 * A segment file, whose records start at the given offset of the journal.
+	 */
+	private static final class Segment {
+		final long base;
+		final Path path;
+		MappedByteBuffer buffer; // only while appended to or not synced yet, guarded by the journal
+
+		Segment(long base, Path path, MappedByteBuffer buffer) {
+			this.base = base;
+			this.path = path;
+			this.buffer = buffer;
+		}
+	}
+
+
+	private final Path directory;
+	private final Serializer<E> serializer;
+	private final int segmentSize;
+	private final Retention retention;
+
+	private final NavigableMap<Long, Segment> segments = new TreeMap<>(); // guarded by this
+	private final Map<String, byte[]> names = new ConcurrentHashMap<>();
+	private Segment active; // guarded by this
+	private final List<Segment> unsynced = new ArrayList<>(); // rolled over before being synced, guarded by this
+	private int position; // guarded by this
+	private boolean closed = false; // guarded by this
+
+
+	/* Constructors */
+
+	public EventJournal(Path directory, Serializer<E> serializer) throws IOException {
+		this(directory, serializer, DEFAULT_SEGMENT_SIZE, Retention.FOREVER);
+	}
+
+	/**
+	 * Opens the journal in the given directory, creating it if needed, and continues after its last record.
+	 *
+	 * @param segmentSize the size of each segment file, which also limits the size of a record
+	 */
+	public EventJournal(Path directory, Serializer<E> serializer, int segmentSize, Retention retention) throws IOException {
+		if (segmentSize < 64)
+			throw new IllegalArgumentException("Segments must be at least 64 bytes, but were " + segmentSize);
+
+		this.directory = Files.createDirectories(directory);
+		this.serializer = serializer;
+		this.segmentSize = segmentSize;
+		this.retention = retention;
+
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+			for (Path file : files) {
+				String name = file.getFileName().toString();
+				long base = Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+				segments.put(base, new Segment(base, file, null)); // mapped when replayed
+			}
+		}
+		catch (NumberFormatException e) {
+			throw new IOException("Not a journal: " + directory, e);
+		}
+
+		if (segments.isEmpty()) {
+			active = create(0);
+			segments.put(0L, active);
+		}
+		else {
+			active = segments.lastEntry().getValue();
+			active.buffer = map(active.path, (int) Math.max(Files.size(active.path), segmentSize));
+		}
+
+		position = recover(active.buffer);
+	}
+
+	private Segment create(long base) throws IOException {
+		Path path = directory.resolve(String.format("%020d%s", base, SUFFIX));
+		return new Segment(base, path, map(path, segmentSize));
+	}
+
+	private static MappedByteBuffer map(Path path, int size) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			return channel.map(FileChannel.MapMode.READ_WRITE, 0, size); // the mapping outlives the channel
+		}
+	}
+
+	/**
+	 * @return a read-only mapping of a full segment, or <code>null</code> if the retention has deleted it
+	 */
+	private static ByteBuffer read(Segment segment) {
+		try (FileChannel channel = FileChannel.open(segment.path, StandardOpenOption.READ)) {
+			return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		catch (NoSuchFileException e) {
+			return null;
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Finds the end of the last complete record, and clears anything written after it.
+	 */
+	private static int recover(ByteBuffer buffer) {
+		int end = 0;
+		for (int length; (length = lengthAt(buffer, end)) > 0 && end + HEADER + length <= buffer.capacity(); )
+			end += HEADER + length;
+
+		clear(buffer, end, buffer.capacity());
+		return end;
+	}
+
+
+	/* Appending */
+
+	/**
+	 * Appends a record of an event.
+	 *
+	 * @param event the name of the event, or <code>null</code> for events of an {@link EventStream}
+	 * @return the offset of the record
+	 * @throws IllegalArgumentException if the record does not fit in a segment
+	 * @throws UncheckedIOException if a new segment could not be created
+	 * @throws RuntimeException whatever the serializer throws, other than a {@link BufferOverflowException} - nothing is appended then
+	 */
+	public synchronized long append(String event, E data) {
+		if (closed)
+			throw new IllegalStateException("The journal has been closed");
+
+		byte[] name = (event == null)? null : names.computeIfAbsent(event, k -> k.getBytes(StandardCharsets.UTF_8));
+
+		for (;;) {
+			MappedByteBuffer buffer = active.buffer;
+			int start = position;
+
+			try {
+				if (start + 2 * HEADER > buffer.capacity()) // not even the length of the name fits
+					throw new BufferOverflowException();
+
+				buffer.position(start + HEADER);
+				buffer.putInt((name == null)? NO_NAME : name.length);
+				if (name != null)
+					buffer.put(name);
+
+				serializer.write(data, buffer);
+
+				position = buffer.position();
+				buffer.putInt(start, position - start - HEADER); // the length goes last, so only complete records are ever read
+				return active.base + start;
+			}
+			catch (BufferOverflowException e) {
+				clear(buffer, start, Math.max(start, buffer.position()));
+
+				if (start == 0)
+					throw new IllegalArgumentException("The record of " + event + " does not fit in a segment of " + segmentSize + " bytes", e);
+
+				roll();
+			}
+			catch (RuntimeException e) { // the serializer failed, which another segment would not fix
+				clear(buffer, start, Math.max(start, buffer.position()));
+				throw e;
+			}
+		}
+	}
+
+	private void roll() {
+		try {
+			Files.setLastModifiedTime(active.path, FileTime.fromMillis(System.currentTimeMillis())); // mapped writes may not update it
+
+			long base = active.base + position;
+			unsynced.add(active); // keeps its buffer until synced
+			active = create(base);
+			position = 0;
+			segments.put(base, active);
+
+			retain();
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private void retain() throws IOException {
+		long now = System.currentTimeMillis();
+
+		while (segments.size() > 1) {
+			Segment oldest = segments.firstEntry().getValue();
+			long age = now - Files.getLastModifiedTime(oldest.path).toMillis();
+
+			if (segments.size() <= retention.segments && age <= retention.millis)
+				break;
+
+			segments.pollFirstEntry();
+			Files.deleteIfExists(oldest.path); // ongoing replays keep reading the mapping
+		}
+	}
+
+	/**
+	 * Forces the appended records to the disk.
+	 * This is never done by {@link #append(String, Object) append()}, so call it (e.g. periodically) from elsewhere.
+	 */
+	public void sync() {
+		List<Segment> rolled;
+		List<MappedByteBuffer> buffers = new ArrayList<>();
+		synchronized (this) {
+			rolled = new ArrayList<>(unsynced);
+			for (Segment segment : rolled)
+				buffers.add(segment.buffer);
+			buffers.add(active.buffer);
+		}
+
+		for (MappedByteBuffer buffer : buffers) // the rolled segments first
+			force(buffer);
+
+		synchronized (this) {
+			for (Segment segment : rolled)
+				if (unsynced.remove(segment))
+					segment.buffer = null; // unmapped once the replays reading it are done
+		}
+	}
+
+	void force(MappedByteBuffer buffer) {
+		buffer.force();
+	}
+
+
+	/* Offsets */
+
+	/**
+	 * @return the offset of the oldest retained record
+	 */
+	public synchronized long startOffset() {
+		return segments.firstKey();
+	}
+
+	/**
+	 * @return the offset the next record will have (unless it starts a new segment)
+	 */
+	public synchronized long endOffset() {
+		return active.base + position;
+	}
+
+
+	/* Replaying */
+
+	/**
+	 * Passes the recorded events, in order, to the given consumer.
+	 *
+	 * @param fromOffset the offset of the first record to replay - one returned by {@link #append(String, Object) append()}
+	 *  or {@link #endOffset()}, or <code>0</code> to replay all retained records
+	 * @return the offset after the last replayed record, to continue from
+	 * @throws UncheckedIOException if a full segment could not be mapped
+	 */
+	public long replay(long fromOffset, BiConsumer<String, ? super E> consumer) {
+		List<Segment> replayed = new ArrayList<>();
+		ByteBuffer last; // of the active segment, which is the last one replayed
+		int end;
+
+		synchronized (this) {
+			Long first = segments.floorKey(fromOffset);
+			replayed.addAll(segments.tailMap((first == null)? segments.firstKey() : first, true).values());
+			last = active.buffer.duplicate();
+			end = position;
+		}
+
+		long offset = fromOffset;
+
+		for (int i = 0; i < replayed.size(); i++) {
+			Segment segment = replayed.get(i);
+			boolean isLast = (i == replayed.size() - 1);
+			ByteBuffer buffer = isLast? last : read(segment);
+
+			if (buffer == null) // deleted meanwhile
+				continue;
+
+			int limit = isLast? end : buffer.capacity();
+			int at = (int) Math.max(0, offset - segment.base);
+
+			for (int length; at + HEADER <= limit && (length = lengthAt(buffer, at)) > 0 && at + HEADER + length <= limit; at += HEADER + length) {
+				buffer.limit(at + HEADER + length).position(at + HEADER);
+
+				int nameLength = buffer.getInt();
+				String name = null;
+
+				if (nameLength != NO_NAME) {
+					byte[] bytes = new byte[nameLength];
+					buffer.get(bytes);
+					name = new String(bytes, StandardCharsets.UTF_8);
+				}
+
+				consumer.accept(name, serializer.read(buffer.slice()));
+				buffer.limit(buffer.capacity());
+			}
+
+			offset = segment.base + at;
+		}
+
+		return Math.max(offset, fromOffset);
+	}
+
+	/**
+	 * Fires the recorded events of an {@link Eventful} on the given instance, in order.
+	 * Events of an {@link EventStream} (which have no name) are skipped.
+	 *
+	 * @see #replay(long, BiConsumer)
+	 */
+	public long replay(long fromOffset, Eventful<? super E> target) {
+		return replay(fromOffset, (event, data) -> {
+			if (event != null)
+				target.fire(event, data);
+		});
+	}
+
+	/**
+	 * Fires all recorded events on the given stream, in order.
+	 *
+	 * @see #replay(long, BiConsumer)
+	 */
+	public long replay(long fromOffset, EventStream<? super E> target) {
+		return replay(fromOffset, (event, data) -> target.fire(data));
+	}
+
+
+	/* Journaling */
+
+	/**
+	 * @return a view of the given instance that appends every fired event to this journal, before firing it
+	 */
+	public Eventful<E> journaling(Eventful<E> target) {
+		return new ForwardingEventful<E>(target) {
+			@Override
+			public boolean fire(String event, E data) {
+				append(event, data);
+				return target.fire(event, data);
+			}
+
+			@Override
+			public <T extends E> boolean fire(EventKey<T> key, T data) {
+				append(key.name(), data);
+				return target.fire(key, data);
+			}
+
+			@Override
+			public BitSet fireAll(String event, Collection<? extends E> data) {
+				for (E d : data)
+					append(event, d);
+
+				return target.fireAll(event, data);
+			}
+
+			@Override
+			public <R, A, T> T ask(String event, E data, Collector<? super R, A, T> collector) {
+				append(event, data);
+				return target.ask(event, data, collector);
+			}
+
+			@Override
+			public <T extends E, R, A, U> U ask(EventKey<T> key, T data, Collector<? super R, A, U> collector) {
+				append(key.name(), data);
+				return target.ask(key, data, collector);
+			}
+
+			@Override
+			public CompletableFuture<Boolean> fireParallel(String event, E data, Executor executor) {
+				append(event, data);
+				return target.fireParallel(event, data, executor);
+			}
+		};
+	}
+
+	/**
+	 * @return a view of the given stream that appends every fired event to this journal, before firing it
+	 */
+	public EventStream<E> journaling(EventStream<E> target) {
+		return new ForwardingEventStream<E>(target) {
+			@Override
+			public boolean fire(E data) {
+				append(null, data);
+				return target.fire(data);
+			}
+
+			@Override
+			public BitSet fireAll(Collection<? extends E> data) {
+				for (E d : data)
+					append(null, d);
+
+				return target.fireAll(data);
+			}
+
+			@Override
+			public CompletableFuture<Boolean> fireParallel(E data, Executor executor) {
+				append(null, data);
+				return target.fireParallel(data, executor);
+			}
+		};
+	}
+
+
+	/* Lifecycle */
+
+	/**
+	 * Syncs the journal and stops accepting records. Replaying still works.
+	 */
+	@Override
+	public synchronized void close() {
+		if (closed)
+			return;
+
+		sync();
+		closed = true;
+	}
+
+
+	/* Helpers */
+
+	private static int lengthAt(ByteBuffer buffer, int at) {
+		return (at + HEADER <= buffer.capacity())? buffer.getInt(at) : 0;
+	}
+
+	private static void clear(ByteBuffer buffer, int from, int to) {
+		for (int i = from; i < to; i++) {
+			if (buffer.get(i) != 0)
+				buffer.put(i, (byte) 0);
+		}
+	}
+}
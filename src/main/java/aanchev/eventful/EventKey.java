@@ -0,0 +1,69 @@
+package aanchev.eventful;
+
+import java.lang.ref.WeakReference;
+
+/**
+ * A handle to a named event of a specific {@link Eventful} instance, obtained through {@link Eventful#key(String)}.
+ *
+ * <p>
+ * Firing through a key skips looking up the event name:
+ * the key carries its own cache of the handlers per event data class,
+ * which {@link Eventful#on(String, Handler) on()} and {@link Eventful#off(String, Handler) off()} keep up to date -
+ * whether they are called with the key or with the name.
+ * A key of an event that has no handlers resolves to nothing once per event data class, and costs nothing after that.
+ * </p>
+ *
+ * <p>
+ * Keys are only valid for the instance that created them.
+ * If the instance does not keep a registry of keys ({@link Eventful#getEventKeys()}),
+ * the key is just a typed name and firing through it is the same as firing by name.
+ * </p>
+ *
+ * @param <E> the type of event data fired through this key
+ */
+public final class EventKey<E> {
+	private final String name;
+	private final WeakReference<Object> owner;
+	final DispatchTable table;
+
+
+	/* Constructors */
+
+	EventKey(String name, Object owner, boolean cached) {
+		this.name = name;
+		this.owner = new WeakReference<>(owner);
+		this.table = cached? new DispatchTable() : null;
+	}
+
+
+	/* Accessors */
+
+	public String name() {
+		return name;
+	}
+
+	boolean isOf(Object eventful) {
+		return owner.get() == eventful;
+	}
+
+
+	/* Cache Maintenance */
+
+	void update(Class<?> type, Iterable<? extends Handler<?>> handlers) {
+		if (table != null)
+			table.update(null, type, handlers);
+	}
+
+	void clear() {
+		if (table != null)
+			table.clear();
+	}
+
+
+	/* Object */
+
+	@Override
+	public String toString() {
+		return "EventKey[" + name + "]";
+	}
+}
@@ -0,0 +1,282 @@
+package aanchev.eventful;
+
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+/**
+ * A Reactive Streams {@link Publisher} of the events of an {@link EventStream} or of a named event of an {@link Eventful}.
+ *
+ * <pre>{@code
+ * Publisher<Click> clicks = EventPublisher.of(eventful, "clicked", Click.class, 256, EventPublisher.Overflow.DROP_OLDEST);
+ * }</pre>
+ *
+ * <p>
+ * Each subscriber gets a handler of its own, attached for as long as it is subscribed,
+ * and a bounded queue that the handler fills and the subscriber's demand ({@link Subscription#request(long) request(n)}) drains.
+ * So a slow subscriber never holds more than the given number of events - what happens to the events that do not fit
+ * is decided by the {@link Overflow} policy - and never slows down the firing of events.
+ * </p>
+ *
+ * <p>
+ * The subscriber is called on the firing thread or on the thread requesting more events, one call at a time.
+ * <code>null</code> event data is skipped, as Reactive Streams do not allow it.
+ * Vetoing and consuming have no meaning for subscribers, so they cannot stop the event.
+ * </p>
+ *
+ * <p>
+ * <b>NOTE:</b> This class needs <code>org.reactivestreams:reactive-streams</code>, which is an optional dependency.
+ * </p>
+ *
+ * @param <E> the type of event data
+ */
+public class EventPublisher<E> implements Publisher<E>, AutoCloseable {
+
+	/**
+	 * What happens to an event that does not fit in the queue of a subscriber.
+	 */
+	public enum Overflow {
+		/** The event is not delivered to that subscriber. */
+		DROP,
+		/** The oldest event in the queue is discarded to make space. */
+		DROP_OLDEST,
+		/** The subscriber is cancelled and gets an {@link IllegalStateException}. */
+		ERROR
+	}
+
+
+	private final Function<Handler<E>, Handler<?>> attach;
+	private final Consumer<Handler<?>> detach;
+	private final int capacity;
+	private final Overflow overflow;
+
+	private final Set<EventSubscription> subscriptions = new SnapshotSet<>();
+	private volatile boolean closed = false;
+
+
+	/* Constructors */
+
+	protected EventPublisher(Function<Handler<E>, Handler<?>> attach, Consumer<Handler<?>> detach, int capacity, Overflow overflow) {
+		if (capacity < 1)
+			throw new IllegalArgumentException("The capacity must be positive, but was " + capacity);
+
+		this.attach = attach;
+		this.detach = detach;
+		this.capacity = capacity;
+		this.overflow = overflow;
+	}
+
+	/**
+	 * @param capacity the maximum number of events queued per subscriber
+	 */
+	@SuppressWarnings("unchecked")
+	public static <E> EventPublisher<E> of(EventStream<E> stream, int capacity, Overflow overflow) {
+		return new EventPublisher<>(stream::on, handler -> stream.off((Handler<E>) handler), capacity, overflow);
+	}
+
+	/**
+	 * Publishes the events with the given name whose data is of the given type (or <code>null</code>, which is skipped);
+	 * the rest is not passed to the subscribers, as with any handler of that type.
+	 *
+	 * @param capacity the maximum number of events queued per subscriber
+	 */
+	@SuppressWarnings("unchecked")
+	public static <E> EventPublisher<E> of(Eventful<? super E> eventful, String event, Class<E> type, int capacity, Overflow overflow) {
+		Eventful<Object> target = (Eventful<Object>) eventful;
+		return new EventPublisher<>(handler -> target.on(event, type, handler), handler -> target.off(event, (Handler<Object>) handler), capacity, overflow);
+	}
+
+
+	/* Publisher */
+
+	@Override
+	public void subscribe(Subscriber<? super E> subscriber) {
+		if (subscriber == null)
+			throw new NullPointerException("The subscriber cannot be null");
+
+		EventSubscription subscription = new EventSubscription(subscriber);
+		subscriber.onSubscribe(subscription);
+
+		if (closed) {
+			subscription.complete();
+			return;
+		}
+
+		subscriptions.add(subscription);
+		subscription.handler = attach.apply(subscription::offer);
+
+		if (closed) // closed meanwhile
+			subscription.complete();
+		else if (subscription.done) // cancelled by onSubscribe
+			subscription.release();
+	}
+
+	/**
+	 * @return the number of current subscribers
+	 */
+	public int subscribers() {
+		return subscriptions.size();
+	}
+
+	/**
+	 * Detaches from the events and completes all subscribers, once they have received the events already queued.
+	 */
+	@Override
+	public void close() {
+		closed = true;
+
+		for (EventSubscription subscription : subscriptions)
+			subscription.complete();
+	}
+
+
+	/* Subscription */
+
+	private final class EventSubscription implements Subscription {
+		private final Subscriber<? super E> subscriber;
+		private final ArrayBlockingQueue<E> queue = new ArrayBlockingQueue<>(capacity);
+		private final AtomicLong requested = new AtomicLong();
+		private final AtomicInteger work = new AtomicInteger();
+
+		volatile Handler<?> handler;
+		volatile boolean done = false;
+		private volatile boolean cancelled = false;
+		private volatile Throwable error = null;
+		private boolean terminated = false; // accessed only while draining
+
+
+		EventSubscription(Subscriber<? super E> subscriber) {
+			this.subscriber = subscriber;
+		}
+
+
+		/* Producing */
+
+		void offer(E data) {
+			if (data == null || done)
+				return;
+
+			if (!queue.offer(data)) {
+				switch (overflow) {
+					case DROP:
+						return;
+
+					case DROP_OLDEST:
+						do {
+							queue.poll();
+						}
+						while (!queue.offer(data));
+						break;
+
+					case ERROR:
+					default:
+						fail(new IllegalStateException("More than " + capacity + " events were not requested by " + subscriber));
+						return;
+				}
+			}
+
+			drain();
+		}
+
+		void complete() {
+			done = true;
+			release();
+			drain();
+		}
+
+		private void fail(Throwable t) {
+			error = t;
+			complete();
+		}
+
+		void release() {
+			subscriptions.remove(this);
+
+			Handler<?> handler = this.handler;
+			if (handler != null)
+				detach.accept(handler);
+		}
+
+
+		/* Subscription */
+
+		@Override
+		public void request(long n) {
+			if (n <= 0) {
+				fail(new IllegalArgumentException("Only a positive number of events can be requested, but was " + n)); // rule 3.9
+				return;
+			}
+
+			requested.accumulateAndGet(n, (r, m) -> (r + m < 0)? Long.MAX_VALUE : r + m);
+			drain();
+		}
+
+		@Override
+		public void cancel() {
+			cancelled = true;
+			done = true;
+			release();
+			drain();
+		}
+
+
+		/* Delivery */
+
+		private void drain() {
+			if (work.getAndIncrement() != 0)
+				return; // the draining thread will go another round
+
+			int missed = 1;
+
+			do {
+				if (terminated || cancelled) {
+					queue.clear();
+				}
+				else {
+					long demand = requested.get();
+					long delivered = 0;
+
+					if (error == null) {
+						for (E data; delivered < demand && !cancelled && (data = queue.poll()) != null; delivered++)
+							deliver(data);
+					}
+
+					if (delivered > 0 && demand != Long.MAX_VALUE)
+						requested.addAndGet(-delivered);
+
+					if (error != null && !cancelled) {
+						terminated = true;
+						queue.clear();
+						subscriber.onError(error);
+					}
+					else if (done && queue.isEmpty() && !cancelled) {
+						terminated = true;
+						subscriber.onComplete();
+					}
+				}
+
+				missed = work.addAndGet(-missed);
+			}
+			while (missed != 0);
+		}
+
+		private void deliver(E data) {
+			try {
+				subscriber.onNext(data);
+			}
+			catch (RuntimeException e) { // rule 2.13 - the subscription is considered cancelled
+				cancel();
+
+				Thread thread = Thread.currentThread();
+				thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+			}
+		}
+	}
+}
@@ -0,0 +1,317 @@
+package aanchev.eventful;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A bounded, preallocated ring buffer in front of an {@link Eventful} instance.
+ *
+ * <p>
+ * Producers {@link #publish(String, Object) publish} <code>(event, data)</code> pairs from any thread, without allocating.
+ * One or more consumer threads drain the buffer and {@link Eventful#fire(String, Object) fire} the events on the target,
+ * so the usual handler semantics apply - except that the result of firing is not reported back.
+ * </p>
+ *
+ * <p>
+ * Slots are claimed with a CAS on a shared sequence and handed over through a per-slot sequence number,
+ * so neither producers nor consumers ever lock.
+ * What a thread does when there is nothing to do is decided by the {@link WaitStrategy},
+ * and what a producer does when the buffer is full - by the {@link Overflow} policy.
+ * </p>
+ *
+ * <p>
+ * Anything thrown by the handlers (even an {@link Error}) is reported to the uncaught exception handler
+ * of the consumer thread, which then goes on with the next event.
+ * </p>
+ *
+ * <p>
+ * <b>NOTE:</b> With more than one consumer, events are fired concurrently and in no strict order,
+ * so the target should be thread-safe (e.g. {@link Eventful.Concurrent}).
+ * </p>
+ *
+ * @param <E> the type of event data of the target
+ */
+public class EventRingBuffer<E> implements AutoCloseable {
+
+	/**
+	 * How a thread waits for the buffer to have data (consumers) or space (blocking producers).
+	 */
+	public enum WaitStrategy {
+		/** Keeps spinning on the CPU. Lowest latency, but burns a core per waiting thread. */
+		BUSY_SPIN {
+			@Override
+			void idle(int attempt) {}
+		},
+		/** Yields the CPU to other threads between attempts. */
+		YIELD {
+			@Override
+			void idle(int attempt) {
+				Thread.yield();
+			}
+		},
+		/** Spins and yields briefly, then parks the thread for increasingly longer periods (up to a millisecond). */
+		PARK {
+			@Override
+			void idle(int attempt) {
+				if (attempt < 100)
+					return;
+
+				if (attempt < 200)
+					Thread.yield();
+				else
+					LockSupport.parkNanos(Math.min(1_000L * (attempt - 199), 1_000_000L));
+			}
+		};
+
+		abstract void idle(int attempt);
+	}
+
+	/**
+	 * What {@link EventRingBuffer#publish(String, Object) publish} does when the buffer is full.
+	 */
+	public enum Overflow {
+		/** Waits (according to the wait strategy) until there is space. */
+		BLOCK,
+		/** Discards the published event. */
+		DROP,
+		/** Discards the oldest event in the buffer to make space for the published one. */
+		DROP_OLDEST
+	}
+
+
+	private final Eventful<E> target;
+	private final WaitStrategy waitStrategy;
+	private final Overflow overflow;
+
+	private final int mask;
+	private final String[] events;
+	private final Object[] data;
+	private final AtomicLongArray sequences;
+
+	private final AtomicLong head = new AtomicLong();
+	private final AtomicLong tail = new AtomicLong();
+
+	private final List<Thread> consumers;
+	private final AtomicInteger producers = new AtomicInteger(); // in publish(), so close() can wait for them
+	private volatile boolean running = true;
+	private volatile boolean stopped = false;
+
+
+	/* Constructors */
+
+	public EventRingBuffer(Eventful<E> target, int capacity) {
+		this(target, capacity, 1, WaitStrategy.PARK, Overflow.BLOCK);
+	}
+
+	public EventRingBuffer(Eventful<E> target, int capacity, int consumers, WaitStrategy waitStrategy, Overflow overflow) {
+		this(target, capacity, consumers, waitStrategy, overflow, daemonThreads());
+	}
+
+	/**
+	 * @param target the eventful instance to fire the events on
+	 * @param capacity the number of slots, rounded up to a power of two
+	 * @param consumers the number of consumer threads to start
+	 * @param threadFactory creates the consumer threads
+	 */
+	public EventRingBuffer(Eventful<E> target, int capacity, int consumers, WaitStrategy waitStrategy, Overflow overflow, ThreadFactory threadFactory) {
+		if (capacity < 1 || capacity > (1 << 30))
+			throw new IllegalArgumentException("Capacity must be between 1 and 2^30, but was " + capacity);
+
+		if (consumers < 1)
+			throw new IllegalArgumentException("There must be at least one consumer");
+
+		this.target = target;
+		this.waitStrategy = waitStrategy;
+		this.overflow = overflow;
+
+		int size = Integer.highestOneBit(capacity);
+		if (size < capacity)
+			size <<= 1;
+
+		this.mask = size - 1;
+		this.events = new String[size];
+		this.data = new Object[size];
+		this.sequences = new AtomicLongArray(size);
+
+		for (int i = 0; i < size; i++)
+			sequences.set(i, i);
+
+		this.consumers = new ArrayList<>(consumers);
+		for (int i = 0; i < consumers; i++) {
+			Thread consumer = threadFactory.newThread(this::consume);
+			this.consumers.add(consumer);
+			consumer.start();
+		}
+	}
+
+	private static ThreadFactory daemonThreads() {
+		AtomicInteger count = new AtomicInteger();
+
+		return runnable -> {
+			Thread thread = new Thread(runnable, "eventful-ring-consumer-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+
+
+	/* Producing */
+
+	public boolean publish(String event) {
+		return publish(event, null);
+	}
+
+	/**
+	 * Enqueues an event to be fired by one of the consumers.
+	 *
+	 * @return <code>false</code> if the event was dropped because the buffer is full
+	 * @throws IllegalStateException if the buffer has been closed
+	 */
+	public boolean publish(String event, E data) {
+		producers.incrementAndGet(); // before checking running, so close() either waits for this or this sees it closed
+
+		try {
+			return offer(event, data);
+		}
+		finally {
+			producers.decrementAndGet();
+		}
+	}
+
+	private boolean offer(String event, E data) {
+		int attempt = 0;
+
+		for (;;) {
+			if (!running)
+				throw new IllegalStateException("The ring buffer has been closed");
+
+			long position = tail.get();
+			int index = (int) position & mask;
+			long difference = sequences.get(index) - position;
+
+			if (difference == 0) {
+				if (tail.compareAndSet(position, position + 1)) {
+					this.events[index] = event;
+					this.data[index] = data;
+					sequences.lazySet(index, position + 1);
+					return true;
+				}
+			}
+			else if (difference < 0) { // full
+				switch (overflow) {
+					case DROP:
+						return false;
+
+					case DROP_OLDEST:
+						take(false);
+						break;
+
+					case BLOCK:
+					default:
+						waitStrategy.idle(++attempt);
+						break;
+				}
+			}
+			// else another producer claimed the slot first, so just retry
+		}
+	}
+
+	/**
+	 * @return the (approximate) number of events waiting to be fired
+	 */
+	public int size() {
+		return (int) Math.max(0, tail.get() - head.get());
+	}
+
+
+	/* Consuming */
+
+	private void consume() {
+		int attempt = 0;
+
+		while (!stopped || size() > 0) {
+			if (take(true))
+				attempt = 0;
+			else
+				waitStrategy.idle(++attempt);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private boolean take(boolean fire) {
+		for (;;) {
+			long position = head.get();
+			int index = (int) position & mask;
+			long difference = sequences.get(index) - (position + 1);
+
+			if (difference < 0)
+				return false; // empty
+
+			if (difference == 0 && head.compareAndSet(position, position + 1)) {
+				String event = this.events[index];
+				E data = (E) this.data[index];
+
+				this.events[index] = null;
+				this.data[index] = null;
+				sequences.lazySet(index, position + mask + 1);
+
+				if (fire)
+					fire(event, data);
+
+				return true;
+			}
+		}
+	}
+
+	private void fire(String event, E data) {
+		try {
+			target.fire(event, data);
+		}
+		catch (Throwable t) { // an Error would otherwise end the consumer, and leave blocking producers waiting forever
+			Thread thread = Thread.currentThread();
+			thread.getUncaughtExceptionHandler().uncaughtException(thread, t);
+		}
+	}
+
+
+	/* Lifecycle */
+
+	/**
+	 * Stops accepting events and waits for the consumers to fire the ones already in the buffer -
+	 * including those still being published, for which {@link #publish(String, Object) publish} returns <code>true</code>.
+	 *
+	 * <p>
+	 * If the calling thread is interrupted while waiting, it keeps waiting, and its interrupt status is restored afterwards.
+	 * </p>
+	 */
+	@Override
+	public void close() {
+		running = false;
+
+		for (int attempt = 0; producers.get() > 0; )
+			waitStrategy.idle(++attempt);
+
+		stopped = true;
+
+		boolean interrupted = false;
+		for (Thread consumer : consumers) {
+			for (;;) {
+				try {
+					consumer.join();
+					break;
+				}
+				catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+		}
+
+		if (interrupted)
+			Thread.currentThread().interrupt();
+	}
+}
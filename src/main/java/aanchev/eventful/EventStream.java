@@ -1,11 +1,13 @@
 package aanchev.eventful;
 
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.HashSet;
-import java.util.LinkedList;
-import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 
 //TODO tests
 //TODO javadoc
@@ -16,31 +18,196 @@ public interface EventStream<E> {
 
 	public Collection<Handler<E>> getHandlers();
 
+	public default DispatchTable getDispatchTable() {
+		return null;
+	}
+
+	/**
+	 * Gets the index of the handlers by the event type they accept, if any.
+	 * With one, the handlers matching an event data class are found through its supertypes
+	 * (and memoized per class), instead of checking every handler, and the {@link #getDispatchTable() dispatch table} is not used.
+	 *
+	 * @return the type index of this instance or <code>null</code> to not use one (the default)
+	 * @see TypeIndex
+	 */
+	public default TypeIndex getTypeIndex() {
+		return null;
+	}
+
+	/**
+	 * Gets the hook that observes the dispatch of events, if any.
+	 * Events are identified by the class of their data.
+	 *
+	 * @return the instrumentation of this instance or <code>null</code> to not instrument it (the default)
+	 * @see Eventful#getInstrumentation()
+	 */
+	public default Instrumentation getInstrumentation() {
+		return null;
+	}
+
+	/**
+	 * @return the compiled dispatcher of this instance or <code>null</code> if it is not sealed (the default)
+	 * @see Eventful#getSealedDispatch()
+	 */
+	public default SealedDispatch getSealedDispatch() {
+		return null;
+	}
+
+	/**
+	 * Drops the {@link #getSealedDispatch() compiled dispatcher}, if any - whenever handlers are attached or detached.
+	 */
+	public default void unseal() {}
+
+	/**
+	 * @return all handlers, in invocation order
+	 */
+	public default Iterable<? extends Handler<?>> getAllHandlers() {
+		TypeIndex typeIndex = getTypeIndex();
+		return (typeIndex != null)? Arrays.asList(typeIndex.get(null)) : getHandlers();
+	}
+
+	public default Handler<Object>[] getHandlers(E data) {
+		TypeIndex typeIndex = getTypeIndex();
+
+		if (typeIndex != null)
+			return typeIndex.get(data);
+
+		DispatchTable dispatchTable = getDispatchTable();
+
+		if (dispatchTable == null)
+			return DispatchTable.matching(getHandlers(), (data == null)? null : data.getClass());
+
+		Handler<Object>[] handlers = dispatchTable.get(null, data);
+
+		if (handlers == null)
+			handlers = dispatchTable.put(null, data, getHandlers());
+
+		return handlers;
+	}
+
 
 	/* Handler/Listener Attaching */
 
-	@SuppressWarnings("unchecked")
 	public default Handler<? extends E> on(Handler<? extends E> handler) {
-		getHandlers().add((Handler<E>) handler);
+		TypedHandler<E> typedHandler = TypedHandler.of(handler);
+		Collection<Handler<E>> handlers = getHandlers();
+
+		if (handlers.add(typedHandler)) {
+			unseal();
+
+			TypeIndex typeIndex = getTypeIndex();
+			DispatchTable dispatchTable = getDispatchTable();
+
+			if (typeIndex != null)
+				typeIndex.add(typedHandler);
+			else if (dispatchTable != null)
+				dispatchTable.update(null, typedHandler.getEventType(), handlers);
+		}
+
 		return handler;
 	}
 
+	@SuppressWarnings("unchecked")
+	public default <T extends E> Handler<T> on(Class<T> type, Handler<? super T> handler) {
+		TypedHandler<T> typedHandler = new TypedHandler<>((Handler<T>) handler, type);
+		on(typedHandler);
+		return typedHandler;
+	}
+
 	public default boolean off(Handler<? extends E> handler) {
-		return getHandlers().remove(handler);
+		TypedHandler<E> typedHandler = TypedHandler.of(handler);
+		Collection<Handler<E>> handlers = getHandlers();
+
+		if (!handlers.remove(typedHandler))
+			return false;
+
+		unseal();
+
+		TypeIndex typeIndex = getTypeIndex();
+		DispatchTable dispatchTable = getDispatchTable();
+
+		if (typeIndex != null)
+			typeIndex.remove(typedHandler);
+		else if (dispatchTable != null)
+			dispatchTable.update(null, typedHandler.getEventType(), handlers);
+
+		return true;
+	}
+
+	/**
+	 * Attaches a handler that is only weakly referenced, and so must be strongly referenced elsewhere.
+	 * It detaches itself lazily, once collected.
+	 *
+	 * @return the weak handler that was actually attached
+	 * @see Eventful#onWeak(String, Handler)
+	 */
+	@SuppressWarnings("unchecked")
+	public default Handler<? extends E> onWeak(Handler<? extends E> handler) {
+		return on(WeakHandler.of((Handler<E>) handler, WeakHandler.detaching(this, (stream, weak) -> stream.off(weak)), false));
+	}
+
+	/**
+	 * Attaches a handler on behalf of a target which is only weakly referenced.
+	 * It detaches itself lazily, once the target is collected.
+	 *
+	 * @return the weak handler that was actually attached
+	 * @see Eventful#onWeak(String, Object, WeakHandler.Bound)
+	 */
+	public default <O, T extends E> Handler<T> onWeak(O target, WeakHandler.Bound<? super O, T> handler) {
+		WeakHandler<O, T> weakHandler = new WeakHandler<>(target, handler, WeakHandler.detaching(this, (stream, weak) -> stream.off(weak)), false);
+		on(weakHandler);
+		return weakHandler;
+	}
+
+	/**
+	 * Detaches all handlers and drops any cached state, eagerly.
+	 * The state of the convenience sub-interfaces is weakly tied to the instances, so this is never required.
+	 */
+	public default void dispose() {
+		getHandlers().clear();
+
+		TypeIndex typeIndex = getTypeIndex();
+		if (typeIndex != null)
+			typeIndex.clear();
+
+		DispatchTable dispatchTable = getDispatchTable();
+		if (dispatchTable != null)
+			dispatchTable.clear();
 	}
 
 
 	/* Firing of Events */
 
 	public default boolean fire(E data) {
-		Iterable<Handler<E>> handlers = getHandlers();
+		Instrumentation instrumentation = getInstrumentation();
+		if (instrumentation != null)
+			return InstrumentedDispatch.fire(instrumentation, InstrumentedDispatch.keyOf(data), getHandlers(data), data);
 
-		if (handlers == null)
-			return true;
+		SealedDispatch sealed = getSealedDispatch();
+		TypeIndex typeIndex = (sealed == null)? getTypeIndex() : null;
+		DispatchTable dispatchTable = (sealed == null && typeIndex == null)? getDispatchTable() : null;
 
 		try {
-			for (Handler<?> handler : handlers) {
-				handler.tryHandle(data);
+			if (sealed != null)
+				return sealed.signal(this, null, data) != Signal.VETO;
+			else if (typeIndex != null || dispatchTable != null) {
+				for (Handler<Object> handler : (typeIndex != null)? typeIndex.get(data) : getHandlers(data)) {
+					Signal signal = handler.signal(data);
+					if (signal != Signal.CONTINUE)
+						return signal == Signal.CONSUME;
+				}
+			}
+			else {
+				Iterable<Handler<E>> handlers = getHandlers();
+
+				if (handlers == null)
+					return true;
+
+				for (Handler<?> handler : handlers) {
+					Signal signal = handler.trySignal(data);
+					if (signal != Signal.CONTINUE)
+						return signal == Signal.CONSUME;
+				}
 			}
 
 			return true;
@@ -53,86 +220,216 @@ public interface EventStream<E> {
 		}
 	}
 
+	/**
+	 * Fires each of the given events, in order, looking up and matching handlers only once per distinct class.
+	 *
+	 * @return the indices of the events that were vetoed
+	 */
+	public default BitSet fireAll(Collection<? extends E> data) {
+		TypeIndex typeIndex = getTypeIndex();
+
+		if (typeIndex != null)
+			return BatchDispatch.fire(data, typeIndex::get);
+
+		return BatchDispatch.fire(data, getDispatchTable(), null, getHandlers());
+	}
+
+	public default BitSet fireAll(E[] data) {
+		return fireAll(Arrays.asList(data));
+	}
+
+	public default CompletableFuture<Boolean> fireAsync(E data, Executor executor) {
+		return CompletableFuture.supplyAsync(() -> fire(data), executor);
+	}
+
+	public default CompletableFuture<Boolean> fireParallel(E data) {
+		return fireParallel(data, ForkJoinPool.commonPool());
+	}
+
+	public default CompletableFuture<Boolean> fireParallel(E data, Executor executor) {
+		return ParallelDispatch.fire(getHandlers(data), data, executor);
+	}
+
 
 	/* Specialized Implementations */
 
 	public interface Default<E> extends EventStream<E> {
-		final static Map<Object, Collection<Handler<Object>>> eventStreams = new HashMap<>();
+		final static WeakIdentityMap<Object, Collection<Handler<Object>>> eventStreams = new WeakIdentityMap<>();
+		final static WeakIdentityMap<Object, Instrumentation> instrumentations = new WeakIdentityMap<>();
+		final static WeakIdentityMap<Object, SealedDispatch> sealedDispatches = new WeakIdentityMap<>();
 
 		@SuppressWarnings({ "unchecked", "rawtypes" })
 		@Override
 		public default Collection<Handler<E>> getHandlers() {
 			return (Set) eventStreams.computeIfAbsent(this, k -> new HashSet<>());
 		}
+
+		@Override
+		public default Instrumentation getInstrumentation() {
+			return instrumentations.get(this);
+		}
+
+		/**
+		 * Sets (or with <code>null</code> - removes) the hook that observes the dispatch of events of this instance.
+		 *
+		 * @return the previous instrumentation, if any
+		 */
+		public default Instrumentation instrument(Instrumentation instrumentation) {
+			return (instrumentation == null)? instrumentations.remove(this) : instrumentations.put(this, instrumentation);
+		}
+
+		@Override
+		public default SealedDispatch getSealedDispatch() {
+			return sealedDispatches.get(this);
+		}
+
+		/**
+		 * Compiles the dispatch into a {@link SealedDispatch dedicated dispatcher}, once an event is fired,
+		 * until handlers are attached or detached - which {@link #unseal() unseals} this instance again.
+		 */
+		@SuppressWarnings("unchecked")
+		public default void seal() {
+			sealedDispatches.put(this, new SealedDispatch( // the functions do not capture this instance, which the map holds weakly
+					(owner, k) -> ((EventStream<E>) owner).getAllHandlers(),
+					(owner, k, data) -> ((EventStream<E>) owner).getHandlers((E) data)));
+		}
+
+		@Override
+		public default void unseal() {
+			sealedDispatches.remove(this);
+		}
+
+		@Override
+		public default void dispose() {
+			eventStreams.remove(this);
+			instrumentations.remove(this);
+			sealedDispatches.remove(this);
+		}
 	}
 
+	/**
+	 * An {@link EventStream} that organizes its handlers by the event type they accept, in a {@link TypeIndex},
+	 * so firing only ever considers the matching handlers.
+	 */
 	public interface Organizing<E> extends EventStream<E> {
-		final static Map<Object, Map<Class<?>, Collection<Handler<Object>>>> eventCaches = new HashMap<>();
+		final static WeakIdentityMap<Object, TypeIndex> typeIndexes = new WeakIdentityMap<>();
 
 		@Override
-		default Handler<? extends E> on(Handler<? extends E> handler) {
-			//can potentially be done better, but not worth the effort considering the usual use case
-			eventCaches.remove(this);
+		public default TypeIndex getTypeIndex() {
+			return typeIndexes.computeIfAbsent(this, k -> new TypeIndex());
+		}
 
-			return EventStream.super.on(handler);
+		@Override
+		public default void dispose() {
+			EventStream.super.dispose();
+			typeIndexes.remove(this);
 		}
 
-		@SuppressWarnings("unchecked")
+
+		public interface Default<E> extends Organizing<E>, EventStream.Default<E> {
+			@Override
+			public default void dispose() {
+				Organizing.super.dispose();
+				EventStream.Default.super.dispose();
+			}
+		}
+	}
+
+	/**
+	 * A thread-safe {@link EventStream}, which can be fired into and (un)subscribed to from any thread.
+	 *
+	 * <p>
+	 * Handlers are kept in a copy-on-write snapshot that is swapped with a CAS on {@link #on(Handler) on()}/{@link #off(Handler) off()},
+	 * and the handlers are indexed by the event type they accept in a {@link TypeIndex},
+	 * so {@link #fire(Object) fire()} takes no locks once a class has been seen.
+	 * </p>
+	 */
+	public interface Concurrent<E> extends EventStream<E> {
+		final static WeakIdentityMap<Object, Collection<Handler<Object>>> eventStreams = new WeakIdentityMap<>();
+		final static WeakIdentityMap<Object, TypeIndex> typeIndexes = new WeakIdentityMap<>();
+		final static WeakIdentityMap<Object, Instrumentation> instrumentations = new WeakIdentityMap<>();
+		final static WeakIdentityMap<Object, SealedDispatch> sealedDispatches = new WeakIdentityMap<>();
+
+		@SuppressWarnings({ "unchecked", "rawtypes" })
 		@Override
-		default boolean fire(E data) {
-			Map<Class<?>, Collection<Handler<Object>>> eventCache = eventCaches.computeIfAbsent(this, k -> new HashMap<>());
+		public default Collection<Handler<E>> getHandlers() {
+			return (Set) eventStreams.computeIfAbsent(this, k -> new SnapshotSet<>());
+		}
 
-			Collection<Handler<Object>> cached = eventCache.get(data.getClass());
+		@Override
+		public default TypeIndex getTypeIndex() {
+			return typeIndexes.computeIfAbsent(this, k -> new TypeIndex());
+		}
 
-			if (cached == null) {
-				cached = new LinkedList<>();
-				eventCache.put(data.getClass(), cached);
-				Collection<Handler<E>> handlers = getHandlers();
+		@Override
+		public default Instrumentation getInstrumentation() {
+			return instrumentations.get(this);
+		}
 
-				if (handlers == null)
-					return true;
+		/**
+		 * Sets (or with <code>null</code> - removes) the hook that observes the dispatch of events of this instance.
+		 *
+		 * @return the previous instrumentation, if any
+		 */
+		public default Instrumentation instrument(Instrumentation instrumentation) {
+			return (instrumentation == null)? instrumentations.remove(this) : instrumentations.put(this, instrumentation);
+		}
 
-				try {
-					for (Handler<?> handler : handlers) {
-						if (handler.tryHandle(data))
-							cached.add((Handler<Object>) handler);
-					}
+		@Override
+		public default SealedDispatch getSealedDispatch() {
+			return sealedDispatches.get(this);
+		}
 
-					return true;
-				}
-				catch (VetoEventException e) {
-					return false;
-				}
-				catch (ConsumeEventException e) {
-					return true;
-				}
-			}
-			else {
-				try {
-					for (Handler<?> handler : cached) {
-						handler.tryHandle(data);
-					}
+		/**
+		 * Compiles the dispatch into a {@link SealedDispatch dedicated dispatcher}, once an event is fired,
+		 * until handlers are attached or detached - which {@link #unseal() unseals} this instance again.
+		 */
+		@SuppressWarnings("unchecked")
+		public default void seal() {
+			sealedDispatches.put(this, new SealedDispatch( // the functions do not capture this instance, which the map holds weakly
+					(owner, k) -> ((EventStream<E>) owner).getAllHandlers(),
+					(owner, k, data) -> ((EventStream<E>) owner).getHandlers((E) data)));
+		}
 
-					return true;
-				}
-				catch (VetoEventException e) {
-					return false;
-				}
-				catch (ConsumeEventException e) {
-					return true;
-				}
-			}
+		@Override
+		public default void unseal() {
+			sealedDispatches.remove(this);
 		}
 
+		@Override
+		public default void dispose() {
+			eventStreams.remove(this);
+			typeIndexes.remove(this);
+			instrumentations.remove(this);
+			sealedDispatches.remove(this);
+		}
+
+
+		/**
+		 * Also detaches the handler from a background thread, as soon as it is collected.
+		 */
+		@SuppressWarnings("unchecked")
+		@Override
+		public default Handler<? extends E> onWeak(Handler<? extends E> handler) {
+			return on(WeakHandler.of((Handler<E>) handler, WeakHandler.detaching(this, (stream, weak) -> stream.off(weak)), true));
+		}
 
-		public interface Default<E> extends Organizing<E>, EventStream.Default<E> {}
+		/**
+		 * Also detaches the handler from a background thread, as soon as the target is collected.
+		 */
+		@Override
+		public default <O, T extends E> Handler<T> onWeak(O target, WeakHandler.Bound<? super O, T> handler) {
+			WeakHandler<O, T> weakHandler = new WeakHandler<>(target, handler, WeakHandler.detaching(this, (stream, weak) -> stream.off(weak)), true);
+			on(weakHandler);
+			return weakHandler;
+		}
 	}
 
 	public interface Ranked<E> extends EventStream.Default<E> {
 		@SuppressWarnings({ "unchecked", "rawtypes" })
 		@Override
 		public default Set<Handler<E>> getHandlers() {
-			return (Set) EventStream.Default.eventStreams.computeIfAbsent(this, k -> new PrioritySet<>());
+			return (Set) EventStream.Default.eventStreams.computeIfAbsent(this, k -> new RankedSet<>());
 		}
 
 
@@ -149,6 +446,20 @@ public interface EventStream<E> {
 			return rankedHandler;
 		}
 
+		@Override
+		default <T extends E> Handler<T> on(Class<T> type, Handler<? super T> handler) {
+			return this.on(type, handler, 0);
+		}
+
+		@SuppressWarnings("unchecked")
+		default <T extends E> RankedHandler<T> on(Class<T> type, Handler<? super T> handler, int priority) {
+			RankedHandler<T> rankedHandler = new RankedHandler<>((Handler<T>) handler, type, priority);
+
+			EventStream.Default.super.on(rankedHandler);
+
+			return rankedHandler;
+		}
+
 
 		@Override
 		default boolean off(Handler<? extends E> handler) {
@@ -156,7 +467,56 @@ public interface EventStream<E> {
 		}
 
 		default boolean off(RankedHandler<? extends E> handler) {
-			return getHandlers().remove(handler);
+			return EventStream.Default.super.off(handler);
+		}
+
+
+		@Override
+		default CompletableFuture<Boolean> fireParallel(E data, Executor executor) {
+			return fireAsync(data, executor); // ranked handlers depend on their order
+		}
+
+
+		/**
+		 * A thread-safe {@link EventStream.Ranked}, in the same manner as {@link EventStream.Concurrent}.
+		 * The {@link RankedSet} is already thread-safe, so this only adds the concurrent state management.
+		 */
+		public interface Concurrent<E> extends Ranked<E>, EventStream.Concurrent<E> {
+			@SuppressWarnings({ "unchecked", "rawtypes" })
+			@Override
+			public default Set<Handler<E>> getHandlers() {
+				return (Set) EventStream.Concurrent.eventStreams.computeIfAbsent(this, k -> new RankedSet<>());
+			}
+
+			@Override
+			public default Instrumentation getInstrumentation() {
+				return EventStream.Concurrent.super.getInstrumentation();
+			}
+
+			@Override
+			public default Instrumentation instrument(Instrumentation instrumentation) {
+				return EventStream.Concurrent.super.instrument(instrumentation);
+			}
+
+			@Override
+			public default SealedDispatch getSealedDispatch() {
+				return EventStream.Concurrent.super.getSealedDispatch();
+			}
+
+			@Override
+			public default void seal() {
+				EventStream.Concurrent.super.seal();
+			}
+
+			@Override
+			public default void unseal() {
+				EventStream.Concurrent.super.unseal();
+			}
+
+			@Override
+			public default void dispose() {
+				EventStream.Concurrent.super.dispose();
+			}
 		}
 	}
 }
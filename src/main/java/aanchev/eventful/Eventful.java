@@ -1,10 +1,18 @@
 package aanchev.eventful;
 
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
-import java.util.PriorityQueue;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Predicate;
+import java.util.stream.Collector;
 
 
 /**
@@ -26,6 +34,11 @@ import java.util.Set;
  * then that handler will be silently ignored and not called.
  * <br />
  * This allow for a convenient use of the Type Hierarchy without arduous casts.
+ * <br />
+ * The accepted type is resolved once, when the handler is attached (see {@link Handler#getEventType()}),
+ * so firing only does an {@link Class#isInstance(Object) instanceof} check per handler.
+ * Where the type cannot be inferred (e.g. generic handler classes),
+ * use {@link #on(String, Class, Handler)} to state it explicitly.
  * </p>
  * 
  * <p>
@@ -53,6 +66,8 @@ import java.util.Set;
  * 	<li>{@link Eventful.Default}</li>
  * 	<li>{@link Eventful.Ranked}</li>
  * 	<li>{@link Eventful.Ranked.Default}</li>
+ * 	<li>{@link Eventful.Concurrent}</li>
+ * 	<li>{@link Eventful.Ranked.Concurrent}</li>
  * </ul>
  * </p>
  * 
@@ -63,24 +78,27 @@ import java.util.Set;
  * </p>
  * 
  * <p>
- * The {@link Eventful.Default} interface manages state through the use of a global static hash map.
+ * The {@link Eventful.Default} interface manages state through the use of a global static map.
  * This makes it possible to just declare that the interface is implemented
  * and get all the functionality for free, without needing to override anything.
- * However, if the instances (the `this` objects) are not suitable for keys in a Hash Map,
- * then do not use this convenience sub-interface, but implement the {@link Eventful} one.
+ * The map holds the instances (the `this` objects) weakly and by identity,
+ * so the state is collected together with the instance, and {@link Object#equals(Object) equals()} is irrelevant.
+ * The state can also be freed eagerly with {@link #dispose()}.
+ * <br />
+ * It also keeps a {@link DispatchTable} of the matching handlers per event name and event data class,
+ * so firing is a single lookup followed by direct calls to the (already filtered) handlers.
  * </p>
  * 
  * <p>
  * The {@link Eventful.Ranked} interface extends the {@link Eventful} functionality,
  * by allowing handlers to have priorities.
  * This way, an ordering can be imposed that is independent of the order of addition.
- * The ordering is maintained by a {@link PrioritySet} (== {@link PriorityQueue}&{@link Set}),
- * so to allow duplicates (same priority, but different handlers).
+ * Handlers are called by ascending priority, and handlers with the same priority in the order they were attached.
+ * The ordering is maintained by a {@link RankedSet} - a sorted array, rebuilt when attaching and detaching handlers,
+ * so it costs nothing while firing.
  * <br/>
  * The additional method of interest is {@link Eventful.Ranked#on(String, Handler, int)}.
  * An overload for {@link #off(String, Handler) off()} is provided, but no special attention is needed for handler removal.
- * <br/>
- * <b>NOTE:</b> Handlers with the same priority have an undefined order of invocation!
  * </p>
  * 
  * <p>
@@ -88,6 +106,26 @@ import java.util.Set;
  * but for the {@link Eventful.Ranked} functionality.
  * </p>
  * 
+ * <p>
+ * The {@link Eventful.Concurrent} and {@link Eventful.Ranked.Concurrent} interfaces are the thread-safe counterparts
+ * of {@link Eventful.Default} and {@link Eventful.Ranked.Default}.
+ * They keep handlers in copy-on-write snapshots, so firing does not lock and is unaffected by concurrent (un)subscription.
+ * </p>
+ * 
+ * <p>
+ * Events that are fired often can be fired through an {@link EventKey} (see {@link #key(String)}),
+ * which caches its handlers itself, so the event name is not looked up on every {@link #fire(EventKey, Object) fire}.
+ * </p>
+ * 
+ * <p>
+ * The convenience sub-interfaces also support topic patterns - handlers attached to names like <code>"order.*"</code>
+ * (exactly one word in place of <code>*</code>) or <code>"order.#"</code> (zero or more words in place of <code>#</code>)
+ * are called for every matching event, e.g. <code>"order.created"</code>. See {@link TopicTrie}.
+ * <br />
+ * <b>NOTE:</b> For them, any event name with a (dot-separated) word that is exactly <code>*</code> or <code>#</code>
+ * is a pattern - such names used to be plain names, and handlers can no longer be attached to them literally.
+ * </p>
+ * 
  * @author Anko Anchev
  *
  * @param <E> the type of events that will be firing. Can easily be Object!
@@ -106,18 +144,306 @@ public interface Eventful<E> {
 	public default Set<Handler<E>> getHandlers(String event) {
 		return getHandlers().computeIfAbsent(event, k -> new HashSet<Handler<E>>());
 	}
+	
+	/**
+	 * Gets the cache of handlers per event name and event data class, if any.
+	 * Without one (the default), every handler of an event is type-checked on every {@link #fire(String, Object) fire}.
+	 * 
+	 * @return the dispatch table of this instance or <code>null</code> to not use one
+	 */
+	public default DispatchTable getDispatchTable() {
+		return null;
+	}
+	
+	/**
+	 * Gets the registry of the {@link EventKey}s handed out by {@link #key(String)}, by event name,
+	 * through which {@link #on(String, Handler) on()} and {@link #off(String, Handler) off()} keep the keys up to date.
+	 * Without one (the default), keys are just typed names.
+	 * 
+	 * @return the key registry of this instance or <code>null</code> to not cache handlers in the keys
+	 */
+	public default Map<String, EventKey<?>> getEventKeys() {
+		return null;
+	}
+	
+	/**
+	 * Gets the index of the handlers attached to topic patterns (like <code>"order.*"</code>), if any.
+	 * Without one (the default), event names are never treated as patterns.
+	 * 
+	 * @return the topic trie of this instance or <code>null</code> to not support patterns
+	 * @see TopicTrie
+	 */
+	public default TopicTrie getTopics() {
+		return null;
+	}
+	
+	/**
+	 * Gets the hook that observes the dispatch of events, if any.
+	 * Without one (the default), firing is not instrumented at all.
+	 * 
+	 * @return the instrumentation of this instance or <code>null</code> to not instrument it
+	 * @see DispatchMetrics
+	 */
+	public default Instrumentation getInstrumentation() {
+		return null;
+	}
+	
+	/**
+	 * Gets the compiled dispatchers of this instance, if it is sealed.
+	 * Without them (the default), firing looks up the handlers of the event every time.
+	 *
+	 * @return the sealed dispatch of this instance or <code>null</code> if it is not sealed
+	 * @see SealedDispatch
+	 */
+	public default SealedDispatch getSealedDispatch() {
+		return null;
+	}
+	
+	/**
+	 * Drops the {@link #getSealedDispatch() compiled dispatchers}, if any.
+	 * Called whenever handlers are attached or detached, as they would no longer be up to date.
+	 */
+	public default void unseal() {}
+	
+	/**
+	 * Gets all handlers that firing the event considers, in invocation order -
+	 * the ones attached to its name, and the ones attached to {@link #getTopics() topic patterns} that match it.
+	 * 
+	 * <p>
+	 * Handlers are ordered by {@link RankedHandler#priority priority},
+	 * with the handlers of the name before those of the patterns, if the priorities are equal.
+	 * </p>
+	 * 
+	 * @return the handlers, or <code>null</code> if there are none
+	 */
+	public default Iterable<? extends Handler<?>> getAllHandlers(String event) {
+		Set<Handler<E>> handlers = getHandlers().get(event);
+		TopicTrie topics = getTopics();
+		
+		if (topics == null || topics.size() == 0)
+			return handlers;
+		
+		if (handlers == null && topics.resolve(event).length == 0)
+			return null;
+		
+		return () -> TopicTrie.merge(getHandlers().get(event), topics.resolve(event)).iterator(); // resolved late, to not cache stale handlers
+	}
 
 	
-	/* Handler/Listener Attaching */
+	/**
+	 * Gets the handlers of an event that accept the given event data, in invocation order.
+	 * 
+	 * @return a fresh or cached (hence not to be modified) array of the matching handlers
+	 */
+	public default Handler<Object>[] getHandlers(String event, E data) {
+		DispatchTable dispatchTable = getDispatchTable();
+		Handler<Object>[] matching = (dispatchTable == null)? null : dispatchTable.get(event, data);
+		
+		if (matching != null)
+			return matching;
+		
+		Iterable<? extends Handler<?>> handlers = getAllHandlers(event);
+		
+		if (dispatchTable == null || handlers == null) // events nobody listens to are not cached
+			return DispatchTable.matching(handlers, (data == null)? null : data.getClass());
+		
+		return dispatchTable.put(event, data, handlers);
+	}
+	
+	/**
+	 * Gets the handlers of an event that accept the given event data, in invocation order,
+	 * without looking up the event name, if the key caches them.
+	 * 
+	 * @return a fresh or cached (hence not to be modified) array of the matching handlers
+	 * @throws IllegalArgumentException if the key was created by another instance
+	 */
+	public default <T extends E> Handler<Object>[] getHandlers(EventKey<T> key, T data) {
+		DispatchTable cache = key.table;
+		
+		if (cache == null)
+			return getHandlers(key.name(), data);
+		
+		if (!key.isOf(this))
+			throw new IllegalArgumentException(key + " belongs to another instance");
+		
+		Handler<Object>[] matching = cache.get(null, data);
+		
+		if (matching == null)
+			matching = cache.put(null, data, getAllHandlers(key.name()));
+		
+		return matching;
+	}
 	
+	
+	/* Event Keys */
+	
+	/**
+	 * Gets the key of the given event, to attach handlers and fire through it without looking up the event name every time.
+	 * 
+	 * <pre>{@code
+	 * EventKey<Click> clicked = eventful.key("clicked");
+	 * eventful.on(clicked, click -> ...);
+	 * eventful.fire(clicked, new Click());
+	 * }</pre>
+	 * 
+	 * @return the same key for the same name, if this instance keeps a registry of keys
+	 * @see EventKey
+	 */
 	@SuppressWarnings("unchecked")
+	public default <T extends E> EventKey<T> key(String event) {
+		Map<String, EventKey<?>> keys = getEventKeys();
+		
+		if (keys == null)
+			return new EventKey<>(event, this, false);
+		
+		return (EventKey<T>) keys.computeIfAbsent(event, name -> new EventKey<>(name, this, true));
+	}
+
+	
+	/* Handler/Listener Attaching */
+	
+	/**
+	 * Attaches a handler to the event.
+	 * 
+	 * <p>
+	 * If this instance supports {@link #getTopics() topics} and the event name is a pattern
+	 * (has a word that is exactly <code>*</code> or <code>#</code>, see {@link TopicTrie#isPattern(String)}),
+	 * the handler is attached to every event whose name matches the pattern, rather than to the name itself.
+	 * </p>
+	 * 
+	 * @return the given handler, to be used for {@link #off(String, Handler) off()}
+	 */
 	public default Handler<? extends E> on(String event, Handler<? extends E> handler) {
-		getHandlers(event).add((Handler<E>) handler);
+		TypedHandler<E> typedHandler = TypedHandler.of(handler);
+		TopicTrie topics = getTopics();
+		
+		if (topics != null && TopicTrie.isPattern(event)) {
+			if (topics.add(event, typedHandler))
+				EventfulCaches.updateMatching(this, event, typedHandler.getEventType());
+		}
+		else if (getHandlers(event).add(typedHandler))
+			EventfulCaches.update(this, event, typedHandler.getEventType());
+		
 		return handler;
 	}
 	
+	public default <T extends E> Handler<? extends T> on(EventKey<T> key, Handler<? extends T> handler) {
+		on(key.name(), handler);
+		return handler;
+	}
+	
+	@SuppressWarnings("unchecked")
+	public default <T extends E> Handler<T> on(String event, Class<T> type, Handler<? super T> handler) {
+		TypedHandler<T> typedHandler = new TypedHandler<>((Handler<T>) handler, type);
+		on(event, typedHandler);
+		return typedHandler;
+	}
+	
+	/**
+	 * Attaches a handler that is only called for the event data that passes the filter.
+	 * 
+	 * <p>
+	 * Handlers with a {@link KeyFilter} (see {@link KeyFilter#filterBy(KeyFilter.Key, Object) filterBy()})
+	 * are indexed by the key they expect, so firing calls only the ones that expect the key of the event data,
+	 * without testing the filters of the others - they are called in the order they were attached,
+	 * at the place of the first handler of the event with that key (method).
+	 * Other filters are tested for each handler.
+	 * </p>
+	 * 
+	 * @return the filtered handler that was actually attached, to be used for {@link #off(String, Handler) off()}
+	 */
+	@SuppressWarnings("unchecked")
+	public default <T extends E> Handler<T> on(String event, Predicate<? super T> filter, Handler<? super T> handler) {
+		FilteredHandler<T> filteredHandler = new FilteredHandler<>(filter, (Handler<T>) handler);
+		TopicTrie topics = getTopics();
+		
+		if (filter instanceof KeyFilter && (topics == null || !TopicTrie.isPattern(event)))
+			KeyIndex.attach(this, event, filteredHandler);
+		else
+			on(event, filteredHandler);
+		
+		return filteredHandler;
+	}
+	
 	public default boolean off(String event, Handler<? extends E> handler) {
-		return getHandlers(event).remove(handler);
+		FilteredHandler<?> keyedHandler = KeyIndex.keyed(handler);
+		
+		if (keyedHandler != null && KeyIndex.detach(this, event, keyedHandler))
+			return true;
+		
+		TypedHandler<E> typedHandler = TypedHandler.of(handler);
+		TopicTrie topics = getTopics();
+		
+		if (topics != null && TopicTrie.isPattern(event)) {
+			if (!topics.remove(event, typedHandler))
+				return false;
+			
+			EventfulCaches.updateMatching(this, event, typedHandler.getEventType());
+			return true;
+		}
+		
+		Set<Handler<E>> handlers = getHandlers().get(event);
+		
+		if (handlers == null || !handlers.remove(typedHandler))
+			return false;
+		
+		EventfulCaches.update(this, event, typedHandler.getEventType());
+		return true;
+	}
+	
+	public default <T extends E> boolean off(EventKey<T> key, Handler<? extends T> handler) {
+		return off(key.name(), handler);
+	}
+	
+	
+	/**
+	 * Attaches a handler that is only weakly referenced, so that the event does not keep it reachable.
+	 * The caller must keep a strong reference to the handler for as long as it should receive events.
+	 * 
+	 * <p>
+	 * Once the handler is collected, it detaches itself lazily, the next time the event is fired.
+	 * </p>
+	 * 
+	 * @return the weak handler that was actually attached, which can be used for {@link #off(String, Handler) off()}
+	 * @see WeakHandler
+	 */
+	@SuppressWarnings("unchecked")
+	public default Handler<? extends E> onWeak(String event, Handler<? extends E> handler) {
+		return on(event, WeakHandler.of((Handler<E>) handler, WeakHandler.detaching(this, (eventful, weak) -> eventful.off(event, weak)), false));
+	}
+	
+	/**
+	 * Attaches a handler on behalf of a target which is only weakly referenced,
+	 * so that the event does not keep the target reachable.
+	 * The handler receives the target explicitly, and should not capture it, e.g.:
+	 * <pre>{@code
+	 * eventful.onWeak("some-event", listener, Listener::onSomeEvent);
+	 * }</pre>
+	 * 
+	 * <p>
+	 * Once the target is collected, the handler detaches itself lazily, the next time the event is fired.
+	 * </p>
+	 * 
+	 * @return the weak handler that was actually attached, which can be used for {@link #off(String, Handler) off()}
+	 * @see WeakHandler
+	 */
+	public default <O, T extends E> Handler<T> onWeak(String event, O target, WeakHandler.Bound<? super O, T> handler) {
+		WeakHandler<O, T> weakHandler = new WeakHandler<>(target, handler, WeakHandler.detaching(this, (eventful, weak) -> eventful.off(event, weak)), false);
+		on(event, weakHandler);
+		return weakHandler;
+	}
+	
+	/**
+	 * Detaches all handlers and drops any cached state, eagerly.
+	 * 
+	 * <p>
+	 * This is never required - the state of the convenience sub-interfaces is only weakly tied to the instances -
+	 * but it frees everything right away, instead of whenever the instance is garbage collected.
+	 * </p>
+	 */
+	public default void dispose() {
+		getHandlers().clear();
+		EventfulCaches.clear(getDispatchTable(), getEventKeys(), getTopics());
 	}
 	
 	
@@ -128,14 +454,68 @@ public interface Eventful<E> {
 	}
 	
 	public default boolean fire(String event, E data) {
-		Set<Handler<E>> handlers = getHandlers(event);
+		Instrumentation instrumentation = getInstrumentation();
+		if (instrumentation != null)
+			return InstrumentedDispatch.fire(instrumentation, event, getHandlers(event, data), data);
+		
+		SealedDispatch sealed = getSealedDispatch();
+		DispatchTable dispatchTable = (sealed == null)? getDispatchTable() : null;
 		
-		if (handlers == null)
+		try {
+			if (sealed != null)
+				return sealed.signal(this, event, data) != Signal.VETO;
+			else if (dispatchTable != null) {
+				Handler<Object>[] handlers = dispatchTable.get(event, data); // the common case, without further lookups
+				
+				for (Handler<Object> handler : (handlers != null)? handlers : getHandlers(event, data)) {
+					Signal signal = handler.signal(data);
+					if (signal != Signal.CONTINUE)
+						return signal == Signal.CONSUME;
+				}
+			}
+			else {
+				Iterable<? extends Handler<?>> handlers = getAllHandlers(event);
+				
+				if (handlers == null)
+					return true;
+				
+				for (Handler<?> handler : handlers) {
+					Signal signal = handler.trySignal(data);
+					if (signal != Signal.CONTINUE)
+						return signal == Signal.CONSUME;
+				}
+			}
+			
 			return true;
+		}
+		catch (VetoEventException e) {
+			return false;
+		}
+		catch (ConsumeEventException e) {
+			return true;
+		}
+	}
+	
+	/**
+	 * Same as {@link #fire(String, Object)}, but without looking up the event name.
+	 * 
+	 * @see #key(String)
+	 */
+	public default <T extends E> boolean fire(EventKey<T> key, T data) {
+		Instrumentation instrumentation = getInstrumentation();
+		if (instrumentation != null)
+			return InstrumentedDispatch.fire(instrumentation, key.name(), getHandlers(key, data), data);
+		
+		SealedDispatch sealed = getSealedDispatch();
 		
 		try {
-			for (Handler<?> handler : handlers) {
-				handler.tryHandle(data);
+			if (sealed != null)
+				return sealed.signal(this, key.name(), data) != Signal.VETO;
+			
+			for (Handler<Object> handler : getHandlers(key, data)) {
+				Signal signal = handler.signal(data);
+				if (signal != Signal.CONTINUE)
+					return signal == Signal.CONSUME;
 			}
 			
 			return true;
@@ -149,6 +529,99 @@ public interface Eventful<E> {
 	}
 
 	
+	/**
+	 * Fires the event once for each of the given event data objects, in order.
+	 * 
+	 * <p>
+	 * This is equivalent to calling {@link #fire(String, Object)} for each of them,
+	 * but the handlers are looked up only once and matched only once per distinct class of event data.
+	 * </p>
+	 * 
+	 * @return the indices of the events that were vetoed, i.e. for which {@link #fire(String, Object)} would have returned <code>false</code>
+	 */
+	public default BitSet fireAll(String event, Collection<? extends E> data) {
+		return BatchDispatch.fire(data, getDispatchTable(), event, getAllHandlers(event));
+	}
+	
+	/**
+	 * @see #fireAll(String, Collection)
+	 */
+	public default BitSet fireAll(String event, E[] data) {
+		return fireAll(event, Arrays.asList(data));
+	}
+	
+	/**
+	 * Fires the event, and collects what its {@link Responder}s answer, in order.
+	 *
+	 * <pre>{@code
+	 * Optional<Price> price = eventful.ask("price-of", item, Responses.first());
+	 * List<Price> prices = eventful.ask("price-of", item, Collectors.toList());
+	 * }</pre>
+	 *
+	 * <p>
+	 * Handlers are called as by {@link #fire(String, Object)}, including those that are not responders.
+	 * The results are accumulated straight into the collector as the responders return them,
+	 * and with a {@link Responses.ShortCircuiting short-circuiting} collector (like {@link Responses#first()}),
+	 * the remaining handlers are not called once it is done.
+	 * Vetoing or consuming the event also stops it, with the results so far.
+	 * </p>
+	 *
+	 * @return the collected results
+	 */
+	public default <R, A, T> T ask(String event, E data, Collector<? super R, A, T> collector) {
+		return ResponseDispatch.ask(getHandlers(event, data), data, collector);
+	}
+	
+	/**
+	 * Same as {@link #ask(String, Object, Collector)}, but without looking up the event name.
+	 *
+	 * @see #key(String)
+	 */
+	public default <T extends E, R, A, U> U ask(EventKey<T> key, T data, Collector<? super R, A, U> collector) {
+		return ResponseDispatch.ask(getHandlers(key, data), data, collector);
+	}
+	
+	/**
+	 * Fires the event on the given executor, instead of the calling thread.
+	 * 
+	 * <p>
+	 * The handlers are still called one after the other, in order,
+	 * so the semantics of {@link VetoEventException} and {@link ConsumeEventException} are unchanged.
+	 * </p>
+	 * 
+	 * @return a future of what {@link #fire(String, Object)} would have returned;
+	 *  completed exceptionally if a handler throws
+	 */
+	public default CompletableFuture<Boolean> fireAsync(String event, E data, Executor executor) {
+		return CompletableFuture.supplyAsync(() -> fire(event, data), executor);
+	}
+	
+	/**
+	 * Fires the event by calling all matching handlers in parallel, on the common {@link ForkJoinPool}.
+	 * 
+	 * @see #fireParallel(String, Object, Executor)
+	 */
+	public default CompletableFuture<Boolean> fireParallel(String event, E data) {
+		return fireParallel(event, data, ForkJoinPool.commonPool());
+	}
+	
+	/**
+	 * Fires the event by calling all matching handlers in parallel, each as a separate task of the executor.
+	 * 
+	 * <p>
+	 * Only use this if the handlers are independent of each other, as they are called in no particular order.
+	 * A {@link VetoEventException} or {@link ConsumeEventException} prevents the calls that have not started yet,
+	 * but cannot stop those that are already running. The first of the two to be thrown decides the outcome.
+	 * </p>
+	 * 
+	 * @return a future that completes once all (non-skipped) handlers have returned,
+	 *  with <code>false</code> if the event was vetoed
+	 */
+	public default CompletableFuture<Boolean> fireParallel(String event, E data, Executor executor) {
+		return ParallelDispatch.fire(getHandlers(event, data), data, executor);
+	}
+	
+	
 	/* Specialized Implementations */
 	
 	/**
@@ -156,22 +629,222 @@ public interface Eventful<E> {
 	 * Use this as a convenient whole implementation of {@link Eventful}.
 	 * 
 	 * <p>
-	 * Be aware that the implementation makes use of a {@link java.util.HashMap HashMap},
+	 * Be aware that the implementation makes use of a global {@link WeakIdentityMap},
 	 * with the {@link Eventful} object instances as keys!
-	 * So if the instances (the `this` objects) are not suitable for keys in a Hash Map,
-	 * do not use this convenience sub-interface, but implement the {@link Eventful} one!
+	 * The state is dropped once the instance is garbage collected (or {@link #dispose() disposed}),
+	 * unless a handler (transitively) references the instance, which keeps it reachable.
+	 * </p>
+	 * 
+	 * <p>
+	 * The handlers matching each event name and concrete event data class are cached in a {@link DispatchTable},
+	 * which is kept up to date by {@link #on(String, Handler) on()} and {@link #off(String, Handler) off()}.
+	 * Do not modify the sets returned by {@link #getHandlers(String)} directly, or the cache will go stale.
+	 * </p>
+	 * 
+	 * <p>
+	 * Event names with a word that is exactly <code>*</code> or <code>#</code> are {@link TopicTrie topic patterns}.
 	 * </p>
 	 * 
 	 * @see Eventful
 	 */
 	public interface Default<E> extends Eventful<E> {
-		final static Map<Object, Map<String, Set<Handler<Object>>>> eventMaps = new HashMap<>();
+		final static WeakIdentityMap<Object, Map<String, Set<Handler<Object>>>> eventMaps = new WeakIdentityMap<>();
+		final static WeakIdentityMap<Object, DispatchTable> dispatchTables = new WeakIdentityMap<>();
+		final static WeakIdentityMap<Object, Map<String, EventKey<?>>> eventKeys = new WeakIdentityMap<>();
+		final static WeakIdentityMap<Object, TopicTrie> topicTries = new WeakIdentityMap<>();
+		final static WeakIdentityMap<Object, Instrumentation> instrumentations = new WeakIdentityMap<>();
+		final static WeakIdentityMap<Object, SealedDispatch> sealedDispatches = new WeakIdentityMap<>();
 		
 		@SuppressWarnings({ "unchecked", "rawtypes" })
 		@Override
 		public default Map<String, Set<Handler<E>>> getHandlers() {
 			return (Map<String, Set<Handler<E>>>) (Map) eventMaps.computeIfAbsent(this, k -> new HashMap<>());
 		}
+		
+		@Override
+		public default DispatchTable getDispatchTable() {
+			return dispatchTables.computeIfAbsent(this, k -> new DispatchTable());
+		}
+		
+		@Override
+		public default Map<String, EventKey<?>> getEventKeys() {
+			return eventKeys.computeIfAbsent(this, k -> new HashMap<>());
+		}
+		
+		@Override
+		public default TopicTrie getTopics() {
+			return topicTries.computeIfAbsent(this, k -> new TopicTrie());
+		}
+		
+		@Override
+		public default Instrumentation getInstrumentation() {
+			return instrumentations.get(this);
+		}
+		
+		/**
+		 * Sets (or with <code>null</code> - removes) the hook that observes the dispatch of events of this instance.
+		 * 
+		 * @return the previous instrumentation, if any
+		 */
+		public default Instrumentation instrument(Instrumentation instrumentation) {
+			return (instrumentation == null)? instrumentations.remove(this) : instrumentations.put(this, instrumentation);
+		}
+		
+		@Override
+		public default SealedDispatch getSealedDispatch() {
+			return sealedDispatches.get(this);
+		}
+		
+		/**
+		 * Compiles the dispatch of every event into a {@link SealedDispatch dedicated dispatcher}, once the event is fired,
+		 * until handlers are attached or detached - which {@link #unseal() unseals} this instance again.
+		 * Only worth it if the handlers do not change, once set up.
+		 */
+		@SuppressWarnings("unchecked")
+		public default void seal() {
+			sealedDispatches.put(this, new SealedDispatch( // the functions do not capture this instance, which the map holds weakly
+					(owner, event) -> ((Eventful<E>) owner).getAllHandlers((String) event),
+					(owner, event, data) -> ((Eventful<E>) owner).getHandlers((String) event, (E) data)));
+		}
+		
+		@Override
+		public default void unseal() {
+			sealedDispatches.remove(this);
+		}
+		
+		@Override
+		public default void dispose() {
+			eventMaps.remove(this);
+			dispatchTables.remove(this);
+			topicTries.remove(this);
+			instrumentations.remove(this);
+			sealedDispatches.remove(this);
+			EventfulCaches.clear(null, eventKeys.get(this), null); // the keys handed out stay valid
+		}
+	}
+
+
+	/**
+	 * A sub-interface of {@link Eventful} that manages state in a thread-safe manner,
+	 * so it can be fired into and (un)subscribed to from any thread.
+	 * 
+	 * <p>
+	 * The handlers of each event are kept in a copy-on-write snapshot,
+	 * which {@link #on(String, Handler) on()} and {@link #off(String, Handler) off()} swap with a CAS.
+	 * Firing only ever reads immutable snapshots - the arrays of a {@link DispatchTable} - and so takes no locks,
+	 * except for the very first time an event name is fired with a given event data class.
+	 * </p>
+	 * 
+	 * <p>
+	 * Just like {@link Eventful.Default}, the state is kept in global static maps, with the instances as keys.
+	 * </p>
+	 * 
+	 * <p>
+	 * Event names with a word that is exactly <code>*</code> or <code>#</code> are {@link TopicTrie topic patterns}.
+	 * </p>
+	 * 
+	 * @see Eventful
+	 * @see Eventful.Ranked.Concurrent
+	 */
+	public interface Concurrent<E> extends Eventful<E> {
+		final static WeakIdentityMap<Object, Map<String, Set<Handler<Object>>>> eventMaps = new WeakIdentityMap<>();
+		final static WeakIdentityMap<Object, DispatchTable> dispatchTables = new WeakIdentityMap<>();
+		final static WeakIdentityMap<Object, Map<String, EventKey<?>>> eventKeys = new WeakIdentityMap<>();
+		final static WeakIdentityMap<Object, TopicTrie> topicTries = new WeakIdentityMap<>();
+		final static WeakIdentityMap<Object, Instrumentation> instrumentations = new WeakIdentityMap<>();
+		final static WeakIdentityMap<Object, SealedDispatch> sealedDispatches = new WeakIdentityMap<>();
+		
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		@Override
+		public default Map<String, Set<Handler<E>>> getHandlers() {
+			return (Map<String, Set<Handler<E>>>) (Map) eventMaps.computeIfAbsent(this, k -> new ConcurrentHashMap<>());
+		}
+		
+		@Override
+		public default Set<Handler<E>> getHandlers(String event) {
+			return getHandlers().computeIfAbsent(event, k -> new SnapshotSet<Handler<E>>());
+		}
+		
+		@Override
+		public default DispatchTable getDispatchTable() {
+			return dispatchTables.computeIfAbsent(this, k -> new DispatchTable());
+		}
+		
+		@Override
+		public default Map<String, EventKey<?>> getEventKeys() {
+			return eventKeys.computeIfAbsent(this, k -> new ConcurrentHashMap<>());
+		}
+		
+		@Override
+		public default TopicTrie getTopics() {
+			return topicTries.computeIfAbsent(this, k -> new TopicTrie());
+		}
+		
+		@Override
+		public default Instrumentation getInstrumentation() {
+			return instrumentations.get(this);
+		}
+		
+		/**
+		 * Sets (or with <code>null</code> - removes) the hook that observes the dispatch of events of this instance.
+		 * 
+		 * @return the previous instrumentation, if any
+		 */
+		public default Instrumentation instrument(Instrumentation instrumentation) {
+			return (instrumentation == null)? instrumentations.remove(this) : instrumentations.put(this, instrumentation);
+		}
+		
+		@Override
+		public default SealedDispatch getSealedDispatch() {
+			return sealedDispatches.get(this);
+		}
+		
+		/**
+		 * Compiles the dispatch of every event into a {@link SealedDispatch dedicated dispatcher}, once the event is fired,
+		 * until handlers are attached or detached - which {@link #unseal() unseals} this instance again.
+		 * Only worth it if the handlers do not change, once set up.
+		 */
+		@SuppressWarnings("unchecked")
+		public default void seal() {
+			sealedDispatches.put(this, new SealedDispatch( // the functions do not capture this instance, which the map holds weakly
+					(owner, event) -> ((Eventful<E>) owner).getAllHandlers((String) event),
+					(owner, event, data) -> ((Eventful<E>) owner).getHandlers((String) event, (E) data)));
+		}
+		
+		@Override
+		public default void unseal() {
+			sealedDispatches.remove(this);
+		}
+		
+		@Override
+		public default void dispose() {
+			eventMaps.remove(this);
+			dispatchTables.remove(this);
+			topicTries.remove(this);
+			instrumentations.remove(this);
+			sealedDispatches.remove(this);
+			EventfulCaches.clear(null, eventKeys.get(this), null); // the keys handed out stay valid
+		}
+		
+		
+		/**
+		 * Also detaches the handler from a background thread, as soon as it is collected.
+		 */
+		@SuppressWarnings("unchecked")
+		@Override
+		public default Handler<? extends E> onWeak(String event, Handler<? extends E> handler) {
+			return on(event, WeakHandler.of((Handler<E>) handler, WeakHandler.detaching(this, (eventful, weak) -> eventful.off(event, weak)), true));
+		}
+		
+		/**
+		 * Also detaches the handler from a background thread, as soon as the target is collected.
+		 */
+		@Override
+		public default <O, T extends E> Handler<T> onWeak(String event, O target, WeakHandler.Bound<? super O, T> handler) {
+			WeakHandler<O, T> weakHandler = new WeakHandler<>(target, handler, WeakHandler.detaching(this, (eventful, weak) -> eventful.off(event, weak)), true);
+			on(event, weakHandler);
+			return weakHandler;
+		}
 	}
 
 
@@ -184,12 +857,12 @@ public interface Eventful<E> {
 	 * </p>
 	 * 
 	 * <p>
-	 * <b>NOTE:</b> Handlers with the same priority have an undefined order of invocation!
+	 * Handlers are called by ascending priority, and handlers with the same priority in the order they were attached.
 	 * </p>
 	 * 
 	 * <p>
-	 * The ordering is maintained by a {@link PrioritySet} (== {@link PriorityQueue}&{@link Set}),
-	 * so to allow duplicates (same priority, but different handlers).
+	 * The ordering is maintained by a {@link RankedSet} (a sorted array snapshot),
+	 * which allows duplicates (same priority, but different handlers).
 	 * </p>
 	 * 
 	 * <p>
@@ -204,7 +877,7 @@ public interface Eventful<E> {
 
 		@Override
 		default Set<Handler<E>> getHandlers(String event) {
-			return getHandlers().computeIfAbsent(event, k -> new PrioritySet<Handler<E>>());
+			return getHandlers().computeIfAbsent(event, k -> new RankedSet<Handler<E>>());
 		}
 		
 		
@@ -213,6 +886,7 @@ public interface Eventful<E> {
 			return this.on(event, handler, 0);
 		}
 		
+		@SuppressWarnings("overloads") // told apart from on(event, filter, handler) by the third argument, which is no Handler here
 		default RankedHandler<? extends E> on(String event, Handler<? extends E> handler, int priority) {
 			RankedHandler<? extends E> rankedHandler = new RankedHandler<>(handler, priority);
 			
@@ -221,6 +895,20 @@ public interface Eventful<E> {
 			return rankedHandler;
 		}
 		
+		@Override
+		default <T extends E> Handler<T> on(String event, Class<T> type, Handler<? super T> handler) {
+			return this.on(event, type, handler, 0);
+		}
+		
+		@SuppressWarnings("unchecked")
+		default <T extends E> RankedHandler<T> on(String event, Class<T> type, Handler<? super T> handler, int priority) {
+			RankedHandler<T> rankedHandler = new RankedHandler<>((Handler<T>) handler, type, priority);
+			
+			Eventful.super.on(event, rankedHandler);
+			
+			return rankedHandler;
+		}
+		
 		
 		@Override
 		default boolean off(String event, Handler<? extends E> handler) {
@@ -228,7 +916,17 @@ public interface Eventful<E> {
 		}
 		
 		default boolean off(String event, RankedHandler<? extends E> handler) {
-			return getHandlers(event).remove(handler);
+			return Eventful.super.off(event, handler);
+		}
+		
+		
+		/**
+		 * Ranked handlers depend on their order, so they are never called in parallel.
+		 * This is the same as {@link #fireAsync(String, Object, Executor)}.
+		 */
+		@Override
+		default CompletableFuture<Boolean> fireParallel(String event, E data, Executor executor) {
+			return fireAsync(event, data, executor);
 		}
 		
 
@@ -245,5 +943,24 @@ public interface Eventful<E> {
 		 * @see Eventful.Default
 		 */
 		public interface Default<E> extends Ranked<E>, Eventful.Default<E> {}
+		
+		
+		/**
+		 * A sub-interface of {@link Eventful.Ranked} that also adds the thread-safety of {@link Eventful.Concurrent}.
+		 * 
+		 * <p>
+		 * The {@link RankedSet} is already thread-safe,
+		 * so this only adds the concurrent state management.
+		 * </p>
+		 * 
+		 * @see Eventful.Ranked
+		 * @see Eventful.Concurrent
+		 */
+		public interface Concurrent<E> extends Ranked<E>, Eventful.Concurrent<E> {
+			@Override
+			default Set<Handler<E>> getHandlers(String event) {
+				return getHandlers().computeIfAbsent(event, k -> new RankedSet<>());
+			}
+		}
 	}
 }
@@ -0,0 +1,72 @@
+package aanchev.eventful;
+
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Keeps the caches of an {@link Eventful} instance (its {@link DispatchTable} and {@link EventKey}s)
+ * in line with the handlers attached to it, and unseals it (see {@link SealedDispatch}) when they change.
+ */
+final class EventfulCaches {
+
+	private EventfulCaches() {}
+
+
+	/**
+	 * Unseals the instance, and re-resolves the cached handlers of an event that could be affected by a handler of the given type.
+	 */
+	static void update(Eventful<?> eventful, String event, Class<?> type) {
+		eventful.unseal();
+
+		DispatchTable dispatchTable = eventful.getDispatchTable();
+		Map<String, EventKey<?>> keys = eventful.getEventKeys();
+		EventKey<?> key = (keys == null)? null : keys.get(event);
+
+		if (dispatchTable == null && key == null)
+			return;
+
+		Iterable<? extends Handler<?>> handlers = eventful.getAllHandlers(event);
+
+		if (dispatchTable != null)
+			dispatchTable.update(event, type, handlers);
+
+		if (key != null)
+			key.update(type, handlers);
+	}
+
+	/**
+	 * Unseals the instance, and re-resolves the cached handlers of all events that match the given topic pattern,
+	 * and could be affected by a handler of the given type.
+	 */
+	static void updateMatching(Eventful<?> eventful, String pattern, Class<?> type) {
+		eventful.unseal();
+
+		DispatchTable dispatchTable = eventful.getDispatchTable();
+		Map<String, EventKey<?>> keys = eventful.getEventKeys();
+		Predicate<String> matching = TopicTrie.matcher(pattern);
+
+		if (dispatchTable != null)
+			dispatchTable.update(event -> event instanceof String && matching.test((String) event), type, event -> eventful.getAllHandlers((String) event));
+
+		if (keys != null) {
+			keys.forEach((event, key) -> {
+				if (matching.test(event))
+					key.update(type, eventful.getAllHandlers(event));
+			});
+		}
+	}
+
+	/**
+	 * Drops all cached handlers. The keys handed out stay valid.
+	 */
+	static void clear(DispatchTable dispatchTable, Map<String, EventKey<?>> keys, TopicTrie topics) {
+		if (dispatchTable != null)
+			dispatchTable.clear();
+
+		if (keys != null)
+			keys.values().forEach(EventKey::clear);
+
+		if (topics != null)
+			topics.clear();
+	}
+}
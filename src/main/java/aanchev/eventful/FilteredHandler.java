@@ -0,0 +1,52 @@
+package aanchev.eventful;
+
+import java.util.function.Predicate;
+
+/**
+ * A proxy {@link Handler} that only calls the handler it wraps if the event data passes a filter.
+ * It is what {@link Eventful#on(String, Predicate, Handler)} attaches, and returns for {@link Eventful#off(String, Handler) off()}.
+ *
+ * <p>
+ * A handler with a {@link KeyFilter} is not attached to the event directly, but to the {@link KeyIndex} of its key.
+ * A wrapped {@link Responder} answers {@link Eventful#ask(String, Object, java.util.stream.Collector) ask()}
+ * if the event data passes the filter.
+ * </p>
+ */
+public class FilteredHandler<DATA> implements Handler<DATA> {
+	private static final long serialVersionUID = 1L;
+
+	protected final Predicate<? super DATA> filter;
+	protected final TypedHandler<DATA> handler;
+
+
+	/* Constructors */
+
+	public FilteredHandler(Predicate<? super DATA> filter, Handler<DATA> handler) {
+		this.filter = filter;
+		this.handler = TypedHandler.of(handler);
+	}
+
+
+	public Predicate<? super DATA> getFilter() {
+		return filter;
+	}
+
+
+	/* Proxy Handler */
+
+	@Override
+	public void handle(DATA event) throws VetoEventException, ConsumeEventException {
+		if (filter.test(event))
+			handler.handle(event);
+	}
+
+	@Override
+	public Class<?> getEventType() {
+		return handler.getEventType();
+	}
+
+	@Override
+	public Signal signal(DATA event) throws VetoEventException, ConsumeEventException {
+		return filter.test(event)? handler.signal(event) : Signal.CONTINUE;
+	}
+}
@@ -0,0 +1,120 @@
+package aanchev.eventful;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * An {@link EventStream} that forwards everything to another instance,
+ * as a base for layers that change how events are fired.
+ *
+ * @param <E> the type of event data of the target
+ * @see ForwardingEventful
+ */
+public abstract class ForwardingEventStream<E> implements EventStream<E> {
+	protected final EventStream<E> target;
+
+
+	protected ForwardingEventStream(EventStream<E> target) {
+		this.target = target;
+	}
+
+	public EventStream<E> getTarget() {
+		return target;
+	}
+
+
+	/* State */
+
+	@Override
+	public Collection<Handler<E>> getHandlers() {
+		return target.getHandlers();
+	}
+
+	@Override
+	public DispatchTable getDispatchTable() {
+		return target.getDispatchTable();
+	}
+
+	@Override
+	public TypeIndex getTypeIndex() {
+		return target.getTypeIndex();
+	}
+
+	@Override
+	public Instrumentation getInstrumentation() {
+		return target.getInstrumentation();
+	}
+
+	@Override
+	public SealedDispatch getSealedDispatch() {
+		return target.getSealedDispatch();
+	}
+
+	@Override
+	public void unseal() {
+		target.unseal();
+	}
+
+	@Override
+	public Iterable<? extends Handler<?>> getAllHandlers() {
+		return target.getAllHandlers();
+	}
+
+	@Override
+	public Handler<Object>[] getHandlers(E data) {
+		return target.getHandlers(data);
+	}
+
+
+	/* Handler/Listener Attaching */
+
+	@Override
+	public Handler<? extends E> on(Handler<? extends E> handler) {
+		return target.on(handler);
+	}
+
+	@Override
+	public <T extends E> Handler<T> on(Class<T> type, Handler<? super T> handler) {
+		return target.on(type, handler);
+	}
+
+	@Override
+	public boolean off(Handler<? extends E> handler) {
+		return target.off(handler);
+	}
+
+	@Override
+	public Handler<? extends E> onWeak(Handler<? extends E> handler) {
+		return target.onWeak(handler);
+	}
+
+	@Override
+	public <O, T extends E> Handler<T> onWeak(O target, WeakHandler.Bound<? super O, T> handler) {
+		return this.target.onWeak(target, handler);
+	}
+
+	@Override
+	public void dispose() {
+		target.dispose();
+	}
+
+
+	/* Firing of Events */
+
+	@Override
+	public boolean fire(E data) {
+		return target.fire(data);
+	}
+
+	@Override
+	public BitSet fireAll(Collection<? extends E> data) {
+		return target.fireAll(data);
+	}
+
+	@Override
+	public CompletableFuture<Boolean> fireParallel(E data, Executor executor) {
+		return target.fireParallel(data, executor);
+	}
+}
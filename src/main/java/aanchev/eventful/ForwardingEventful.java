@@ -0,0 +1,182 @@
+package aanchev.eventful;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Predicate;
+import java.util.stream.Collector;
+
+/**
+ * An {@link Eventful} that forwards everything to another instance,
+ * as a base for layers that change how (some) events are fired, like {@link CoalescingEventful}.
+ *
+ * <p>
+ * The state is that of the target, so handlers attached through either are shared,
+ * and {@link EventKey}s created by either are valid for both.
+ * Layers that change how events are fired should also override <code>ask()</code>, which fires the event as well.
+ * </p>
+ *
+ * @param <E> the type of event data of the target
+ */
+public abstract class ForwardingEventful<E> implements Eventful<E> {
+	protected final Eventful<E> target;
+
+
+	protected ForwardingEventful(Eventful<E> target) {
+		this.target = target;
+	}
+
+	public Eventful<E> getTarget() {
+		return target;
+	}
+
+
+	/* State */
+
+	@Override
+	public Map<String, Set<Handler<E>>> getHandlers() {
+		return target.getHandlers();
+	}
+
+	@Override
+	public Set<Handler<E>> getHandlers(String event) {
+		return target.getHandlers(event);
+	}
+
+	@Override
+	public DispatchTable getDispatchTable() {
+		return target.getDispatchTable();
+	}
+
+	@Override
+	public Map<String, EventKey<?>> getEventKeys() {
+		return target.getEventKeys();
+	}
+
+	@Override
+	public TopicTrie getTopics() {
+		return target.getTopics();
+	}
+
+	@Override
+	public Instrumentation getInstrumentation() {
+		return target.getInstrumentation();
+	}
+
+	@Override
+	public SealedDispatch getSealedDispatch() {
+		return target.getSealedDispatch();
+	}
+
+	@Override
+	public void unseal() {
+		target.unseal();
+	}
+
+	@Override
+	public Iterable<? extends Handler<?>> getAllHandlers(String event) {
+		return target.getAllHandlers(event);
+	}
+
+	@Override
+	public Handler<Object>[] getHandlers(String event, E data) {
+		return target.getHandlers(event, data);
+	}
+
+	@Override
+	public <T extends E> Handler<Object>[] getHandlers(EventKey<T> key, T data) {
+		return target.getHandlers(key, data);
+	}
+
+
+	/* Event Keys */
+
+	@Override
+	public <T extends E> EventKey<T> key(String event) {
+		return target.key(event);
+	}
+
+
+	/* Handler/Listener Attaching */
+
+	@Override
+	public Handler<? extends E> on(String event, Handler<? extends E> handler) {
+		return target.on(event, handler);
+	}
+
+	@Override
+	public <T extends E> Handler<? extends T> on(EventKey<T> key, Handler<? extends T> handler) {
+		return target.on(key, handler);
+	}
+
+	@Override
+	public <T extends E> Handler<T> on(String event, Class<T> type, Handler<? super T> handler) {
+		return target.on(event, type, handler);
+	}
+
+	@Override
+	public <T extends E> Handler<T> on(String event, Predicate<? super T> filter, Handler<? super T> handler) {
+		return target.on(event, filter, handler);
+	}
+
+	@Override
+	public boolean off(String event, Handler<? extends E> handler) {
+		return target.off(event, handler);
+	}
+
+	@Override
+	public <T extends E> boolean off(EventKey<T> key, Handler<? extends T> handler) {
+		return target.off(key, handler);
+	}
+
+	@Override
+	public Handler<? extends E> onWeak(String event, Handler<? extends E> handler) {
+		return target.onWeak(event, handler);
+	}
+
+	@Override
+	public <O, T extends E> Handler<T> onWeak(String event, O target, WeakHandler.Bound<? super O, T> handler) {
+		return this.target.onWeak(event, target, handler);
+	}
+
+	@Override
+	public void dispose() {
+		target.dispose();
+	}
+
+
+	/* Firing of Events */
+
+	@Override
+	public boolean fire(String event, E data) {
+		return target.fire(event, data);
+	}
+
+	@Override
+	public <T extends E> boolean fire(EventKey<T> key, T data) {
+		return target.fire(key, data);
+	}
+
+	@Override
+	public BitSet fireAll(String event, Collection<? extends E> data) {
+		return target.fireAll(event, data);
+	}
+
+	@Override
+	public <R, A, T> T ask(String event, E data, Collector<? super R, A, T> collector) {
+		return target.ask(event, data, collector);
+	}
+
+	@Override
+	public <T extends E, R, A, U> U ask(EventKey<T> key, T data, Collector<? super R, A, U> collector) {
+		return target.ask(key, data, collector);
+	}
+
+	@Override
+	public CompletableFuture<Boolean> fireParallel(String event, E data, Executor executor) {
+		return target.fireParallel(event, data, executor);
+	}
+}
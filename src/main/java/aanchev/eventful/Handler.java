@@ -1,20 +1,92 @@
 package aanchev.eventful;
 
+import java.io.Serializable;
+
 /**
  * A Functional Interface (like {@link java.util.function.Consumer Consumer})
  * that can potentially throw {@link VetoEventException} or {@link ConsumeEventException}.
+ *
+ * <p>
+ * <b>Note:</b> the interface is {@link Serializable} (since the event type is resolved at registration),
+ * only so that the parameter type of lambdas and method references can be read from their metadata
+ * (see {@link #getEventType()}). Handlers are never actually serialized.
+ * Implementing classes get <code>serial</code> lint warnings, which can be silenced with
+ * <code>@SuppressWarnings("serial")</code> or a <code>serialVersionUID</code>.
+ * </p>
  */
-public interface Handler<DATA> {
+@SuppressWarnings("serial") // the interface itself is never serialized, see above
+public interface Handler<DATA> extends Serializable {
 	public void handle(DATA event) throws VetoEventException, ConsumeEventException;
-	
+
+	/**
+	 * Gets the type of event data that this handler accepts.
+	 *
+	 * <p>
+	 * The type is resolved once per handler class,
+	 * from the generic signature of implementing classes or from the metadata of lambdas and method references.
+	 * If it cannot be resolved (e.g. it is a type variable), {@link Object} is assumed, and the handler is called with any event data -
+	 * but a {@link ClassCastException} it throws then is taken as not accepting the data, and ignored
+	 * (see {@link TypedHandler}). Use the explicit <code>Class</code> overloads of <code>on(...)</code> in such cases.
+	 * </p>
+	 *
+	 * @return the (erased) parameter type of {@link #handle(Object)}
+	 */
+	public default Class<?> getEventType() {
+		return HandlerTypes.of(this);
+	}
+
 	@SuppressWarnings("unchecked")
 	public default boolean tryHandle(Object data) throws VetoEventException, ConsumeEventException {
+		Class<?> type = getEventType();
+
+		if (data != null && !type.isInstance(data))
+			return false;
+
+		if (type != Object.class || !HandlerTypes.isUnresolved(this)) {
+			handle((DATA) data);
+			return true;
+		}
+
 		try {
 			handle((DATA) data);
 			return true;
 		}
 		catch (ClassCastException e) {
-			return false;
+			return false; // the type may just not have been resolved
+		}
+	}
+
+	/**
+	 * Handles the event and tells whether to go on with the next handlers.
+	 * Unless overridden (see {@link SignalHandler}), this calls {@link #handle(Object)} and continues.
+	 *
+	 * @return what to do next, unless a {@link VetoEventException} or {@link ConsumeEventException} is thrown instead
+	 */
+	public default Signal signal(DATA event) throws VetoEventException, ConsumeEventException {
+		handle(event);
+		return Signal.CONTINUE;
+	}
+
+	/**
+	 * Like {@link #tryHandle(Object)}, but for {@link #signal(Object)}.
+	 *
+	 * @return {@link Signal#CONTINUE} if the data is not accepted, or what {@link #signal(Object)} returned otherwise
+	 */
+	@SuppressWarnings("unchecked")
+	public default Signal trySignal(Object data) throws VetoEventException, ConsumeEventException {
+		Class<?> type = getEventType();
+
+		if (data != null && !type.isInstance(data))
+			return Signal.CONTINUE;
+
+		if (type != Object.class || !HandlerTypes.isUnresolved(this))
+			return signal((DATA) data);
+
+		try {
+			return signal((DATA) data);
+		}
+		catch (ClassCastException e) {
+			return Signal.CONTINUE; // the type may just not have been resolved
 		}
 	}
-}
\ No newline at end of file
+}
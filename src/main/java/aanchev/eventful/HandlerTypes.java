@@ -0,0 +1,244 @@
+package aanchev.eventful;
+
+import java.lang.invoke.MethodHandleInfo;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.SerializedLambda;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+
+/**
+ * Resolves (and caches per class) the event type accepted by {@link Handler} implementations,
+ * or more generally - the type of a given parameter of a (serializable) functional interface.
+ * Also tells apart lambdas by the method they call, see {@link #identityOf(Object)}.
+ */
+final class HandlerTypes {
+	private static final int MAX_PARAMETERS = 2;
+
+	private static final ClassValue<Class<?>[]> resolved = new ClassValue<Class<?>[]>() {
+		@Override
+		protected Class<?>[] computeValue(Class<?> type) {
+			return new Class<?>[MAX_PARAMETERS];
+		}
+	};
+
+	private static final Object CAPTURING = new Object();
+
+	/**
+	 * Cached in place of a type that could not be resolved, which is reported as {@link Object}.
+	 */
+	private static final class Unresolved {}
+
+	private static final ClassValue<Object[]> lambdaMethods = new ClassValue<Object[]>() {
+		@Override
+		protected Object[] computeValue(Class<?> type) {
+			return new Object[1]; // the implementation method, or CAPTURING
+		}
+	};
+
+
+	private HandlerTypes() {}
+
+
+	public static Class<?> of(Handler<?> handler) {
+		return of(handler, Handler.class, 0);
+	}
+
+	/**
+	 * @return whether the event type of the handler is {@link Object} only because it could not be resolved
+	 *  (e.g. it is a type variable), rather than because the handler accepts any object
+	 */
+	public static boolean isUnresolved(Handler<?> handler) {
+		return handler.getEventType() == Object.class && resolved.get(handler.getClass())[0] == Unresolved.class;
+	}
+
+	/**
+	 * @param function an instance of the functional interface
+	 * @param iface the functional interface, whose type parameter at the given index is the parameter type
+	 * @param parameter the index of the parameter (both in the method and in the interface's type parameters)
+	 * @return the (erased) type of the parameter, or {@link Object} if it cannot be resolved
+	 */
+	public static Class<?> of(Object function, Class<?> iface, int parameter) {
+		Class<?>[] slots = resolved.get(function.getClass());
+		Class<?> type = slots[parameter];
+
+		if (type == null)
+			slots[parameter] = type = resolve(function, iface, parameter);
+
+		return (type == Unresolved.class)? Object.class : type;
+	}
+
+	private static Class<?> resolve(Object function, Class<?> iface, int parameter) {
+		Class<?> type = fromSignature(function.getClass(), iface, parameter);
+
+		if (type == null)
+			type = fromLambda(function, parameter);
+
+		return (type == null)? Unresolved.class : type;
+	}
+
+
+	/* Implementing Classes */
+
+	private static Class<?> fromSignature(Class<?> cls, Class<?> iface, int parameter) {
+		for (Class<?> c = cls; c != null && c != Object.class; c = c.getSuperclass()) {
+			for (Type implemented : c.getGenericInterfaces()) {
+				Class<?> type = fromInterface(implemented, iface, parameter);
+				if (type != null)
+					return type;
+			}
+		}
+		return null;
+	}
+
+	private static Class<?> fromInterface(Type implemented, Class<?> iface, int parameter) {
+		if (implemented instanceof ParameterizedType) {
+			ParameterizedType parameterized = (ParameterizedType) implemented;
+
+			if (parameterized.getRawType() == iface)
+				return erase(parameterized.getActualTypeArguments()[parameter]);
+
+			implemented = parameterized.getRawType();
+		}
+
+		if (!(implemented instanceof Class) || implemented == iface)
+			return null;
+
+		for (Type superIface : ((Class<?>) implemented).getGenericInterfaces()) {
+			Class<?> type = fromInterface(superIface, iface, parameter);
+			if (type != null)
+				return type;
+		}
+		return null;
+	}
+
+	private static Class<?> erase(Type type) {
+		if (type instanceof Class)
+			return (Class<?>) type;
+
+		if (type instanceof ParameterizedType)
+			return erase(((ParameterizedType) type).getRawType());
+
+		return null; // type variables and wildcards tell nothing useful
+	}
+
+
+	/* Lambdas and Method References */
+
+	/**
+	 * @return an object that is equal for all non-capturing lambdas and method references of the same method
+	 *  (even from different places in the code), or else the function itself
+	 */
+	public static Object identityOf(Object function) {
+		Object[] slot = lambdaMethods.get(function.getClass());
+		Object method = slot[0];
+
+		if (method == null) {
+			SerializedLambda lambda = serializedLambda(function);
+
+			if (lambda == null || lambda.getCapturedArgCount() > 0)
+				method = CAPTURING;
+			else
+				method = lambda.getImplClass() + "." + lambda.getImplMethodName() + lambda.getImplMethodSignature();
+
+			slot[0] = method;
+		}
+
+		return (method != CAPTURING)? method : function;
+	}
+
+	private static SerializedLambda serializedLambda(Object function) {
+		if (!function.getClass().isSynthetic())
+			return null;
+
+		try {
+			Method writeReplace = function.getClass().getDeclaredMethod("writeReplace");
+			writeReplace.setAccessible(true);
+
+			Object replacement = writeReplace.invoke(function);
+			return (replacement instanceof SerializedLambda)? (SerializedLambda) replacement : null;
+		}
+		catch (ReflectiveOperationException | RuntimeException e) {
+			return null;
+		}
+	}
+
+	private static Class<?> fromLambda(Object function, int parameter) {
+		SerializedLambda lambda = serializedLambda(function);
+		if (lambda == null)
+			return null;
+
+		try {
+			ClassLoader loader = function.getClass().getClassLoader();
+			Class<?> type = fromDescriptor(lambda.getInstantiatedMethodType(), parameter, loader);
+
+			if (type == Object.class && isTypeVariable(lambda, parameter, loader))
+				return null; // e.g. a method reference to Consumer::accept
+
+			return type;
+		}
+		catch (ReflectiveOperationException | RuntimeException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * @return whether the implementation method declares the parameter as a type variable
+	 */
+	private static boolean isTypeVariable(SerializedLambda lambda, int parameter, ClassLoader loader) throws ClassNotFoundException {
+		int kind = lambda.getImplMethodKind();
+		boolean hasReceiver = (kind == MethodHandleInfo.REF_invokeVirtual || kind == MethodHandleInfo.REF_invokeInterface || kind == MethodHandleInfo.REF_invokeSpecial);
+		int index = lambda.getCapturedArgCount() + parameter - (hasReceiver? 1 : 0);
+
+		if (index < 0) // the receiver, which is of the implementation class
+			return false;
+
+		Class<?> implClass = Class.forName(lambda.getImplClass().replace('/', '.'), false, loader);
+
+		for (Method method : implClass.getDeclaredMethods()) {
+			if (method.getName().equals(lambda.getImplMethodName())
+					&& MethodType.methodType(method.getReturnType(), method.getParameterTypes()).toMethodDescriptorString().equals(lambda.getImplMethodSignature()))
+				return index < method.getParameterCount() && method.getGenericParameterTypes()[index] instanceof TypeVariable;
+		}
+		return false;
+	}
+
+	private static Class<?> fromDescriptor(String methodDescriptor, int parameter, ClassLoader loader) throws ClassNotFoundException {
+		int start = methodDescriptor.indexOf('(') + 1;
+
+		for (int i = 0; i < parameter; i++)
+			start = skipType(methodDescriptor, start);
+
+		int end = start;
+
+		while (methodDescriptor.charAt(end) == '[')
+			end++;
+
+		String name;
+		if (end == start) {
+			if (methodDescriptor.charAt(start) != 'L')
+				return null; // primitives cannot be event data
+
+			name = methodDescriptor.substring(start + 1, methodDescriptor.indexOf(';', start));
+		}
+		else {
+			if (methodDescriptor.charAt(end) == 'L')
+				end = methodDescriptor.indexOf(';', end);
+
+			name = methodDescriptor.substring(start, end + 1);
+		}
+
+		return Class.forName(name.replace('/', '.'), false, loader);
+	}
+
+	private static int skipType(String descriptor, int at) {
+		while (descriptor.charAt(at) == '[')
+			at++;
+
+		if (descriptor.charAt(at) == 'L')
+			at = descriptor.indexOf(';', at);
+
+		return at + 1;
+	}
+}
@@ -0,0 +1,41 @@
+package aanchev.eventful;
+
+/**
+ * A hook that observes dispatch, e.g. to collect metrics (see {@link DispatchMetrics}).
+ *
+ * <p>
+ * It is installed with <code>instrument(...)</code> on the convenience sub-interfaces
+ * (or by overriding <code>getInstrumentation()</code>), and is called from the firing thread,
+ * so implementations should be thread-safe and fast.
+ * Without one, firing is not affected at all, beyond checking for it.
+ * </p>
+ *
+ * <p>
+ * Events are identified by their name for {@link Eventful},
+ * and by the class of the event data (or {@link Void} for <code>null</code>) for {@link EventStream}.
+ * </p>
+ */
+public interface Instrumentation {
+
+	/**
+	 * Called once per fired event, before any handler.
+	 *
+	 * @param handlers the number of handlers that accept the event data
+	 */
+	public void fired(Object event, int handlers);
+
+	/**
+	 * Called after each handler invocation, however it ended.
+	 *
+	 * @param handler the handler, as attached
+	 * @param nanos the duration of the invocation
+	 */
+	public void handled(Object event, Handler<?> handler, long nanos);
+
+	/**
+	 * Called once the dispatch of an event has ended, unless a handler threw an unchecked exception.
+	 *
+	 * @param outcome {@link Signal#CONTINUE} if all handlers were called, otherwise how the event was stopped
+	 */
+	public void completed(Object event, Signal outcome);
+}
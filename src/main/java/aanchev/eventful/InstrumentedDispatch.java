@@ -0,0 +1,45 @@
+package aanchev.eventful;
+
+/**
+ * Fires an event like {@link Eventful#fire(String, Object)} does, but reports every step to an {@link Instrumentation}.
+ */
+final class InstrumentedDispatch {
+
+	private InstrumentedDispatch() {}
+
+
+	public static boolean fire(Instrumentation instrumentation, Object event, Handler<Object>[] handlers, Object data) {
+		instrumentation.fired(event, handlers.length);
+
+		Signal outcome = Signal.CONTINUE;
+
+		for (Handler<Object> handler : handlers) {
+			long start = System.nanoTime();
+			try {
+				outcome = handler.signal(data);
+			}
+			catch (VetoEventException e) {
+				outcome = Signal.VETO;
+			}
+			catch (ConsumeEventException e) {
+				outcome = Signal.CONSUME;
+			}
+			finally {
+				instrumentation.handled(event, handler, System.nanoTime() - start);
+			}
+
+			if (outcome != Signal.CONTINUE)
+				break;
+		}
+
+		instrumentation.completed(event, outcome);
+		return outcome != Signal.VETO;
+	}
+
+	/**
+	 * @return how {@link EventStream} events are identified
+	 */
+	public static Object keyOf(Object data) {
+		return (data == null)? Void.class : data.getClass();
+	}
+}
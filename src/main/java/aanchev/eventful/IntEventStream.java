@@ -0,0 +1,131 @@
+package aanchev.eventful;
+
+import java.util.Set;
+
+/**
+ * A primitive specialization of {@link EventStream} for <code>int</code> events,
+ * so firing neither boxes the value nor type-checks it for every handler.
+ *
+ * <p>
+ * Handlers are {@link IntHandler}s and the semantics of {@link VetoEventException} and {@link ConsumeEventException}
+ * are the same as with {@link EventStream}.
+ * </p>
+ *
+ * <p>
+ * The {@link IntEventStream.Default} interface manages state like {@link EventStream.Default} does,
+ * but keeps the handlers in a copy-on-write snapshot, so {@link #fire(int) fire()} does not allocate
+ * (and is thread-safe).
+ * The {@link IntEventStream.Ranked} interface adds priorities, like {@link EventStream.Ranked}.
+ * </p>
+ *
+ * @see EventStream
+ */
+public interface IntEventStream {
+
+	/* State Getters */
+	// may need overriding
+
+	public Set<IntHandler> getHandlers();
+
+
+	/* Handler/Listener Attaching */
+
+	public default IntHandler on(IntHandler handler) {
+		getHandlers().add(handler);
+		return handler;
+	}
+
+	public default boolean off(IntHandler handler) {
+		return getHandlers().remove(handler);
+	}
+
+	/**
+	 * Detaches all handlers, eagerly.
+	 *
+	 * @see EventStream#dispose()
+	 */
+	public default void dispose() {
+		getHandlers().clear();
+	}
+
+
+	/* Firing of Events */
+
+	public default boolean fire(int data) {
+		Set<IntHandler> handlers = getHandlers();
+
+		try {
+			if (handlers instanceof Snapshotting) {
+				for (Object handler : ((Snapshotting) handlers).snapshot()) {
+					((IntHandler) handler).handle(data);
+				}
+			}
+			else {
+				for (IntHandler handler : handlers) {
+					handler.handle(data);
+				}
+			}
+
+			return true;
+		}
+		catch (VetoEventException e) {
+			return false;
+		}
+		catch (ConsumeEventException e) {
+			return true;
+		}
+	}
+
+
+	/* Specialized Implementations */
+
+	/**
+	 * A sub-interface of {@link IntEventStream} that also manages state, like {@link EventStream.Default}.
+	 */
+	public interface Default extends IntEventStream {
+		final static WeakIdentityMap<Object, Set<IntHandler>> eventStreams = new WeakIdentityMap<>();
+
+		@Override
+		public default Set<IntHandler> getHandlers() {
+			return eventStreams.computeIfAbsent(this, k -> new SnapshotSet<>());
+		}
+
+		@Override
+		public default void dispose() {
+			eventStreams.remove(this);
+		}
+	}
+
+	/**
+	 * A sub-interface of {@link IntEventStream.Default} that allows handlers to have priorities, like {@link EventStream.Ranked}.
+	 * Handlers are called by ascending priority, and handlers with the same priority in the order they were attached.
+	 */
+	public interface Ranked extends IntEventStream.Default {
+		@Override
+		public default Set<IntHandler> getHandlers() {
+			return eventStreams.computeIfAbsent(this, k -> new RankedSet<>(IntHandler.Ranked::priorityOf));
+		}
+
+
+		@Override
+		default IntHandler on(IntHandler handler) {
+			return this.on(handler, 0);
+		}
+
+		default IntHandler.Ranked on(IntHandler handler, int priority) {
+			IntHandler.Ranked rankedHandler = new IntHandler.Ranked(handler, priority);
+
+			IntEventStream.Default.super.on(rankedHandler);
+
+			return rankedHandler;
+		}
+
+		@Override
+		default boolean off(IntHandler handler) {
+			if (!(handler instanceof IntHandler.Ranked))
+				handler = new IntHandler.Ranked(handler, 0);
+
+			return IntEventStream.Default.super.off(handler);
+		}
+	}
+}
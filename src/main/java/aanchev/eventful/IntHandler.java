@@ -0,0 +1,54 @@
+package aanchev.eventful;
+
+/**
+ * A {@link Handler} of <code>int</code> events, which are never boxed.
+ *
+ * @see IntEventStream
+ */
+@FunctionalInterface
+public interface IntHandler {
+
+	public void handle(int event) throws VetoEventException, ConsumeEventException;
+
+
+	/**
+	 * A {@link IntHandler} with a priority, as attached by {@link IntEventStream.Ranked}.
+	 * Proxies of the same handler are equal, regardless of their priority.
+	 */
+	public static final class Ranked implements IntHandler {
+		public final IntHandler handler;
+		public final int priority;
+
+
+		public Ranked(IntHandler handler, int priority) {
+			this.handler = handler;
+			this.priority = priority;
+		}
+
+		static int priorityOf(Object handler) {
+			return (handler instanceof Ranked)? ((Ranked) handler).priority : 0;
+		}
+
+
+		@Override
+		public void handle(int event) throws VetoEventException, ConsumeEventException {
+			handler.handle(event);
+		}
+
+
+		/* Proxy Object */
+
+		@Override
+		public boolean equals(Object obj) {
+			if (obj instanceof Ranked)
+				return handler.equals(((Ranked) obj).handler);
+
+			return handler.equals(obj);
+		}
+
+		@Override
+		public int hashCode() {
+			return handler.hashCode();
+		}
+	}
+}
@@ -0,0 +1,77 @@
+package aanchev.eventful;
+
+import java.io.Serializable;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * A filter of event data by a key extracted from it, for {@link Eventful#on(String, Predicate, Handler) filtered subscriptions}.
+ *
+ * <pre>{@code
+ * eventful.on("order-placed", filterBy(Order::getTenant, "acme"), (Order order) -> ...);
+ * }</pre>
+ *
+ * <p>
+ * Unlike other predicates, which are tested for each of their handlers,
+ * the handlers of an event that are filtered by the same key (method) are grouped in a hash index by the expected key,
+ * so firing extracts the key once and calls only the handlers that expect it -
+ * no matter how many handlers (e.g. per tenant) expect other keys.
+ * Keys are compared with {@link Object#equals(Object) equals()}.
+ * </p>
+ *
+ * <p>
+ * Keys are the same if they are the same instance, or lambdas or method references of the same method that capture nothing,
+ * like <code>Order::getTenant</code> anywhere in the code.
+ * </p>
+ *
+ * @param <T> the type of event data
+ * @param <K> the type of the key
+ */
+public final class KeyFilter<T, K> implements Predicate<T> {
+
+	/**
+	 * Extracts the key from the event data.
+	 * It is {@link Serializable} only so that the type of event data can be read from lambdas and method references,
+	 * as with {@link Handler#getEventType()}.
+	 */
+	@FunctionalInterface
+	public interface Key<T, K> extends Function<T, K>, Serializable {}
+
+
+	final Key<T, K> key;
+	final K value;
+
+
+	private KeyFilter(Key<T, K> key, K value) {
+		this.key = key;
+		this.value = value;
+	}
+
+	/**
+	 * @return a filter that accepts the event data whose key equals the given value
+	 */
+	public static <T, K> KeyFilter<T, K> filterBy(Key<T, K> key, K value) {
+		return new KeyFilter<>(key, value);
+	}
+
+
+	/**
+	 * @return the type of event data that the key can be extracted from
+	 */
+	public Class<?> getEventType() {
+		return HandlerTypes.of(key, Key.class, 0);
+	}
+
+	/**
+	 * @return an object that is equal for the filters with the same key
+	 */
+	Object identity() {
+		return HandlerTypes.identityOf(key);
+	}
+
+	@Override
+	public boolean test(T data) {
+		return Objects.equals(key.apply(data), value);
+	}
+}
@@ -0,0 +1,199 @@
+package aanchev.eventful;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The handlers of an event that are filtered by the same {@link KeyFilter.Key key}, by the key they expect.
+ * It is attached to the event as a single handler, which calls only the handlers that expect the key of the event data.
+ *
+ * <p>
+ * The handlers of each key are kept in copy-on-write arrays, in the order they were attached,
+ * so firing takes no locks. <code>null</code> event data has no key, so it is not passed to any of the handlers.
+ * </p>
+ */
+final class KeyIndex implements Handler<Object> {
+	private static final long serialVersionUID = 1L;
+
+	private static final Object NULL = new Object(); // a key, as ConcurrentHashMap does not allow null
+	private static final FilteredHandler<?>[] NONE = {};
+
+
+	private final Object identity;
+	private final KeyFilter.Key<Object, ?> key;
+	private final Class<?> type;
+	private final Map<Object, FilteredHandler<?>[]> byKey = new ConcurrentHashMap<>();
+
+
+	@SuppressWarnings("unchecked")
+	private KeyIndex(KeyFilter<?, ?> filter) {
+		this.identity = filter.identity();
+		this.key = (KeyFilter.Key<Object, ?>) filter.key;
+		this.type = filter.getEventType();
+	}
+
+
+	/* Attaching */
+
+	/**
+	 * Adds the handler to the index of its key, attaching the index to the event first, if there is none yet.
+	 */
+	static void attach(Eventful<?> eventful, String event, FilteredHandler<?> handler) {
+		KeyFilter<?, ?> filter = (KeyFilter<?, ?>) handler.filter;
+		Set<? extends Handler<?>> handlers = eventful.getHandlers(event);
+
+		synchronized (handlers) {
+			KeyIndex index = find(handlers, filter.identity());
+
+			if (index == null) {
+				index = new KeyIndex(filter);
+				index.add(filter.value, handler);
+				on(eventful, event, index);
+			}
+			else
+				index.add(filter.value, handler);
+		}
+	}
+
+	/**
+	 * Removes the handler from the index of its key, detaching the index from the event once it is empty.
+	 *
+	 * @return whether the handler was attached
+	 */
+	static boolean detach(Eventful<?> eventful, String event, FilteredHandler<?> handler) {
+		KeyFilter<?, ?> filter = (KeyFilter<?, ?>) handler.filter;
+		Set<? extends Handler<?>> handlers = eventful.getHandlers().get(event);
+
+		if (handlers == null)
+			return false;
+
+		synchronized (handlers) {
+			KeyIndex index = find(handlers, filter.identity());
+
+			if (index == null || !index.remove(filter.value, handler))
+				return false;
+
+			if (index.byKey.isEmpty())
+				off(eventful, event, index);
+
+			return true;
+		}
+	}
+
+	/**
+	 * @return the handler (behind any proxies) if it is filtered by a key, or <code>null</code> otherwise
+	 */
+	static FilteredHandler<?> keyed(Handler<?> handler) {
+		while (handler instanceof TypedHandler)
+			handler = ((TypedHandler<?>) handler).handler;
+
+		if (handler instanceof FilteredHandler && ((FilteredHandler<?>) handler).filter instanceof KeyFilter)
+			return (FilteredHandler<?>) handler;
+
+		return null;
+	}
+
+	private static KeyIndex find(Set<? extends Handler<?>> handlers, Object identity) {
+		for (Handler<?> handler : handlers) {
+			while (handler instanceof TypedHandler)
+				handler = ((TypedHandler<?>) handler).handler;
+
+			if (handler instanceof KeyIndex && ((KeyIndex) handler).identity.equals(identity))
+				return (KeyIndex) handler;
+		}
+		return null;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <E> void on(Eventful<E> eventful, String event, KeyIndex index) {
+		eventful.on(event, (Handler<E>) (Handler<?>) index);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <E> void off(Eventful<E> eventful, String event, KeyIndex index) {
+		eventful.off(event, (Handler<E>) (Handler<?>) index);
+	}
+
+
+	/* Index */
+
+	private synchronized void add(Object value, FilteredHandler<?> handler) {
+		byKey.merge((value == null)? NULL : value, new FilteredHandler<?>[] {handler}, (handlers, added) -> {
+			FilteredHandler<?>[] merged = Arrays.copyOf(handlers, handlers.length + 1);
+			merged[handlers.length] = added[0];
+			return merged;
+		});
+	}
+
+	private synchronized boolean remove(Object value, FilteredHandler<?> handler) {
+		Object k = (value == null)? NULL : value;
+		FilteredHandler<?>[] handlers = byKey.get(k);
+
+		if (handlers == null)
+			return false;
+
+		for (int i = 0; i < handlers.length; i++) {
+			if (handlers[i] == handler) {
+				FilteredHandler<?>[] remaining = new FilteredHandler<?>[handlers.length - 1];
+				System.arraycopy(handlers, 0, remaining, 0, i);
+				System.arraycopy(handlers, i + 1, remaining, i, remaining.length - i);
+
+				if (remaining.length == 0)
+					byKey.remove(k);
+				else
+					byKey.put(k, remaining);
+
+				return true;
+			}
+		}
+		return false;
+	}
+
+
+	/**
+	 * @return the handlers that expect the key of the event data, in the order they were attached
+	 */
+	FilteredHandler<?>[] handlersOf(Object data) {
+		if (data == null)
+			return NONE;
+
+		Object k = key.apply(data);
+		FilteredHandler<?>[] handlers = byKey.get((k == null)? NULL : k);
+
+		return (handlers == null)? NONE : handlers;
+	}
+
+
+	/* Handler */
+
+	@Override
+	public Signal signal(Object data) throws VetoEventException, ConsumeEventException {
+		for (FilteredHandler<?> handler : handlersOf(data)) {
+			Signal signal = handler.handler.trySignal(data); // the key is already checked
+			if (signal != Signal.CONTINUE)
+				return signal;
+		}
+		return Signal.CONTINUE;
+	}
+
+	@Override
+	public void handle(Object data) throws VetoEventException, ConsumeEventException {
+		switch (signal(data)) {
+			case VETO:
+				throw VetoEventException.INSTANCE;
+
+			case CONSUME:
+				throw ConsumeEventException.INSTANCE;
+
+			default:
+				return;
+		}
+	}
+
+	@Override
+	public Class<?> getEventType() {
+		return type;
+	}
+}
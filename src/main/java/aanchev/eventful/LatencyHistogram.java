@@ -0,0 +1,171 @@
+package aanchev.eventful;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A concurrent histogram of durations (or any non-negative values), in the manner of HdrHistogram.
+ *
+ * <p>
+ * Values are counted in log-linear buckets - every power of two is split into {@value #SUB_BUCKETS} equal buckets -
+ * so any recorded value is known with a relative error of at most 1/{@value #SUB_BUCKETS},
+ * across the whole range of <code>long</code>, in a fixed (and small) number of buckets.
+ * </p>
+ *
+ * <p>
+ * Each bucket is a {@link LongAdder}, created when first needed, so concurrent recording does not contend.
+ * </p>
+ */
+public final class LatencyHistogram {
+	private static final int SUB_BUCKET_BITS = 3;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int BUCKETS = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+
+	private final AtomicReferenceArray<LongAdder> buckets = new AtomicReferenceArray<>(BUCKETS);
+	private final LongAdder count = new LongAdder();
+	private final LongAdder sum = new LongAdder();
+	private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+
+	/* Recording */
+
+	public void record(long value) {
+		if (value < 0)
+			value = 0;
+
+		int index = indexOf(value);
+		LongAdder bucket = buckets.get(index);
+
+		if (bucket == null) {
+			buckets.compareAndSet(index, null, new LongAdder());
+			bucket = buckets.get(index);
+		}
+
+		bucket.increment();
+		count.increment();
+		sum.add(value);
+		max.accumulate(value);
+	}
+
+	public void reset() {
+		for (int i = 0; i < BUCKETS; i++) {
+			LongAdder bucket = buckets.get(i);
+			if (bucket != null)
+				bucket.reset();
+		}
+
+		count.reset();
+		sum.reset();
+		max.reset();
+	}
+
+
+	/* Reading */
+
+	/**
+	 * Takes a (weakly consistent) copy of the recorded values.
+	 */
+	public Snapshot snapshot() {
+		long[] counts = new long[BUCKETS];
+
+		for (int i = 0; i < BUCKETS; i++) {
+			LongAdder bucket = buckets.get(i);
+			if (bucket != null)
+				counts[i] = bucket.sum();
+		}
+
+		return new Snapshot(counts, count.sum(), sum.sum(), max.get());
+	}
+
+	/**
+	 * An immutable copy of a {@link LatencyHistogram}.
+	 */
+	public static final class Snapshot {
+		private final long[] counts;
+		private final long count;
+		private final long sum;
+		private final long max;
+
+		Snapshot(long[] counts, long count, long sum, long max) {
+			this.counts = counts;
+			this.count = count;
+			this.sum = sum;
+			this.max = max;
+		}
+
+		public long count() {
+			return count;
+		}
+
+		public double mean() {
+			return (count == 0)? 0 : (double) sum / count;
+		}
+
+		public long max() {
+			return max;
+		}
+
+		/**
+		 * @param percentile between 0 and 100
+		 * @return the (highest equivalent) value below which the given percentage of the values fall
+		 */
+		public long percentile(double percentile) {
+			long total = 0;
+			for (long c : counts)
+				total += c;
+
+			if (total == 0)
+				return 0;
+
+			long rank = Math.max(1, (long) Math.ceil(total * Math.min(percentile, 100) / 100));
+			long seen = 0;
+
+			for (int i = 0; i < counts.length; i++) {
+				seen += counts[i];
+				if (seen >= rank)
+					return Math.min(highestOf(i), max);
+			}
+
+			return max;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("count=%d mean=%.1f p50=%d p90=%d p99=%d max=%d",
+					count, mean(), percentile(50), percentile(90), percentile(99), max);
+		}
+	}
+
+
+	/* Buckets */
+
+	static int indexOf(long value) {
+		if (value < SUB_BUCKETS)
+			return (int) value;
+
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		int sub = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+
+		return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+	}
+
+	static long lowestOf(int index) {
+		if (index < SUB_BUCKETS)
+			return index;
+
+		int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+		long sub = index % SUB_BUCKETS;
+
+		return (SUB_BUCKETS + sub) << (exponent - SUB_BUCKET_BITS);
+	}
+
+	static long highestOf(int index) {
+		if (index < SUB_BUCKETS)
+			return index;
+
+		int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+		return lowestOf(index) + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+	}
+}
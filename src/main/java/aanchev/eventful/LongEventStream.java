@@ -0,0 +1,131 @@
+package aanchev.eventful;
+
+import java.util.Set;
+
+/**
+ * A primitive specialization of {@link EventStream} for <code>long</code> events,
+ * so firing neither boxes the value nor type-checks it for every handler.
+ *
+ * <p>
+ * Handlers are {@link LongHandler}s and the semantics of {@link VetoEventException} and {@link ConsumeEventException}
+ * are the same as with {@link EventStream}.
+ * </p>
+ *
+ * <p>
+ * The {@link LongEventStream.Default} interface manages state like {@link EventStream.Default} does,
+ * but keeps the handlers in a copy-on-write snapshot, so {@link #fire(long) fire()} does not allocate
+ * (and is thread-safe).
+ * The {@link LongEventStream.Ranked} interface adds priorities, like {@link EventStream.Ranked}.
+ * </p>
+ *
+ * @see EventStream
+ */
+public interface LongEventStream {
+
+	/* State Getters */
+	// may need overriding
+
+	public Set<LongHandler> getHandlers();
+
+
+	/* Handler/Listener Attaching */
+
+	public default LongHandler on(LongHandler handler) {
+		getHandlers().add(handler);
+		return handler;
+	}
+
+	public default boolean off(LongHandler handler) {
+		return getHandlers().remove(handler);
+	}
+
+	/**
+	 * Detaches all handlers, eagerly.
+	 *
+	 * @see EventStream#dispose()
+	 */
+	public default void dispose() {
+		getHandlers().clear();
+	}
+
+
+	/* Firing of Events */
+
+	public default boolean fire(long data) {
+		Set<LongHandler> handlers = getHandlers();
+
+		try {
+			if (handlers instanceof Snapshotting) {
+				for (Object handler : ((Snapshotting) handlers).snapshot()) {
+					((LongHandler) handler).handle(data);
+				}
+			}
+			else {
+				for (LongHandler handler : handlers) {
+					handler.handle(data);
+				}
+			}
+
+			return true;
+		}
+		catch (VetoEventException e) {
+			return false;
+		}
+		catch (ConsumeEventException e) {
+			return true;
+		}
+	}
+
+
+	/* Specialized Implementations */
+
+	/**
+	 * A sub-interface of {@link LongEventStream} that also manages state, like {@link EventStream.Default}.
+	 */
+	public interface Default extends LongEventStream {
+		final static WeakIdentityMap<Object, Set<LongHandler>> eventStreams = new WeakIdentityMap<>();
+
+		@Override
+		public default Set<LongHandler> getHandlers() {
+			return eventStreams.computeIfAbsent(this, k -> new SnapshotSet<>());
+		}
+
+		@Override
+		public default void dispose() {
+			eventStreams.remove(this);
+		}
+	}
+
+	/**
+	 * A sub-interface of {@link LongEventStream.Default} that allows handlers to have priorities, like {@link EventStream.Ranked}.
+	 * Handlers are called by ascending priority, and handlers with the same priority in the order they were attached.
+	 */
+	public interface Ranked extends LongEventStream.Default {
+		@Override
+		public default Set<LongHandler> getHandlers() {
+			return eventStreams.computeIfAbsent(this, k -> new RankedSet<>(LongHandler.Ranked::priorityOf));
+		}
+
+
+		@Override
+		default LongHandler on(LongHandler handler) {
+			return this.on(handler, 0);
+		}
+
+		default LongHandler.Ranked on(LongHandler handler, int priority) {
+			LongHandler.Ranked rankedHandler = new LongHandler.Ranked(handler, priority);
+
+			LongEventStream.Default.super.on(rankedHandler);
+
+			return rankedHandler;
+		}
+
+		@Override
+		default boolean off(LongHandler handler) {
+			if (!(handler instanceof LongHandler.Ranked))
+				handler = new LongHandler.Ranked(handler, 0);
+
+			return LongEventStream.Default.super.off(handler);
+		}
+	}
+}
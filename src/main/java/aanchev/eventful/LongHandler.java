@@ -0,0 +1,54 @@
+package aanchev.eventful;
+
+/**
+ * A {@link Handler} of <code>long</code> events, which are never boxed.
+ *
+ * @see LongEventStream
+ */
+@FunctionalInterface
+public interface LongHandler {
+
+	public void handle(long event) throws VetoEventException, ConsumeEventException;
+
+
+	/**
+	 * A {@link LongHandler} with a priority, as attached by {@link LongEventStream.Ranked}.
+	 * Proxies of the same handler are equal, regardless of their priority.
+	 */
+	public static final class Ranked implements LongHandler {
+		public final LongHandler handler;
+		public final int priority;
+
+
+		public Ranked(LongHandler handler, int priority) {
+			this.handler = handler;
+			this.priority = priority;
+		}
+
+		static int priorityOf(Object handler) {
+			return (handler instanceof Ranked)? ((Ranked) handler).priority : 0;
+		}
+
+
+		@Override
+		public void handle(long event) throws VetoEventException, ConsumeEventException {
+			handler.handle(event);
+		}
+
+
+		/* Proxy Object */
+
+		@Override
+		public boolean equals(Object obj) {
+			if (obj instanceof Ranked)
+				return handler.equals(((Ranked) obj).handler);
+
+			return handler.equals(obj);
+		}
+
+		@Override
+		public int hashCode() {
+			return handler.hashCode();
+		}
+	}
+}
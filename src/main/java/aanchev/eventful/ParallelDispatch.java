@@ -0,0 +1,55 @@
+package aanchev.eventful;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Invokes handlers concurrently, each as a separate task of an {@link Executor}.
+ *
+ * <p>
+ * The first handler to throw {@link VetoEventException} or {@link ConsumeEventException} decides the outcome,
+ * and handlers that have not started by then are skipped.
+ * Handlers that are already running cannot be stopped, of course.
+ * </p>
+ */
+final class ParallelDispatch {
+	private static final int RUNNING = 0;
+	private static final int VETOED = 1;
+	private static final int CONSUMED = 2;
+
+
+	private ParallelDispatch() {}
+
+
+	public static CompletableFuture<Boolean> fire(Handler<Object>[] handlers, Object data, Executor executor) {
+		if (handlers.length == 0)
+			return CompletableFuture.completedFuture(true);
+
+		AtomicInteger outcome = new AtomicInteger(RUNNING);
+		CompletableFuture<?>[] invocations = new CompletableFuture<?>[handlers.length];
+
+		for (int i = 0; i < handlers.length; i++) {
+			Handler<Object> handler = handlers[i];
+
+			invocations[i] = CompletableFuture.runAsync(() -> {
+				if (outcome.get() != RUNNING)
+					return;
+
+				try {
+					Signal signal = handler.signal(data);
+					if (signal != Signal.CONTINUE)
+						outcome.compareAndSet(RUNNING, (signal == Signal.VETO)? VETOED : CONSUMED);
+				}
+				catch (VetoEventException e) {
+					outcome.compareAndSet(RUNNING, VETOED);
+				}
+				catch (ConsumeEventException e) {
+					outcome.compareAndSet(RUNNING, CONSUMED);
+				}
+			}, executor);
+		}
+
+		return CompletableFuture.allOf(invocations).thenApply(done -> outcome.get() != VETOED);
+	}
+}
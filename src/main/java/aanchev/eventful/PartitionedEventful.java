@@ -0,0 +1,206 @@
+package aanchev.eventful;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collector;
+
+import aanchev.eventful.EventRingBuffer.Overflow;
+import aanchev.eventful.EventRingBuffer.WaitStrategy;
+
+/**
+ * An {@link Eventful} in front of another one, which fires the events on a fixed number of threads ("lanes"),
+ * choosing the lane by a key extracted from the event data - so events with the same key are handled in the order they were fired,
+ * one at a time, while events with different keys are handled in parallel.
+ *
+ * <pre>{@code
+ * PartitionedEventful<Order> orders = new PartitionedEventful<>(eventful, 8, Order::getAccountId);
+ *orders.fire("order-placed", order); // handled on the lane of the account
+ * }</pre>
+ *
+ * <p>
+ * Each lane is an {@link EventRingBuffer} with a single consumer, so firing does not lock,
+ * but it does wait while the lane is full.
+ * Firing returns <code>true</code> right away, as the outcome is not known yet,
+ * and exceptions thrown by handlers are reported to the uncaught exception handler of the lane.
+ * Events with <code>null</code> data are all handled on the first lane.
+ * </p>
+ *
+ * <p>
+ * Everything except firing is delegated to the target, which is used from all lanes at once,
+ * so it should be thread-safe (e.g. {@link Eventful.Concurrent}).
+ * That includes attaching {@link #on(String, java.util.function.Predicate, Handler) filtered} handlers,
+ * whose filter is therefore tested on the lane of the event, along with the handler.
+ * </p>
+ *
+ * @param <E> the type of event data of the target
+ */
+public class PartitionedEventful<E> extends ForwardingEventful<E> implements AutoCloseable {
+	public static final int DEFAULT_CAPACITY = 1024;
+
+
+	private final Function<? super E, ?> key;
+	private final List<EventRingBuffer<E>> lanes;
+
+
+	/* Constructors */
+
+	/**
+	 * Starts a lane per available processor.
+	 *
+	 * @see #PartitionedEventful(Eventful, int, Function)
+	 */
+	public PartitionedEventful(Eventful<E> target, Function<? super E, ?> key) {
+		this(target, Runtime.getRuntime().availableProcessors(), key);
+	}
+
+	public PartitionedEventful(Eventful<E> target, int lanes, Function<? super E, ?> key) {
+		this(target, lanes, key, DEFAULT_CAPACITY, WaitStrategy.PARK, daemonThreads());
+	}
+
+	/**
+	 * @param target the eventful instance to fire the events on
+	 * @param lanes the number of lanes (threads) to start
+	 * @param key extracts the key of the event data; events with equal keys are handled on the same lane
+	 * @param capacity the number of events each lane can hold, rounded up to a power of two
+	 * @param waitStrategy how idle lanes, and firing threads of full lanes, wait
+	 * @param threadFactory creates the lane threads
+	 */
+	public PartitionedEventful(Eventful<E> target, int lanes, Function<? super E, ?> key, int capacity, WaitStrategy waitStrategy, ThreadFactory threadFactory) {
+		super(target);
+
+		if (lanes < 1)
+			throw new IllegalArgumentException("There must be at least one lane");
+
+		this.key = key;
+		this.lanes = new ArrayList<>(lanes);
+
+		for (int i = 0; i < lanes; i++)
+			this.lanes.add(new EventRingBuffer<>(target, capacity, 1, waitStrategy, Overflow.BLOCK, threadFactory));
+	}
+
+	private static ThreadFactory daemonThreads() {
+		AtomicInteger count = new AtomicInteger();
+
+		return runnable -> {
+			Thread thread = new Thread(runnable, "eventful-lane-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+
+
+	/* Lanes */
+
+	public int lanes() {
+		return lanes.size();
+	}
+
+	/**
+	 * @return the index of the lane that handles the given event data
+	 */
+	public int laneOf(E data) {
+		if (data == null)
+			return 0;
+
+		Object k = key.apply(data);
+		if (k == null)
+			return 0;
+
+		int h = k.hashCode();
+		h ^= (h >>> 16); // as in HashMap, so keys that differ only in the high bits are spread as well
+
+		return (h & Integer.MAX_VALUE) % lanes.size();
+	}
+
+	/**
+	 * @return the (approximate) number of events waiting to be handled
+	 */
+	public int pending() {
+		int pending = 0;
+		for (EventRingBuffer<E> lane : lanes)
+			pending += lane.size();
+		return pending;
+	}
+
+
+	/* Firing of Events */
+
+	/**
+	 * Queues the event on the lane of its key.
+	 *
+	 * @return always <code>true</code>, as the event is fired later
+	 * @throws IllegalStateException if this instance has been closed
+	 */
+	@Override
+	public boolean fire(String event, E data) {
+		lanes.get(laneOf(data)).publish(event, data);
+		return true;
+	}
+
+	@Override
+	public <T extends E> boolean fire(EventKey<T> key, T data) {
+		return fire(key.name(), data);
+	}
+
+	/**
+	 * Queues every event on the lane of its key.
+	 *
+	 * @return no vetoed events, as they are fired later
+	 */
+	@Override
+	public BitSet fireAll(String event, Collection<? extends E> data) {
+		for (E d : data)
+			fire(event, d);
+
+		return new BitSet();
+	}
+
+	/**
+	 * Queues the event on the lane of its key, like {@link #fire(String, Object) fire},
+	 * as firing its handlers in parallel would break the ordering.
+	 */
+	@Override
+	public CompletableFuture<Boolean> fireParallel(String event, E data, Executor executor) {
+		return CompletableFuture.completedFuture(fire(event, data));
+	}
+
+	/**
+	 * Not supported, as the responses would have to be collected on the calling thread,
+	 * ahead of the events of the same key still queued - ask the {@link #getTarget() target} directly, if that is fine.
+	 *
+	 * @throws UnsupportedOperationException always
+	 */
+	@Override
+	public <R, A, T> T ask(String event, E data, Collector<? super R, A, T> collector) {
+		throw new UnsupportedOperationException("Asking would break the order of the events of " + event + " with the same key");
+	}
+
+	/**
+	 * @throws UnsupportedOperationException always
+	 * @see #ask(String, Object, Collector)
+	 */
+	@Override
+	public <T extends E, R, A, U> U ask(EventKey<T> key, T data, Collector<? super R, A, U> collector) {
+		return ask(key.name(), data, collector);
+	}
+
+
+	/* Lifecycle */
+
+	/**
+	 * Stops accepting events and waits for the lanes to handle the ones already queued,
+	 * including those still being fired by other threads - see {@link EventRingBuffer#close()}.
+	 */
+	@Override
+	public void close() {
+		for (EventRingBuffer<E> lane : lanes)
+			lane.close();
+	}
+}
@@ -1,60 +1,61 @@
 package aanchev.eventful;
 
+import java.util.concurrent.atomic.AtomicLong;
+
+
+public class RankedHandler<DATA> extends TypedHandler<DATA> implements Comparable<RankedHandler<DATA>> {
+	private static final long serialVersionUID = 1L;
+
+	private static final AtomicLong sequence = new AtomicLong();
 
-public class RankedHandler<DATA> implements Handler<DATA>, Comparable<RankedHandler<DATA>> {
-	private final Handler<DATA> handler;
 	public final int priority;
-	
-	
+	private final long order = sequence.getAndIncrement();
+
+
 	/* Constructors */
-	
+
 	public RankedHandler(Handler<DATA> handler, int priority) {
-		this.handler = handler;
+		super(handler, handler.getEventType(), true);
 		this.priority = priority;
 	}
 
-	
-	/* Proxy Handler */
-	
-	public void handle(DATA event) throws VetoEventException, ConsumeEventException {
-		handler.handle(event);
-	}
-	
-	@Override
-	public boolean tryHandle(Object data) throws VetoEventException, ConsumeEventException {
-		return handler.tryHandle(data);
+	public RankedHandler(Handler<DATA> handler, Class<?> type, int priority) {
+		super(handler, type, false);
+		this.priority = priority;
 	}
-	
-	
+
+
 	/* Comparable Contract  */
-	
+
+	/**
+	 * Orders by priority, and handlers of the same priority by their creation.
+	 * Consistent with {@link #equals(Object) equals()}, as proxies of the same handler compare as equal.
+	 */
 	@Override
 	public int compareTo(RankedHandler<DATA> other) {
-		if (this.handler == other.handler)
+		if (this.handler.equals(other.handler))
 			return 0;
-		
-		return Integer.compare(this.priority, other.priority);
+
+		int c = Integer.compare(this.priority, other.priority);
+		return (c != 0)? c : Long.compare(this.order, other.order);
 	}
-	
-	
+
+
 	/* Proxy Object */
-	
+
 	@Override
 	public boolean equals(Object obj) {
 		if (obj instanceof RankedHandler) {
 			@SuppressWarnings("rawtypes")
 			RankedHandler other = (RankedHandler) obj;
-			return ((this.handler.equals(other.handler)) );//&& (this.priority == other.priority));	
+			return ((this.handler.equals(other.handler)) );//&& (this.priority == other.priority));
 		}
 
-		if (obj instanceof Handler)
-			return this.handler.equals(obj);
-
-		return false;
+		return super.equals(obj);
 	}
-	
+
 	@Override
 	public int hashCode() {
 		return handler.hashCode(); // + priority;
 	}
-}
\ No newline at end of file
+}
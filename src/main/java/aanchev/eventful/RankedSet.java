@@ -0,0 +1,241 @@
+package aanchev.eventful;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.ToIntFunction;
+
+/**
+ * A {@link java.util.Set Set} of handlers that iterates them by ascending {@link RankedHandler#priority priority}
+ * (or another given priority), and handlers with equal priority in the order they were added
+ * (other handlers have a priority of <code>0</code>).
+ *
+ * <p>
+ * The elements are kept in a sorted, immutable array, which is rebuilt by every modification,
+ * so iteration costs nothing beyond walking that array and is never affected by concurrent modifications.
+ * The position of each element is indexed by a hash map,
+ * so finding the element to remove takes a hash lookup and a binary search,
+ * even though handlers are usually removed through a proxy of a different priority.
+ * </p>
+ *
+ * <p>
+ * Modifications are serialized, so the set is thread-safe.
+ * </p>
+ */
+class RankedSet<E> extends AbstractSet<E> implements Snapshotting {
+
+	/**
+	 * The sort key of an element - its priority, and the order of its addition among equal priorities.
+	 */
+	private static final class Position {
+		final int priority;
+		final long sequence;
+
+		Position(int priority, long sequence) {
+			this.priority = priority;
+			this.sequence = sequence;
+		}
+
+		int compareTo(int priority, long sequence) {
+			int c = Integer.compare(this.priority, priority);
+			return (c != 0)? c : Long.compare(this.sequence, sequence);
+		}
+	}
+
+	/**
+	 * The elements and their sort keys, in order. Never modified once published.
+	 */
+	private static final class Snapshot {
+		static final Snapshot EMPTY = new Snapshot(new Object[0], new int[0], new long[0]);
+
+		final Object[] elements;
+		final int[] priorities;
+		final long[] sequences;
+
+		Snapshot(Object[] elements, int[] priorities, long[] sequences) {
+			this.elements = elements;
+			this.priorities = priorities;
+			this.sequences = sequences;
+		}
+
+		int search(Position position) {
+			int low = 0, high = elements.length - 1;
+
+			while (low <= high) {
+				int mid = (low + high) >>> 1;
+				int c = position.compareTo(priorities[mid], sequences[mid]);
+
+				if (c > 0)
+					low = mid + 1;
+				else if (c < 0)
+					high = mid - 1;
+				else
+					return mid;
+			}
+
+			return -(low + 1);
+		}
+	}
+
+
+	private final ToIntFunction<Object> priority;
+	private volatile Snapshot snapshot = Snapshot.EMPTY;
+	private final Map<Object, Position> positions = new HashMap<>(); // guarded by this
+	private long sequence = 0; // guarded by this
+
+
+	/* Constructors */
+
+	public RankedSet() {
+		this(RankedSet::priority);
+	}
+
+	/**
+	 * @param priority gets the priority of an element
+	 */
+	public RankedSet(ToIntFunction<Object> priority) {
+		this.priority = priority;
+	}
+
+
+	/* Snapshot Access */
+
+	@Override
+	public Object[] snapshot() {
+		return snapshot.elements;
+	}
+
+	@Override
+	public Iterator<E> iterator() {
+		Object[] elements = snapshot.elements;
+
+		return new Iterator<E>() {
+			private int i = 0;
+
+			@Override
+			public boolean hasNext() {
+				return i < elements.length;
+			}
+
+			@SuppressWarnings("unchecked")
+			@Override
+			public E next() {
+				if (i >= elements.length)
+					throw new NoSuchElementException();
+
+				return (E) elements[i++];
+			}
+
+			@Override
+			public void remove() {
+				if (i == 0)
+					throw new IllegalStateException();
+
+				RankedSet.this.remove(elements[i - 1]);
+			}
+		};
+	}
+
+	@Override
+	public int size() {
+		return snapshot.elements.length;
+	}
+
+	@Override
+	public synchronized boolean contains(Object o) {
+		return positions.containsKey(o);
+	}
+
+
+	/* Modification */
+
+	@Override
+	public synchronized boolean add(E e) {
+		if (positions.containsKey(e))
+			return false;
+
+		Position position = new Position(priority.applyAsInt(e), sequence++);
+		Snapshot current = this.snapshot;
+		int at = -(current.search(position) + 1); // always after the equal priorities, as the sequence is the greatest
+
+		this.snapshot = new Snapshot(
+				insert(current.elements, at, e),
+				insert(current.priorities, at, position.priority),
+				insert(current.sequences, at, position.sequence));
+
+		positions.put(e, position);
+		return true;
+	}
+
+	@Override
+	public synchronized boolean remove(Object o) {
+		Position position = positions.remove(o);
+		if (position == null)
+			return false;
+
+		Snapshot current = this.snapshot;
+		int at = current.search(position);
+
+		this.snapshot = new Snapshot(
+				delete(current.elements, at),
+				delete(current.priorities, at),
+				delete(current.sequences, at));
+
+		return true;
+	}
+
+	@Override
+	public synchronized void clear() {
+		positions.clear();
+		snapshot = Snapshot.EMPTY;
+	}
+
+
+	/* Helpers */
+
+	static int priority(Object handler) {
+		return (handler instanceof RankedHandler)? ((RankedHandler<?>) handler).priority : 0;
+	}
+
+	private static Object[] insert(Object[] array, int at, Object value) {
+		Object[] updated = Arrays.copyOf(array, array.length + 1);
+		System.arraycopy(array, at, updated, at + 1, array.length - at);
+		updated[at] = value;
+		return updated;
+	}
+
+	private static int[] insert(int[] array, int at, int value) {
+		int[] updated = Arrays.copyOf(array, array.length + 1);
+		System.arraycopy(array, at, updated, at + 1, array.length - at);
+		updated[at] = value;
+		return updated;
+	}
+
+	private static long[] insert(long[] array, int at, long value) {
+		long[] updated = Arrays.copyOf(array, array.length + 1);
+		System.arraycopy(array, at, updated, at + 1, array.length - at);
+		updated[at] = value;
+		return updated;
+	}
+
+	private static Object[] delete(Object[] array, int at) {
+		Object[] updated = Arrays.copyOf(array, array.length - 1);
+		System.arraycopy(array, at + 1, updated, at, array.length - at - 1);
+		return updated;
+	}
+
+	private static int[] delete(int[] array, int at) {
+		int[] updated = Arrays.copyOf(array, array.length - 1);
+		System.arraycopy(array, at + 1, updated, at, array.length - at - 1);
+		return updated;
+	}
+
+	private static long[] delete(long[] array, int at) {
+		long[] updated = Arrays.copyOf(array, array.length - 1);
+		System.arraycopy(array, at + 1, updated, at, array.length - at - 1);
+		return updated;
+	}
+}
@@ -0,0 +1,37 @@
+package aanchev.eventful;
+
+/**
+ * A {@link Handler} that answers the event with a result,
+ * which {@link Eventful#ask(String, Object, java.util.stream.Collector) ask()} collects.
+ *
+ * <p>
+ * Being a {@link Handler}, it is attached like any other, but lambdas need a cast to select this interface:
+ * <pre>{@code
+ * eventful.on("price-of", (Responder<Item, Price>) item -> catalog.priceOf(item));
+ *Optional<Price> price = eventful.ask("price-of", item, Responses.first());
+ * }</pre>
+ * When the event is {@link Eventful#fire(String, Object) fired} instead, the result is ignored.
+ * </p>
+ *
+ * @param <DATA> the type of event data
+ * @param <R> the type of result
+ */
+@FunctionalInterface
+@SuppressWarnings("serial")
+public interface Responder<DATA, R> extends Handler<DATA> {
+
+	public R respond(DATA event) throws VetoEventException, ConsumeEventException;
+
+	@Override
+	public default void handle(DATA event) throws VetoEventException, ConsumeEventException {
+		respond(event);
+	}
+
+	/**
+	 * @return the (erased) parameter type of {@link #respond(Object)}
+	 */
+	@Override
+	public default Class<?> getEventType() {
+		return HandlerTypes.of(this, Responder.class, 0);
+	}
+}
@@ -0,0 +1,101 @@
+package aanchev.eventful;
+
+import java.util.function.BiConsumer;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.stream.Collector;
+
+/**
+ * Fires an event and collects the results of the {@link Responder}s among its handlers.
+ *
+ * <p>
+ * The handlers are called in order, as when firing - the other handlers are called as well, without a result.
+ * The results are accumulated as they come, straight into the container of the collector,
+ * and a {@link Responses.ShortCircuiting short-circuiting} collector stops the dispatch once it is done.
+ * So does a {@link VetoEventException} or {@link ConsumeEventException}, but the results so far are still collected.
+ * </p>
+ *
+ * <p>
+ * Responders behind a filter ({@link FilteredHandler}, or the {@link KeyIndex} of keyed ones) answer as well,
+ * if the event data passes their filter.
+ * </p>
+ */
+final class ResponseDispatch {
+
+	private ResponseDispatch() {}
+
+
+	/**
+	 * @param handlers the handlers that accept the event data, in invocation order
+	 * @return the collected results
+	 */
+	@SuppressWarnings("unchecked")
+	public static <R, A, T> T ask(Handler<Object>[] handlers, Object data, Collector<? super R, A, T> collector) {
+		A container = collector.supplier().get();
+		BiConsumer<A, ? super R> accumulator = collector.accumulator();
+		Responses.ShortCircuiting<?, A, ?> shortCircuiting = (collector instanceof Responses.ShortCircuiting)? (Responses.ShortCircuiting<?, A, ?>) collector : null;
+
+		BooleanSupplier done = (shortCircuiting == null)? () -> false : () -> shortCircuiting.isDone(container);
+		Consumer<Object> results = result -> accumulator.accept(container, (R) result);
+
+		try {
+			for (Handler<Object> handler : handlers) {
+				if (done.getAsBoolean() || ask(handler, data, results, done) != Signal.CONTINUE)
+					break;
+			}
+		}
+		catch (VetoEventException | ConsumeEventException e) {
+			// stops asking
+		}
+
+		return collector.finisher().apply(container);
+	}
+
+	/**
+	 * Calls the handler as when firing, but passes on the result if it is a responder - also one behind a filter.
+	 *
+	 * @param handler a handler that accepts the event data
+	 * @return the signal of the handler, as when firing
+	 */
+	@SuppressWarnings("unchecked")
+	private static Signal ask(Handler<?> handler, Object data, Consumer<Object> results, BooleanSupplier done) throws VetoEventException, ConsumeEventException {
+		Handler<?> target = unwrap(handler);
+
+		if (target instanceof Responder) {
+			results.accept(((Responder<Object, ?>) target).respond(data));
+			return Signal.CONTINUE;
+		}
+
+		if (target instanceof FilteredHandler) {
+			FilteredHandler<Object> filtered = (FilteredHandler<Object>) target;
+			return filtered.filter.test(data)? ask(filtered.handler, data, results, done) : Signal.CONTINUE;
+		}
+
+		if (target instanceof KeyIndex) {
+			for (FilteredHandler<?> keyed : ((KeyIndex) target).handlersOf(data)) { // the key is already checked
+				if (done.getAsBoolean())
+					break;
+
+				if (!keyed.handler.getEventType().isInstance(data))
+					continue;
+
+				Signal signal = ask(keyed.handler, data, results, done);
+				if (signal != Signal.CONTINUE)
+					return signal;
+			}
+			return Signal.CONTINUE;
+		}
+
+		return ((Handler<Object>) handler).signal(data);
+	}
+
+	/**
+	 * @return the handler that the (typed or ranked) proxies wrap
+	 */
+	private static Handler<?> unwrap(Handler<?> handler) {
+		while (handler instanceof TypedHandler)
+			handler = ((TypedHandler<?>) handler).handler;
+
+		return handler;
+	}
+}
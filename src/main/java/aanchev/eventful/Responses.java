@@ -0,0 +1,112 @@
+package aanchev.eventful;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collector;
+
+/**
+ * {@link Collector}s for the results of {@link Responder}s - see {@link Eventful#ask(String, Object, Collector) ask()}.
+ * Any collector can be used, e.g. from {@link java.util.stream.Collectors}, but only {@link ShortCircuiting} ones
+ * stop asking the remaining handlers once they have their answer.
+ */
+public final class Responses {
+
+	private Responses() {}
+
+
+	/**
+	 * A {@link Collector} that can tell when it is done, so no more results need to be accumulated.
+	 */
+	public interface ShortCircuiting<T, A, R> extends Collector<T, A, R> {
+		/**
+		 * @return whether accumulating more results would not change the outcome
+		 */
+		public boolean isDone(A container);
+	}
+
+
+	/**
+	 * Stops asking once the given collector is done.
+	 *
+	 * @param done tells whether the container of the collector is done
+	 */
+	public static <T, A, R> ShortCircuiting<T, A, R> shortCircuit(Collector<T, A, R> collector, Predicate<? super A> done) {
+		return new ShortCircuiting<T, A, R>() {
+			@Override
+			public Supplier<A> supplier() {
+				return collector.supplier();
+			}
+
+			@Override
+			public BiConsumer<A, T> accumulator() {
+				return collector.accumulator();
+			}
+
+			@Override
+			public BinaryOperator<A> combiner() {
+				return collector.combiner();
+			}
+
+			@Override
+			public Function<A, R> finisher() {
+				return collector.finisher();
+			}
+
+			@Override
+			public Set<Characteristics> characteristics() {
+				return collector.characteristics();
+			}
+
+			@Override
+			public boolean isDone(A container) {
+				return done.test(container);
+			}
+		};
+	}
+
+	/**
+	 * Answers with the first non-<code>null</code> result, and stops asking as soon as there is one.
+	 */
+	public static <T> ShortCircuiting<T, ?, Optional<T>> first() {
+		return shortCircuit(Collector.<T, Object[], Optional<T>>of(
+				() -> new Object[1],
+				(box, result) -> { if (box[0] == null) box[0] = result; },
+				(box, other) -> (box[0] != null)? box : other,
+				Responses::unbox), box -> box[0] != null);
+	}
+
+	/**
+	 * Answers with whether any result matches the predicate, and stops asking as soon as one does.
+	 */
+	public static <T> ShortCircuiting<T, ?, Boolean> anyMatch(Predicate<? super T> predicate) {
+		return shortCircuit(Collector.<T, boolean[], Boolean>of(
+				() -> new boolean[1],
+				(box, result) -> box[0] |= predicate.test(result),
+				(box, other) -> box[0]? box : other,
+				box -> box[0]), box -> box[0]);
+	}
+
+	/**
+	 * Answers with the first <code>limit</code> non-<code>null</code> results, and stops asking once there are as many.
+	 */
+	public static <T> ShortCircuiting<T, ?, List<T>> limit(int limit) {
+		return shortCircuit(Collector.<T, List<T>, List<T>>of(
+				ArrayList::new,
+				(list, result) -> { if (result != null && list.size() < limit) list.add(result); },
+				(list, other) -> { other.stream().limit(limit - list.size()).forEach(list::add); return list; },
+				Collections::unmodifiableList), list -> list.size() >= limit);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> Optional<T> unbox(Object[] box) {
+		return Optional.ofNullable((T) box[0]);
+	}
+}
@@ -0,0 +1,204 @@
+package aanchev.eventful;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+
+/**
+ * The dispatchers of a sealed {@link Eventful} or {@link EventStream} - one per event name -
+ * each compiled from the handlers of the event into a single {@link MethodHandle},
+ * which checks the event type of every handler and calls it directly, in order.
+ *
+ * <p>
+ * Firing through a dispatcher does not iterate a collection nor look up the handlers matching the event data class,
+ * and does not go through the (megamorphic) handler proxies.
+ * The handlers and their event types are bound into the method handle as constants,
+ * so once the JIT customizes a frequently invoked dispatcher (as HotSpot does since 8u60),
+ * the type checks become plain <code>instanceof</code> checks and the handlers can be inlined into it.
+ * </p>
+ *
+ * <p>
+ * A dispatcher is compiled the first time its event is fired after sealing, and is dropped by any change of the handlers -
+ * the convenience sub-interfaces unseal themselves on <code>on()</code> and <code>off()</code>.
+ * Events without handlers get no dispatcher, so firing arbitrary names does not accumulate them.
+ * The dispatch does not refer to the sealed instance, which passes itself to every call -
+ * so it can be kept in a map weakly keyed by that instance.
+ * So only seal instances whose handlers are stable.
+ * Events with more than {@value #MAX_COMPILED} handlers are not compiled, as checking each of them would cost more
+ * than looking up the matching ones - they are dispatched through that lookup instead.
+ * </p>
+ */
+public final class SealedDispatch {
+	static final int MAX_COMPILED = 64;
+
+	private static final Object NO_KEY = new Object();
+
+	private static final MethodHandle SIGNAL;
+	private static final MethodHandle ACCEPTS;
+	private static final MethodHandle IS_CONTINUE;
+	private static final MethodHandle CONTINUE;
+	private static final MethodHandle DISPATCH;
+
+
+	/**
+	 * Gets the handlers of an event (name) of the sealed instance that accept the given event data, in invocation order.
+	 */
+	@FunctionalInterface
+	interface Matching {
+		Handler<Object>[] apply(Object owner, Object key, Object data);
+	}
+
+
+	static {
+		try {
+			MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+			SIGNAL = lookup.findVirtual(Handler.class, "signal", MethodType.methodType(Signal.class, Object.class));
+			ACCEPTS = lookup.findStatic(SealedDispatch.class, "accepts", MethodType.methodType(boolean.class, Class.class, Object.class));
+			IS_CONTINUE = lookup.findStatic(SealedDispatch.class, "isContinue", MethodType.methodType(boolean.class, Signal.class));
+			CONTINUE = MethodHandles.dropArguments(MethodHandles.constant(Signal.class, Signal.CONTINUE), 0, Object.class);
+			DISPATCH = lookup.findVirtual(SealedDispatch.class, "dispatch", MethodType.methodType(Signal.class, Object.class, Object.class, Object.class));
+		}
+		catch (ReflectiveOperationException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+
+	private final BiFunction<Object, Object, Iterable<? extends Handler<?>>> handlers;
+	private final Matching matching;
+	private final Map<Object, MethodHandle> dispatchers = new ConcurrentHashMap<>(); // of type (Object owner, Object data)Signal
+
+
+	/**
+	 * The functions get the sealed instance as their first argument, so they should not capture it.
+	 *
+	 * @param handlers gets all handlers of an event (name) of the sealed instance, in invocation order
+	 * @param matching gets the handlers of an event (name) that accept the given event data
+	 */
+	SealedDispatch(BiFunction<Object, Object, Iterable<? extends Handler<?>>> handlers, Matching matching) {
+		this.handlers = handlers;
+		this.matching = matching;
+	}
+
+
+	/* Dispatch */
+
+	/**
+	 * Calls the handlers of the event that accept the given event data, in order, until one of them stops the event.
+	 *
+	 * @param owner the sealed instance
+	 * @param key the event name, or <code>null</code> for an {@link EventStream}
+	 * @return how the event was stopped, or {@link Signal#CONTINUE} if it was not
+	 */
+	public Signal signal(Object owner, Object key, Object data) throws VetoEventException, ConsumeEventException {
+		Object k = (key == null)? NO_KEY : key;
+		MethodHandle dispatcher = dispatchers.get(k);
+
+		if (dispatcher == null) {
+			dispatcher = dispatchers.computeIfAbsent(k, x -> compile(owner, key));
+			if (dispatcher == null) // no handlers, which is not cached
+				return Signal.CONTINUE;
+		}
+
+		try {
+			return (Signal) dispatcher.invokeExact(owner, data);
+		}
+		catch (VetoEventException | ConsumeEventException | RuntimeException | Error e) {
+			throw e;
+		}
+		catch (Throwable t) { // handlers cannot throw other checked exceptions, but the compiler cannot tell
+			throw new IllegalStateException(t);
+		}
+	}
+
+
+	/* Compilation */
+
+	/**
+	 * @return the number of events with a dispatcher
+	 */
+	int compiled() {
+		return dispatchers.size();
+	}
+
+
+	/**
+	 * @return a method handle of type <code>(Object owner, Object data)Signal</code>, or <code>null</code> if the event has no handlers
+	 */
+	private MethodHandle compile(Object owner, Object key) {
+		Iterable<? extends Handler<?>> handlers = this.handlers.apply(owner, key);
+
+		List<Handler<?>> list = new ArrayList<>();
+		if (handlers != null) {
+			for (Handler<?> handler : handlers)
+				list.add(handler);
+		}
+
+		if (list.isEmpty())
+			return null;
+
+		if (list.size() > MAX_COMPILED)
+			return MethodHandles.insertArguments(DISPATCH, 3, key).bindTo(this);
+
+		MethodHandle dispatcher = CONTINUE;
+		for (int i = list.size() - 1; i >= 0; i--)
+			dispatcher = step(list.get(i), dispatcher);
+
+		return MethodHandles.dropArguments(dispatcher, 0, Object.class); // the handlers are bound, not looked up on the owner
+	}
+
+	/**
+	 * @return <code>data -> { Signal s = (handler accepts data)? handler.signal(data) : CONTINUE; return (s == CONTINUE)? rest(data) : s; }</code>
+	 */
+	private static MethodHandle step(Handler<?> handler, MethodHandle rest) {
+		Class<?> type = handler.getEventType();
+		MethodHandle call = SIGNAL.bindTo(unwrap(handler));
+
+		if (type != Object.class)
+			call = MethodHandles.guardWithTest(ACCEPTS.bindTo(type), call, CONTINUE);
+
+		MethodHandle next = MethodHandles.guardWithTest(
+				IS_CONTINUE,
+				MethodHandles.dropArguments(rest, 0, Signal.class),
+				MethodHandles.dropArguments(MethodHandles.identity(Signal.class), 1, Object.class));
+
+		return MethodHandles.foldArguments(next, call);
+	}
+
+	/**
+	 * @return the handler that a plain proxy wraps, as the proxy only adds the event type, which is checked separately -
+	 *  unless the proxy also guards a handler of an unresolved type
+	 */
+	private static Handler<?> unwrap(Handler<?> handler) {
+		while ((handler.getClass() == TypedHandler.class || handler.getClass() == RankedHandler.class) && !((TypedHandler<?>) handler).guarded)
+			handler = ((TypedHandler<?>) handler).handler;
+
+		return handler;
+	}
+
+
+	/* Method Handle Targets */
+
+	private static boolean accepts(Class<?> type, Object data) {
+		return data == null || type.isInstance(data);
+	}
+
+	private static boolean isContinue(Signal signal) {
+		return signal == Signal.CONTINUE;
+	}
+
+	private Signal dispatch(Object owner, Object data, Object key) throws VetoEventException, ConsumeEventException {
+		for (Handler<Object> handler : matching.apply(owner, key, data)) {
+			Signal signal = handler.signal(data);
+			if (signal != Signal.CONTINUE)
+				return signal;
+		}
+		return Signal.CONTINUE;
+	}
+}
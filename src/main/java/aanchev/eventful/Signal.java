@@ -0,0 +1,16 @@
+package aanchev.eventful;
+
+/**
+ * What a handler tells the dispatch to do after it has handled an event -
+ * the allocation-free counterpart of throwing {@link VetoEventException} or {@link ConsumeEventException}.
+ *
+ * @see SignalHandler
+ */
+public enum Signal {
+	/** Go on with the next handler. */
+	CONTINUE,
+	/** Stop, and report a failure - like {@link VetoEventException}. */
+	VETO,
+	/** Stop, and report a success - like {@link ConsumeEventException}. */
+	CONSUME
+}
@@ -0,0 +1,37 @@
+package aanchev.eventful;
+
+/**
+ * A {@link Handler} that returns a {@link Signal} instead of throwing to stop the invocation of subsequent handlers.
+ *
+ * <p>
+ * Firing honors the returned signal directly, so vetoing or consuming an event costs nothing more than continuing.
+ * Being a {@link Handler}, it is attached like any other, but lambdas need a cast to select this interface:
+ * <pre>{@code
+ * eventful.on("submit", (SignalHandler<Form>) form -> form.isValid()? Signal.CONTINUE : Signal.VETO);
+ * }</pre>
+ * </p>
+ */
+@FunctionalInterface
+@SuppressWarnings("serial")
+public interface SignalHandler<DATA> extends Handler<DATA> {
+
+	@Override
+	public Signal signal(DATA event);
+
+	/**
+	 * Translates the signal to the (preallocated) exceptions, for callers that only know {@link #handle(Object)}.
+	 */
+	@Override
+	public default void handle(DATA event) throws VetoEventException, ConsumeEventException {
+		switch (signal(event)) {
+			case VETO:
+				throw VetoEventException.INSTANCE;
+
+			case CONSUME:
+				throw ConsumeEventException.INSTANCE;
+
+			default:
+				return;
+		}
+	}
+}
@@ -0,0 +1,128 @@
+package aanchev.eventful;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * A lock-free copy-on-write {@link java.util.Set Set}.
+ *
+ * <p>
+ * Iteration walks an immutable snapshot of the elements and is never affected by concurrent modifications.
+ * Modifications build a new snapshot and swap it in with a CAS, retrying if another modification won the race.
+ * </p>
+ */
+class SnapshotSet<E> extends AbstractSet<E> implements Snapshotting {
+	private static final Object[] EMPTY = {};
+
+	@SuppressWarnings("rawtypes")
+	private static final AtomicReferenceFieldUpdater<SnapshotSet, Object[]> ELEMENTS =
+			AtomicReferenceFieldUpdater.newUpdater(SnapshotSet.class, Object[].class, "elements");
+
+
+	private volatile Object[] elements = EMPTY;
+
+
+	/* Snapshot Access */
+
+	@Override
+	public Object[] snapshot() {
+		return elements;
+	}
+
+	@Override
+	public Iterator<E> iterator() {
+		Object[] snapshot = elements;
+
+		return new Iterator<E>() {
+			private int i = 0;
+
+			@Override
+			public boolean hasNext() {
+				return i < snapshot.length;
+			}
+
+			@SuppressWarnings("unchecked")
+			@Override
+			public E next() {
+				if (i >= snapshot.length)
+					throw new NoSuchElementException();
+
+				return (E) snapshot[i++];
+			}
+
+			@Override
+			public void remove() {
+				if (i == 0)
+					throw new IllegalStateException();
+
+				SnapshotSet.this.remove(snapshot[i - 1]);
+			}
+		};
+	}
+
+	@Override
+	public int size() {
+		return elements.length;
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		return indexOf(elements, o) >= 0;
+	}
+
+
+	/* Modification */
+
+	@Override
+	public boolean add(E e) {
+		for (;;) {
+			Object[] current = elements;
+
+			if (indexOf(current, e) >= 0)
+				return false;
+
+			Object[] updated = Arrays.copyOf(current, current.length + 1);
+			updated[current.length] = e;
+
+			if (ELEMENTS.compareAndSet(this, current, updated))
+				return true;
+		}
+	}
+
+	@Override
+	public boolean remove(Object o) {
+		for (;;) {
+			Object[] current = elements;
+			int at = indexOf(current, o);
+
+			if (at < 0)
+				return false;
+
+			Object[] updated = new Object[current.length - 1];
+			System.arraycopy(current, 0, updated, 0, at);
+			System.arraycopy(current, at + 1, updated, at, current.length - at - 1);
+
+			if (ELEMENTS.compareAndSet(this, current, updated))
+				return true;
+		}
+	}
+
+	@Override
+	public void clear() {
+		elements = EMPTY;
+	}
+
+
+	/* Helpers */
+
+	private static int indexOf(Object[] elements, Object o) {
+		for (int i = 0; i < elements.length; i++) {
+			if (o == null? elements[i] == null : o.equals(elements[i]))
+				return i;
+		}
+		return -1;
+	}
+}
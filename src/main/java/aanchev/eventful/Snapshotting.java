@@ -0,0 +1,13 @@
+package aanchev.eventful;
+
+/**
+ * A collection that can expose its elements as an immutable array,
+ * so they can be iterated without allocating an {@link java.util.Iterator Iterator}.
+ */
+interface Snapshotting {
+
+	/**
+	 * @return the current elements, in iteration order; never to be modified
+	 */
+	Object[] snapshot();
+}
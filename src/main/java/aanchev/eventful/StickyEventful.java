@@ -0,0 +1,378 @@
+package aanchev.eventful;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collector;
+
+/**
+ * An {@link Eventful} in front of another one, which remembers the last event data of selected ("sticky") event names,
+ * and passes it to handlers as soon as they are attached - so late subscribers start with the current state.
+ *
+ * <pre>{@code
+ * StickyEventful<Object> sticky = new StickyEventful<>(eventful).stick("config-changed");
+ *sticky.fire("config-changed", config);
+ * ...
+ *sticky.on("config-changed", (Config c) -> apply(c)); // called with config right away
+ * }</pre>
+ *
+ * <p>
+ * The last data is kept per concrete event data class, so a handler receives the latest event of every class it accepts -
+ * by the same rule as {@link #fire(String, Object) fire} (<code>null</code> data is accepted by all handlers),
+ * in the order they were fired. A {@link #on(String, Predicate, Handler) filtered} handler only receives the data that passes its filter.
+ * Vetoing or consuming has no effect on that delivery.
+ * The kept data of each name is bounded by an {@link Eviction} policy.
+ * </p>
+ *
+ * <p>
+ * Only handlers attached to the exact sticky name receive the kept data, not the ones attached to topic patterns.
+ * Everything is otherwise delegated to the target, so handlers attached directly to it do not receive the kept data,
+ * but events fired directly on it are not remembered either.
+ * </p>
+ *
+ * <p>
+ * Firing a sticky name and attaching a handler to it are serialized (per name),
+ * so a newly attached handler receives the kept data before any event fired after it.
+ * The handlers of sticky names therefore should not wait for other threads that fire the same name.
+ * </p>
+ *
+ * @param <E> the type of event data of the target
+ */
+public class StickyEventful<E> extends ForwardingEventful<E> {
+
+	/**
+	 * How much of the last event data of a sticky name to keep.
+	 */
+	public static final class Eviction {
+		public static final Eviction DEFAULT = lru(64);
+
+		private final int maxEntries;
+		private final long ttl;
+		private final boolean lru;
+
+		private Eviction(int maxEntries, long ttl, boolean lru) {
+			if (maxEntries < 1)
+				throw new IllegalArgumentException("At least one entry must be kept");
+
+			this.maxEntries = maxEntries;
+			this.ttl = ttl;
+			this.lru = lru;
+		}
+
+		/**
+		 * Keeps the data of at most the given number of classes, dropping the least recently fired one.
+		 */
+		public static Eviction maxEntries(int maxEntries) {
+			return new Eviction(maxEntries, Long.MAX_VALUE, false);
+		}
+
+		/**
+		 * Keeps the data of at most the given number of classes, dropping the least recently used one -
+		 * fired, or passed to a newly attached handler.
+		 */
+		public static Eviction lru(int maxEntries) {
+			return new Eviction(maxEntries, Long.MAX_VALUE, true);
+		}
+
+		/**
+		 * Drops the data fired longer ago than the given time.
+		 */
+		public static Eviction ttl(long ttl, TimeUnit unit) {
+			return new Eviction(Integer.MAX_VALUE, unit.toNanos(ttl), false);
+		}
+
+		/**
+		 * @return the same policy, but also dropping the data fired longer ago than the given time
+		 */
+		public Eviction expiringAfter(long ttl, TimeUnit unit) {
+			return new Eviction(maxEntries, unit.toNanos(ttl), lru);
+		}
+	}
+
+
+	/**
+	 * The last event data of a sticky name, per class.
+	 */
+	private static final class LastValues {
+		private static final class Value {
+			final Object data;
+			final long time;
+
+			Value(Object data, long time) {
+				this.data = data;
+				this.time = time;
+			}
+		}
+
+		private final Eviction eviction;
+		private final LinkedHashMap<Class<?>, Value> values;
+
+		LastValues(Eviction eviction) {
+			this.eviction = eviction;
+			this.values = new LinkedHashMap<Class<?>, Value>(16, 0.75f, true) {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<Class<?>, Value> eldest) {
+					return size() > eviction.maxEntries;
+				}
+			};
+		}
+
+		synchronized void put(Object data) {
+			values.put((data == null)? Void.class : data.getClass(), new Value(data, System.nanoTime()));
+		}
+
+		/**
+		 * @return the unexpired data accepted by the given type, oldest first
+		 */
+		synchronized List<Object> get(Class<?> type) {
+			long now = System.nanoTime();
+			List<Object> accepted = new ArrayList<>();
+			List<Class<?>> used = new ArrayList<>();
+
+			for (Value value : values.values()) {
+				if (now - value.time > eviction.ttl)
+					continue;
+
+				if (value.data == null || type.isInstance(value.data)) {
+					accepted.add(value.data);
+					used.add((value.data == null)? Void.class : value.data.getClass());
+				}
+			}
+
+			values.values().removeIf(value -> now - value.time > eviction.ttl);
+
+			if (eviction.lru) {
+				for (Class<?> key : used)
+					values.get(key); // touches the entry
+			}
+
+			return accepted;
+		}
+	}
+
+
+	private final Map<String, LastValues> sticky = new ConcurrentHashMap<>();
+
+
+	/* Constructors */
+
+	public StickyEventful(Eventful<E> target) {
+		super(target);
+	}
+
+
+	/* Configuration */
+
+	/**
+	 * Remembers the last event data of the given name, according to the {@link Eviction#DEFAULT default eviction}.
+	 *
+	 * @return this instance, for chaining
+	 */
+	public StickyEventful<E> stick(String event) {
+		return stick(event, Eviction.DEFAULT);
+	}
+
+	/**
+	 * Remembers the last event data of the given name, according to the given eviction.
+	 * Data remembered so far is dropped.
+	 *
+	 * @return this instance, for chaining
+	 */
+	public StickyEventful<E> stick(String event, Eviction eviction) {
+		sticky.put(event, new LastValues(eviction));
+		return this;
+	}
+
+	/**
+	 * Stops remembering the event data of the given name, and drops what was remembered so far.
+	 *
+	 * @return whether the name was sticky
+	 */
+	public boolean unstick(String event) {
+		return sticky.remove(event) != null;
+	}
+
+	public boolean isSticky(String event) {
+		return sticky.containsKey(event);
+	}
+
+	/**
+	 * @return the last (unexpired) event data of the given name that is of the given type, or <code>null</code> if there is none
+	 */
+	@SuppressWarnings("unchecked")
+	public <T extends E> T last(String event, Class<T> type) {
+		LastValues values = sticky.get(event);
+		if (values == null)
+			return null;
+
+		List<Object> accepted = values.get(type);
+		for (int i = accepted.size() - 1; i >= 0; i--) {
+			if (accepted.get(i) != null)
+				return (T) accepted.get(i);
+		}
+		return null;
+	}
+
+
+	/* Handler/Listener Attaching */
+
+	@Override
+	public Handler<? extends E> on(String event, Handler<? extends E> handler) {
+		return attach(event, () -> {
+			target.on(event, handler);
+			return handler;
+		});
+	}
+
+	@Override
+	public <T extends E> Handler<? extends T> on(EventKey<T> key, Handler<? extends T> handler) {
+		return attach(key.name(), () -> {
+			target.on(key, handler);
+			return handler;
+		});
+	}
+
+	@Override
+	public <T extends E> Handler<T> on(String event, Class<T> type, Handler<? super T> handler) {
+		return attach(event, () -> target.on(event, type, handler));
+	}
+
+	@Override
+	public <T extends E> Handler<T> on(String event, Predicate<? super T> filter, Handler<? super T> handler) {
+		return attach(event, () -> target.on(event, filter, handler)); // the returned handler tests the filter
+	}
+
+	@Override
+	public Handler<? extends E> onWeak(String event, Handler<? extends E> handler) {
+		return attach(event, () -> target.onWeak(event, handler));
+	}
+
+	@Override
+	public <O, T extends E> Handler<T> onWeak(String event, O target, WeakHandler.Bound<? super O, T> handler) {
+		return attach(event, () -> this.target.onWeak(event, target, handler));
+	}
+
+	/**
+	 * Attaches a handler and passes it the kept data, with the events of the name held off meanwhile -
+	 * so an event fired concurrently reaches the handler after the older, kept data, not before it.
+	 */
+	private <H extends Handler<?>> H attach(String event, Supplier<H> attaching) {
+		LastValues values = sticky.get(event);
+		if (values == null)
+			return attaching.get();
+
+		synchronized (values) {
+			H handler = attaching.get();
+			replay(values, handler);
+			return handler;
+		}
+	}
+
+	private void replay(LastValues values, Handler<?> handler) {
+		Handler<?> typedHandler = TypedHandler.of(handler);
+
+		for (Object data : values.get(typedHandler.getEventType())) {
+			try {
+				typedHandler.trySignal(data);
+			}
+			catch (VetoEventException | ConsumeEventException e) {
+				// there are no other handlers to stop
+			}
+		}
+	}
+
+
+	/* Firing of Events */
+
+	@Override
+	public boolean fire(String event, E data) {
+		LastValues values = sticky.get(event);
+		if (values == null)
+			return target.fire(event, data);
+
+		synchronized (values) {
+			values.put(data);
+			return target.fire(event, data);
+		}
+	}
+
+	@Override
+	public <T extends E> boolean fire(EventKey<T> key, T data) {
+		LastValues values = sticky.get(key.name());
+		if (values == null)
+			return target.fire(key, data);
+
+		synchronized (values) {
+			values.put(data);
+			return target.fire(key, data);
+		}
+	}
+
+	@Override
+	public BitSet fireAll(String event, Collection<? extends E> data) {
+		LastValues values = sticky.get(event);
+		if (values == null)
+			return target.fireAll(event, data);
+
+		synchronized (values) {
+			for (E d : data)
+				values.put(d);
+
+			return target.fireAll(event, data);
+		}
+	}
+
+	@Override
+	public <R, A, T> T ask(String event, E data, Collector<? super R, A, T> collector) {
+		LastValues values = sticky.get(event);
+		if (values == null)
+			return target.ask(event, data, collector);
+
+		synchronized (values) {
+			values.put(data);
+			return target.ask(event, data, collector);
+		}
+	}
+
+	@Override
+	public <T extends E, R, A, U> U ask(EventKey<T> key, T data, Collector<? super R, A, U> collector) {
+		LastValues values = sticky.get(key.name());
+		if (values == null)
+			return target.ask(key, data, collector);
+
+		synchronized (values) {
+			values.put(data);
+			return target.ask(key, data, collector);
+		}
+	}
+
+	@Override
+	public CompletableFuture<Boolean> fireParallel(String event, E data, Executor executor) {
+		LastValues values = sticky.get(event);
+		if (values == null)
+			return target.fireParallel(event, data, executor);
+
+		synchronized (values) {
+			values.put(data);
+			return target.fireParallel(event, data, executor);
+		}
+	}
+
+
+	@Override
+	public void dispose() {
+		sticky.replaceAll((event, values) -> new LastValues(values.eviction)); // the names stay sticky
+		super.dispose();
+	}
+}
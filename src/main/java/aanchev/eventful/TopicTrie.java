@@ -0,0 +1,340 @@
+package aanchev.eventful;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * An index of the handlers attached to topic patterns, like <code>"order.*"</code> or <code>"order.#"</code>.
+ *
+ * <p>
+ * Topics are event names made of words separated by dots.
+ * In a pattern, <code>*</code> matches exactly one word and <code>#</code> matches zero or more words
+ * (as in AMQP topic exchanges), so <code>"order.*"</code> matches <code>"order.created"</code>
+ * and <code>"order.#"</code> also matches <code>"order"</code> and <code>"order.item.added"</code>.
+ * </p>
+ *
+ * <p>
+ * The patterns are kept in a trie, which is walked once per fired topic.
+ * The handlers of the matching patterns are then cached per topic, so that firing the same topic again is a (hash) lookup.
+ * The cache is bounded - at {@value #MAX_CACHED} topics, it is dropped and starts over,
+ * so topics with unbounded cardinality (like <code>"order.12345"</code>) do not grow it forever.
+ * Attaching or detaching a handler drops only the cached topics that its pattern matches,
+ * which are found by walking a second trie - of the cached topics - with the pattern.
+ * </p>
+ *
+ * <p>
+ * Lookups of cached topics are lock-free; everything else is serialized.
+ * </p>
+ */
+public final class TopicTrie {
+	private static final Handler<Object>[] NONE = DispatchTable.newHandlers(0);
+
+	private static final char SEPARATOR = '.';
+	private static final String ONE = "*";
+	private static final String ANY = "#";
+
+	static final int MAX_CACHED = 1 << 12;
+
+
+	/**
+	 * A node of the pattern trie - the handlers of the pattern that ends here.
+	 */
+	private static final class Pattern {
+		final Map<String, Pattern> children = new HashMap<>();
+		final Set<Handler<?>> handlers = new LinkedHashSet<>();
+
+		boolean isEmpty() {
+			return handlers.isEmpty() && children.isEmpty();
+		}
+	}
+
+	/**
+	 * A node of the trie of the cached topics.
+	 */
+	private static final class Topic {
+		final Topic parent;
+		final String word;
+		final Map<String, Topic> children = new HashMap<>();
+		String topic; // the cached topic that ends here, if any
+
+		Topic(Topic parent, String word) {
+			this.parent = parent;
+			this.word = word;
+		}
+	}
+
+	private final Pattern patterns = new Pattern();
+	private final Map<String, Handler<Object>[]> resolved = new ConcurrentHashMap<>(); // the handlers of the patterns, by topic
+	private Topic topics = new Topic(null, null); // the keys of resolved, guarded by this
+	private volatile int size = 0;
+
+
+	/* Patterns */
+
+	/**
+	 * @return whether the given event name has wildcard words, and so is a pattern rather than a topic
+	 */
+	public static boolean isPattern(String event) {
+		for (int at = 0; at <= event.length(); at = wordEnd(event, at) + 1) {
+			if (wordEnd(event, at) == at + 1 && (event.startsWith(ONE, at) || event.startsWith(ANY, at)))
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * @return whether the pattern matches the given topic
+	 */
+	public static boolean matches(String pattern, String topic) {
+		return matches(words(pattern), 0, topic, 0);
+	}
+
+	/**
+	 * @return a test of whether the pattern matches a topic, which splits the pattern only once
+	 */
+	public static Predicate<String> matcher(String pattern) {
+		String[] words = words(pattern);
+		return topic -> matches(words, 0, topic, 0);
+	}
+
+	/**
+	 * @param at the start of the next word of the topic, or past its length if there are no words left
+	 */
+	private static boolean matches(String[] pattern, int p, String topic, int at) {
+		boolean consumed = at > topic.length();
+
+		if (p == pattern.length)
+			return consumed;
+
+		if (pattern[p].equals(ANY)) {
+			for (int next = at; ; next = wordEnd(topic, next) + 1) {
+				if (matches(pattern, p + 1, topic, next))
+					return true;
+
+				if (next > topic.length())
+					return false;
+			}
+		}
+
+		if (consumed)
+			return false;
+
+		int end = wordEnd(topic, at);
+		boolean word = pattern[p].equals(ONE) || (pattern[p].length() == end - at && topic.startsWith(pattern[p], at));
+
+		return word && matches(pattern, p + 1, topic, end + 1);
+	}
+
+	private static int wordEnd(String name, int at) {
+		int end = name.indexOf(SEPARATOR, at);
+		return (end < 0)? name.length() : end;
+	}
+
+	/**
+	 * @return the words of the topic or pattern, including empty ones
+	 */
+	static String[] words(String name) {
+		List<String> words = new ArrayList<>();
+		for (int at = 0; at <= name.length(); at = wordEnd(name, at) + 1)
+			words.add(name.substring(at, wordEnd(name, at)));
+
+		return words.toArray(new String[words.size()]);
+	}
+
+	/**
+	 * @return the number of handlers attached to patterns
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Attaches a handler to a pattern.
+	 *
+	 * @return whether the handler was not attached already
+	 */
+	public synchronized boolean add(String pattern, Handler<?> handler) {
+		String[] words = words(pattern);
+
+		Pattern node = patterns;
+		for (String word : words)
+			node = node.children.computeIfAbsent(word, k -> new Pattern());
+
+		if (!node.handlers.add(handler))
+			return false;
+
+		size++;
+		uncache(words);
+		return true;
+	}
+
+	/**
+	 * Detaches a handler from a pattern.
+	 *
+	 * @return whether the handler was attached
+	 */
+	public synchronized boolean remove(String pattern, Handler<?> handler) {
+		String[] words = words(pattern);
+		Pattern[] path = new Pattern[words.length + 1];
+		path[0] = patterns;
+
+		for (int i = 0; i < words.length; i++) {
+			path[i + 1] = path[i].children.get(words[i]);
+			if (path[i + 1] == null)
+				return false;
+		}
+
+		if (!path[words.length].handlers.remove(handler))
+			return false;
+
+		for (int i = words.length; i > 0 && path[i].isEmpty(); i--)
+			path[i - 1].children.remove(words[i - 1]); // prune the emptied branch
+
+		size--;
+		uncache(words);
+		return true;
+	}
+
+	/**
+	 * Drops the cached topics that the pattern matches.
+	 */
+	private void uncache(String[] pattern) {
+		Set<Topic> matching = new LinkedHashSet<>();
+		cachedMatching(topics, pattern, 0, matching);
+
+		for (Topic node : matching) {
+			resolved.remove(node.topic);
+			node.topic = null;
+
+			for (Topic t = node; t.parent != null && t.topic == null && t.children.isEmpty(); t = t.parent)
+				t.parent.children.remove(t.word); // prune the emptied branch
+		}
+	}
+
+	private static void cachedMatching(Topic node, String[] pattern, int p, Set<Topic> matching) {
+		if (p == pattern.length) {
+			if (node.topic != null)
+				matching.add(node);
+			return;
+		}
+
+		if (pattern[p].equals(ANY)) {
+			cachedMatching(node, pattern, p + 1, matching); // no more words
+			for (Topic child : node.children.values())
+				cachedMatching(child, pattern, p, matching); // one more word
+		}
+		else if (pattern[p].equals(ONE)) {
+			for (Topic child : node.children.values())
+				cachedMatching(child, pattern, p + 1, matching);
+		}
+		else {
+			Topic child = node.children.get(pattern[p]);
+			if (child != null)
+				cachedMatching(child, pattern, p + 1, matching);
+		}
+	}
+
+	/**
+	 * @return the number of topics whose pattern handlers are cached
+	 */
+	int cached() {
+		return resolved.size();
+	}
+
+	public synchronized void clear() {
+		patterns.children.clear();
+		patterns.handlers.clear();
+		resolved.clear();
+		topics = new Topic(null, null);
+		size = 0;
+	}
+
+
+	/* Topics */
+
+	/**
+	 * Gets the handlers of all patterns matching the given topic, in the order they were attached per pattern.
+	 *
+	 * @return a cached (hence not to be modified) array of the handlers
+	 */
+	public Handler<Object>[] resolve(String topic) {
+		if (size == 0)
+			return NONE; // do not cache topics while there is nothing to match
+
+		Handler<Object>[] handlers = resolved.get(topic);
+		return (handlers != null)? handlers : resolveAndCache(topic);
+	}
+
+	private synchronized Handler<Object>[] resolveAndCache(String topic) {
+		Handler<Object>[] handlers = resolved.get(topic);
+		if (handlers != null)
+			return handlers;
+
+		String[] words = words(topic);
+		Set<Handler<?>> matching = new LinkedHashSet<>();
+		match(patterns, words, 0, matching);
+		handlers = matching.isEmpty()? NONE : matching.toArray(DispatchTable.newHandlers(matching.size()));
+
+		if (resolved.size() >= MAX_CACHED) { // cheaper than tracking the use of every topic, and rare for a bounded set of topics
+			resolved.clear();
+			topics = new Topic(null, null);
+		}
+
+		Topic node = topics;
+		for (String word : words) {
+			Topic parent = node;
+			node = node.children.computeIfAbsent(word, k -> new Topic(parent, k));
+		}
+		node.topic = topic;
+
+		resolved.put(topic, handlers);
+		return handlers;
+	}
+
+	private static void match(Pattern node, String[] words, int i, Set<Handler<?>> matching) {
+		if (i == words.length)
+			matching.addAll(node.handlers);
+		else {
+			Pattern literal = node.children.get(words[i]);
+			if (literal != null)
+				match(literal, words, i + 1, matching);
+
+			Pattern one = node.children.get(ONE);
+			if (one != null)
+				match(one, words, i + 1, matching);
+		}
+
+		Pattern any = node.children.get(ANY);
+		if (any != null) {
+			for (int j = i; j <= words.length; j++)
+				match(any, words, j, matching);
+		}
+	}
+
+
+	/**
+	 * Combines the handlers of a topic name with the handlers of the patterns that match it,
+	 * by {@link RankedHandler#priority priority} - and the former first, if the priorities are equal.
+	 */
+	static List<Handler<?>> merge(Iterable<? extends Handler<?>> handlers, Handler<Object>[] patterns) {
+		List<Handler<?>> merged = new ArrayList<>();
+
+		if (handlers != null) {
+			for (Handler<?> handler : handlers)
+				merged.add(handler);
+		}
+
+		Collections.addAll(merged, patterns);
+		merged.sort(Comparator.comparingInt(RankedSet::priority)); // stable, so the relative order is otherwise kept
+
+		return merged;
+	}
+}
@@ -0,0 +1,207 @@
+package aanchev.eventful;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * An index of handlers by the event type they accept, which resolves the handlers of an event data class
+ * by walking the class's supertypes, rather than by checking every handler.
+ *
+ * <p>
+ * The resolved handlers are memoized per class in a {@link ClassValue}, so firing costs a lookup,
+ * and resolving a new class costs in proportion to its number of supertypes and matching handlers -
+ * not to the number of handlers overall.
+ * Adding or removing a handler only drops the memoized classes that it accepts.
+ * </p>
+ *
+ * <p>
+ * Handlers are resolved in the order they were added, except that {@link RankedHandler}s are ordered by priority first.
+ * Lookups are lock-free; everything else is serialized.
+ * </p>
+ */
+public final class TypeIndex {
+	private static final Handler<Object>[] NONE = DispatchTable.newHandlers(0);
+
+	private static final Comparator<Entry> ORDER = Comparator.<Entry>comparingInt(e -> e.priority).thenComparingLong(e -> e.sequence);
+
+	private static final ClassValue<Class<?>[]> supertypes = new ClassValue<Class<?>[]>() {
+		@Override
+		protected Class<?>[] computeValue(Class<?> type) {
+			Set<Class<?>> all = new LinkedHashSet<>();
+			collect(type, all);
+			all.add(Object.class); // also for interfaces, as every instance is an Object
+			return all.toArray(new Class<?>[all.size()]);
+		}
+
+		private void collect(Class<?> type, Set<Class<?>> all) {
+			if (type == null || !all.add(type))
+				return;
+
+			collect(type.getSuperclass(), all);
+
+			for (Class<?> iface : type.getInterfaces())
+				collect(iface, all);
+		}
+	};
+
+
+	private static final class Entry {
+		final Handler<Object> handler;
+		final Class<?> type;
+		final int priority;
+		final long sequence;
+
+		Entry(Handler<Object> handler, Class<?> type, long sequence) {
+			this.handler = handler;
+			this.type = type;
+			this.priority = RankedSet.priority(handler);
+			this.sequence = sequence;
+		}
+	}
+
+
+	private final Map<Class<?>, List<Entry>> byType = new HashMap<>(); // guarded by this
+	private final Map<Handler<?>, Entry> entries = new HashMap<>(); // guarded by this
+	private final Set<Class<?>> resolved = Collections.newSetFromMap(new WeakHashMap<>()); // guarded by this
+	private long sequence = 0; // guarded by this
+
+	private volatile Handler<Object>[] all = null; // for null event data; null if not resolved
+
+	private final ClassValue<Handler<Object>[]> cache = new ClassValue<Handler<Object>[]>() {
+		@Override
+		protected Handler<Object>[] computeValue(Class<?> type) {
+			return resolve(type);
+		}
+	};
+
+
+	/* Lookup */
+
+	/**
+	 * @return the handlers that accept the given event data, in invocation order (not to be modified)
+	 */
+	public Handler<Object>[] get(Object data) {
+		if (data != null)
+			return cache.get(data.getClass());
+
+		Handler<Object>[] all = this.all;
+		return (all != null)? all : resolveAll();
+	}
+
+	public synchronized int size() {
+		return entries.size();
+	}
+
+
+	/* Resolution */
+
+	private synchronized Handler<Object>[] resolve(Class<?> type) {
+		resolved.add(type);
+
+		List<Entry> matching = new ArrayList<>();
+
+		if (type.isArray()) { // arrays are covariant, which their supertypes do not tell
+			byType.forEach((accepted, handlers) -> {
+				if (accepted.isAssignableFrom(type))
+					matching.addAll(handlers);
+			});
+		}
+		else {
+			for (Class<?> supertype : supertypes.get(type)) {
+				List<Entry> handlers = byType.get(supertype);
+				if (handlers != null)
+					matching.addAll(handlers);
+			}
+		}
+
+		return toArray(matching);
+	}
+
+	private synchronized Handler<Object>[] resolveAll() {
+		if (all == null)
+			all = toArray(new ArrayList<>(entries.values()));
+
+		return all;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Handler<Object>[] toArray(List<Entry> entries) {
+		if (entries.isEmpty())
+			return NONE;
+
+		entries.sort(ORDER);
+
+		Handler<Object>[] handlers = DispatchTable.newHandlers(entries.size());
+		for (int i = 0; i < handlers.length; i++)
+			handlers[i] = entries.get(i).handler;
+
+		return handlers;
+	}
+
+
+	/* Modification */
+
+	/**
+	 * @param handler a handler whose {@link Handler#getEventType() event type} is already resolved, like a {@link TypedHandler}
+	 * @return whether the handler was added, i.e. was not already in the index
+	 */
+	@SuppressWarnings("unchecked")
+	public synchronized boolean add(Handler<?> handler) {
+		if (entries.containsKey(handler))
+			return false;
+
+		Entry entry = new Entry((Handler<Object>) handler, handler.getEventType(), sequence++);
+		entries.put(handler, entry);
+		byType.computeIfAbsent(entry.type, k -> new ArrayList<>()).add(entry);
+
+		invalidate(entry.type);
+		return true;
+	}
+
+	/**
+	 * @return whether the handler was removed, i.e. was in the index
+	 */
+	public synchronized boolean remove(Handler<?> handler) {
+		Entry entry = entries.remove(handler);
+		if (entry == null)
+			return false;
+
+		List<Entry> handlers = byType.get(entry.type);
+		handlers.remove(entry);
+		if (handlers.isEmpty())
+			byType.remove(entry.type);
+
+		invalidate(entry.type);
+		return true;
+	}
+
+	public synchronized void clear() {
+		byType.clear();
+		entries.clear();
+		invalidate(Object.class);
+	}
+
+	/**
+	 * Drops the memoized handlers of the classes that handlers of the given type accept.
+	 */
+	private void invalidate(Class<?> type) {
+		all = null;
+
+		for (Iterator<Class<?>> i = resolved.iterator(); i.hasNext(); ) {
+			Class<?> c = i.next();
+
+			if (type.isAssignableFrom(c)) {
+				cache.remove(c);
+				i.remove();
+			}
+		}
+	}
+}
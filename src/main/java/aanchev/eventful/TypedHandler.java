@@ -0,0 +1,141 @@
+package aanchev.eventful;
+
+
+/**
+ * A proxy {@link Handler} that knows the type of event data it accepts,
+ * so that non-matching events are filtered out with a simple {@link Class#isInstance(Object)} check.
+ *
+ * <p>
+ * Handlers are wrapped in this when attached, so the type is resolved only once - at registration.
+ * The proxy is equal to the handler it wraps, so removal does not need special attention.
+ * </p>
+ *
+ * <p>
+ * If the type of the handler could not be resolved at all (e.g. for method references created in generic methods,
+ * whose parameter is a type variable), the handler may still only accept some event data.
+ * Such handlers are <i>guarded</i> - a {@link ClassCastException} thrown by them is taken to mean
+ * that the event data is not accepted, and the handler is skipped.
+ * Handlers resolved to {@link Object} itself are not guarded, so their exceptions reach the caller as usual.
+ * State the type explicitly (with {@link #TypedHandler(Handler, Class)}) to avoid that.
+ * </p>
+ */
+public class TypedHandler<DATA> implements Handler<DATA> {
+	private static final long serialVersionUID = 1L;
+
+	protected final Handler<DATA> handler;
+	protected final Class<?> type;
+	protected final boolean guarded;
+
+
+	/* Constructors */
+
+	public TypedHandler(Handler<DATA> handler) {
+		this(handler, handler.getEventType(), true);
+	}
+
+	public TypedHandler(Handler<DATA> handler, Class<?> type) {
+		this(handler, type, false);
+	}
+
+	/**
+	 * @param inferred whether the type was resolved from the handler, rather than stated explicitly
+	 */
+	protected TypedHandler(Handler<DATA> handler, Class<?> type, boolean inferred) {
+		this.handler = handler;
+		this.type = type;
+		this.guarded = inferred && type == Object.class && HandlerTypes.isUnresolved(handler);
+	}
+
+
+	@SuppressWarnings("unchecked")
+	public static <DATA> TypedHandler<DATA> of(Handler<? extends DATA> handler) {
+		if (handler instanceof TypedHandler)
+			return (TypedHandler<DATA>) handler;
+
+		return new TypedHandler<>((Handler<DATA>) handler);
+	}
+
+
+	/* Proxy Handler */
+
+	@Override
+	public void handle(DATA event) throws VetoEventException, ConsumeEventException {
+		if (!guarded) {
+			handler.handle(event);
+			return;
+		}
+
+		try {
+			handler.handle(event);
+		}
+		catch (ClassCastException e) {
+			// not accepted after all
+		}
+	}
+
+	@Override
+	public Class<?> getEventType() {
+		return type;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public boolean tryHandle(Object data) throws VetoEventException, ConsumeEventException {
+		if (data != null && !type.isInstance(data))
+			return false;
+
+		if (!guarded) {
+			handler.handle((DATA) data);
+			return true;
+		}
+
+		try {
+			handler.handle((DATA) data);
+			return true;
+		}
+		catch (ClassCastException e) {
+			return false;
+		}
+	}
+
+	@Override
+	public Signal signal(DATA event) throws VetoEventException, ConsumeEventException {
+		if (!guarded)
+			return handler.signal(event);
+
+		try {
+			return handler.signal(event);
+		}
+		catch (ClassCastException e) {
+			return Signal.CONTINUE; // not accepted after all
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public Signal trySignal(Object data) throws VetoEventException, ConsumeEventException {
+		if (data != null && !type.isInstance(data))
+			return Signal.CONTINUE;
+
+		return signal((DATA) data);
+	}
+
+
+	/* Proxy Object */
+
+	@Override
+	public boolean equals(Object obj) {
+		if (obj instanceof TypedHandler)
+			return this.handler.equals(((TypedHandler<?>) obj).handler);
+
+		if (obj instanceof Handler)
+			return this.handler.equals(obj);
+
+		return false;
+	}
+
+	@Override
+	public int hashCode() {
+		return handler.hashCode();
+	}
+}
@@ -9,4 +9,19 @@ package aanchev.eventful;
  */
 public class VetoEventException extends Exception {
 	private static final long serialVersionUID = 1L;
+
+	/**
+	 * A shared instance, to throw without allocating - it has no stack trace, as it is only used for control flow.
+	 */
+	public static final VetoEventException INSTANCE = new VetoEventException(null, null, false, false);
+
+
+	public VetoEventException() {}
+
+	/**
+	 * @see Exception#Exception(String, Throwable, boolean, boolean)
+	 */
+	protected VetoEventException(String message, Throwable cause, boolean enableSuppression, boolean writableStackTrace) {
+		super(message, cause, enableSuppression, writableStackTrace);
+	}
 }
\ No newline at end of file
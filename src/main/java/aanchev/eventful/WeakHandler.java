@@ -0,0 +1,158 @@
+package aanchev.eventful;
+
+import java.io.Serializable;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * A {@link Handler} that only weakly references its target,
+ * so being attached to an event does not keep the target reachable.
+ *
+ * <p>
+ * The target is either a handler itself
+ * (which must then be strongly referenced elsewhere for as long as it should receive events - e.g. by a field of the listener),
+ * or an arbitrary object that is passed to a {@link Bound} handler
+ * (which receives the target explicitly, so it need not capture it - e.g. <code>Listener::onEvent</code>).
+ * </p>
+ *
+ * <p>
+ * Once the target is collected, the handler does nothing and detaches itself:
+ * either lazily - the next time it is called, or from a background thread as soon as the collection is noticed
+ * (through a {@link ReferenceQueue}), if the owner allows detaching from other threads.
+ * </p>
+ */
+public class WeakHandler<TARGET, DATA> extends WeakReference<TARGET> implements Handler<DATA> {
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Like {@link Handler}, but also receives the target the handler was attached for.
+	 */
+	@FunctionalInterface
+	public interface Bound<TARGET, DATA> extends Serializable {
+		public void handle(TARGET target, DATA event) throws VetoEventException, ConsumeEventException;
+	}
+
+
+	private static final ReferenceQueue<Object> collected = new ReferenceQueue<>();
+	private static Thread cleaner = null;
+
+
+	private final Bound<? super TARGET, DATA> handler;
+	private final Class<?> type;
+	private final Consumer<? super WeakHandler<TARGET, DATA>> detach;
+	private final AtomicBoolean expired = new AtomicBoolean(false);
+
+
+	/* Constructors */
+
+	/**
+	 * @param target the object to hold weakly
+	 * @param handler the handler to call with the target, while it is still reachable
+	 * @param detach removes the handler from wherever it was attached, once the target is collected
+	 * @param inBackground whether <code>detach</code> may be called from a background thread
+	 */
+	public WeakHandler(TARGET target, Bound<? super TARGET, DATA> handler, Consumer<? super WeakHandler<TARGET, DATA>> detach, boolean inBackground) {
+		this(target, handler, HandlerTypes.of(handler, Bound.class, 1), detach, inBackground);
+	}
+
+	protected WeakHandler(TARGET target, Bound<? super TARGET, DATA> handler, Class<?> type, Consumer<? super WeakHandler<TARGET, DATA>> detach, boolean inBackground) {
+		super(target, inBackground? startCleaner() : null);
+		this.handler = handler;
+		this.type = type;
+		this.detach = detach;
+	}
+
+
+	/**
+	 * Creates a weak handler whose target is the given handler itself.
+	 *
+	 * @see #WeakHandler(Object, Bound, Consumer, boolean)
+	 */
+	public static <DATA> WeakHandler<Handler<DATA>, DATA> of(Handler<DATA> handler, Consumer<? super WeakHandler<Handler<DATA>, DATA>> detach, boolean inBackground) {
+		Class<?> type = handler.getEventType();
+		Bound<Handler<DATA>, DATA> call = HandlerTypes.isUnresolved(handler)? Handler::tryHandle : Handler::handle; // guards unresolved types
+
+		return new WeakHandler<>(handler, call, type, detach, inBackground);
+	}
+
+	/**
+	 * Creates a <code>detach</code> callback that removes the handler through its owner (e.g. an {@link Eventful}),
+	 * but only weakly references the owner - as the handler is held by the owner's state,
+	 * capturing the owner would keep it reachable for good.
+	 *
+	 * @param owner the object the handler is attached to
+	 * @param off detaches the handler from the owner; must not capture the owner itself
+	 */
+	public static <O, H> Consumer<H> detaching(O owner, BiConsumer<? super O, ? super H> off) {
+		WeakReference<O> ref = new WeakReference<>(owner);
+
+		return handler -> {
+			O o = ref.get();
+			if (o != null)
+				off.accept(o, handler);
+		};
+	}
+
+
+	/* Handler */
+
+	@Override
+	public void handle(DATA event) throws VetoEventException, ConsumeEventException {
+		TARGET target = get();
+
+		if (target == null) {
+			expire();
+			return;
+		}
+
+		handler.handle(target, event);
+	}
+
+	@Override
+	public Class<?> getEventType() {
+		return type;
+	}
+
+	/**
+	 * @return whether the target has been collected
+	 */
+	public boolean isExpired() {
+		return get() == null;
+	}
+
+	private void expire() {
+		if (expired.compareAndSet(false, true))
+			detach.accept(this);
+	}
+
+
+	/* Background Cleanup */
+
+	private static synchronized ReferenceQueue<Object> startCleaner() {
+		if (cleaner == null) {
+			cleaner = new Thread(WeakHandler::clean, "eventful-weak-handler-cleaner");
+			cleaner.setDaemon(true);
+			cleaner.start();
+		}
+
+		return collected;
+	}
+
+	private static void clean() {
+		for (;;) {
+			try {
+				((WeakHandler<?, ?>) collected.remove()).expire();
+			}
+			catch (InterruptedException e) {
+				return;
+			}
+			catch (RuntimeException e) {
+				Thread thread = Thread.currentThread();
+				thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+			}
+		}
+	}
+}
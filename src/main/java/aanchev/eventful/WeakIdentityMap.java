@@ -0,0 +1,220 @@
+package aanchev.eventful;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * A concurrent map that compares keys by identity and only holds them weakly,
+ * used to associate state with instances of the convenience interfaces (like {@link Eventful.Default}).
+ *
+ * <p>
+ * Once a key is no longer reachable, its entry is dropped (on a subsequent modification of the map),
+ * so the state lives exactly as long as the instance does.
+ * Beware that a value which (transitively) strongly references its own key keeps it reachable.
+ * </p>
+ *
+ * <p>
+ * Lookups are lock-free and do not allocate; modifications are serialized.
+ * </p>
+ */
+public final class WeakIdentityMap<K, V> {
+	private static final int INITIAL_CAPACITY = 16;
+
+
+	private static final class Entry<K, V> extends WeakReference<K> {
+		final int hash;
+		final V value;
+		final Entry<K, V> next;
+
+		Entry(K key, int hash, V value, Entry<K, V> next, ReferenceQueue<? super K> queue) {
+			super(key, queue);
+			this.hash = hash;
+			this.value = value;
+			this.next = next;
+		}
+	}
+
+
+	private final ReferenceQueue<K> queue = new ReferenceQueue<>();
+	private volatile Entry<K, V>[] buckets = newBuckets(INITIAL_CAPACITY);
+	private int size = 0;
+
+
+	/* Lookup */
+
+	public V get(Object key) {
+		int hash = System.identityHashCode(key);
+		Entry<K, V>[] buckets = this.buckets;
+
+		for (Entry<K, V> e = buckets[hash & (buckets.length - 1)]; e != null; e = e.next) {
+			if (e.get() == key)
+				return e.value;
+		}
+
+		return null;
+	}
+
+	public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+		V value = get(key);
+		if (value != null)
+			return value;
+
+		synchronized (this) {
+			expunge();
+
+			value = get(key);
+			if (value != null)
+				return value;
+
+			value = mappingFunction.apply(key);
+
+			int hash = System.identityHashCode(key);
+			Entry<K, V>[] buckets = this.buckets;
+			int i = hash & (buckets.length - 1);
+
+			buckets[i] = new Entry<>(key, hash, value, buckets[i], queue);
+
+			if (++size > buckets.length * 3 / 4)
+				resize();
+			else
+				this.buckets = buckets; // the volatile write publishes the new entry
+
+			return value;
+		}
+	}
+
+	/**
+	 * @return the previous value of the key, if any
+	 */
+	public synchronized V put(K key, V value) {
+		V previous = remove(key);
+
+		int hash = System.identityHashCode(key);
+		Entry<K, V>[] buckets = this.buckets;
+		int i = hash & (buckets.length - 1);
+
+		buckets[i] = new Entry<>(key, hash, value, buckets[i], queue);
+
+		if (++size > buckets.length * 3 / 4)
+			resize();
+		else
+			this.buckets = buckets; // the volatile write publishes the new entry
+
+		return previous;
+	}
+
+	/**
+	 * Calls the action for each entry whose key is still reachable, in no particular order.
+	 * Like lookups, this does not lock, and sees the entries as of when each bucket is read.
+	 */
+	public void forEach(BiConsumer<? super K, ? super V> action) {
+		for (Entry<K, V> bucket : this.buckets) {
+			for (Entry<K, V> e = bucket; e != null; e = e.next) {
+				K key = e.get();
+				if (key != null)
+					action.accept(key, e.value);
+			}
+		}
+	}
+
+	public synchronized int size() {
+		expunge();
+		return size;
+	}
+
+
+	/* Removal */
+
+	public synchronized V remove(Object key) {
+		expunge();
+
+		int hash = System.identityHashCode(key);
+		Entry<K, V>[] buckets = this.buckets;
+		int i = hash & (buckets.length - 1);
+
+		for (Entry<K, V> e = buckets[i]; e != null; e = e.next) {
+			if (e.get() == key) {
+				unlink(buckets, i, e);
+				e.clear();
+				return e.value;
+			}
+		}
+
+		return null;
+	}
+
+	public synchronized void clear() {
+		this.buckets = newBuckets(INITIAL_CAPACITY);
+		size = 0;
+
+		while (queue.poll() != null) {
+			// drop the stale references of the old entries
+		}
+	}
+
+
+	/* Helpers */
+
+	@SuppressWarnings("unchecked")
+	private void expunge() {
+		for (Reference<? extends K> ref; (ref = queue.poll()) != null; ) {
+			Entry<K, V> stale = (Entry<K, V>) ref;
+			Entry<K, V>[] buckets = this.buckets;
+			int i = stale.hash & (buckets.length - 1);
+
+			for (Entry<K, V> e = buckets[i]; e != null; e = e.next) {
+				if (e == stale) {
+					unlink(buckets, i, e);
+					break;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Entries are immutable (for lock-free lookups), so the ones in front of the removed entry are copied.
+	 */
+	private void unlink(Entry<K, V>[] buckets, int i, Entry<K, V> removed) {
+		Entry<K, V> chain = removed.next;
+
+		for (Entry<K, V> e = buckets[i]; e != removed; e = e.next) {
+			K key = e.get();
+			if (key != null)
+				chain = new Entry<>(key, e.hash, e.value, chain, queue);
+			else
+				size--; // stale anyway, so drop it as well
+		}
+
+		buckets[i] = chain;
+		size--;
+		this.buckets = buckets;
+	}
+
+	private void resize() {
+		Entry<K, V>[] old = this.buckets;
+		Entry<K, V>[] resized = newBuckets(old.length * 2);
+
+		for (Entry<K, V> bucket : old) {
+			for (Entry<K, V> e = bucket; e != null; e = e.next) {
+				K key = e.get();
+				if (key == null) {
+					size--;
+					continue;
+				}
+
+				int i = e.hash & (resized.length - 1);
+				resized[i] = new Entry<>(key, e.hash, e.value, resized[i], queue);
+			}
+		}
+
+		this.buckets = resized;
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static <K, V> Entry<K, V>[] newBuckets(int capacity) {
+		return new Entry[capacity];
+	}
+}
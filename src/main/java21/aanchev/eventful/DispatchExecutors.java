@@ -0,0 +1,43 @@
+package aanchev.eventful;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Executors for {@link Eventful#fireAsync(String, Object, Executor) asynchronous}
+ * and {@link Eventful#fireParallel(String, Object, Executor) parallel} dispatch.
+ *
+ * <pre>{@code
+ * eventful.fireParallel("order-placed", order, DispatchExecutors.virtualThreads());
+ * }</pre>
+ *
+ * <p>
+ * This is the Java 21 version of the class, picked from the multi-release JAR on Java 21+.
+ * </p>
+ */
+public final class DispatchExecutors {
+	private static final ThreadFactory virtualThreads = Thread.ofVirtual().name("eventful-virtual-", 0).factory();
+	private static final Executor virtualExecutor = runnable -> virtualThreads.newThread(runnable).start();
+
+
+	private DispatchExecutors() {}
+
+
+	/**
+	 * Gets an executor that runs each task on a new virtual thread,
+	 * so handlers that block (e.g. on I/O) do not hold up each other nor a pool of platform threads.
+	 * There is no pool to size - thousands of blocking handlers can be fanned out at once.
+	 *
+	 * @see #isVirtual()
+	 */
+	public static Executor virtualThreads() {
+		return virtualExecutor;
+	}
+
+	/**
+	 * @return whether {@link #virtualThreads()} actually uses virtual threads, on this Java version
+	 */
+	public static boolean isVirtual() {
+		return true;
+	}
+}
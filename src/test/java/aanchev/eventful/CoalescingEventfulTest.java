@@ -0,0 +1,134 @@
+package aanchev.eventful;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.lang.Thread.UncaughtExceptionHandler;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+public class CoalescingEventfulTest {
+
+	@Test
+	public void testLatestOnly() {
+		Eventful<Object> eventful = new Eventful.Default<Object>() {};
+
+		List<Object> received = new ArrayList<>();
+		try (CoalescingEventful<Object> coalescing = new CoalescingEventful<>(eventful, 0, TimeUnit.MILLISECONDS).coalesce("resize")) {
+			coalescing.on("resize", (Integer i) -> received.add(i));
+			coalescing.on("click", (Integer i) -> received.add(-i));
+
+			for (int i = 1; i <= 1000; i++)
+				assertTrue(coalescing.fire("resize", i));
+			coalescing.fire("click", 1);
+
+			assertEquals(1, coalescing.pending());
+			assertEquals(Arrays.asList(-1), received);
+
+			coalescing.flush();
+			assertEquals(Arrays.asList(-1, 1000), received);
+
+			coalescing.flush();
+			assertEquals(0, coalescing.pending());
+			assertEquals(2, received.size());
+
+			coalescing.fire("resize", 5);
+		}
+
+		assertEquals(Arrays.asList(-1, 1000, 5), received); // delivered on close
+	}
+
+	@Test
+	public void testKeyed() {
+		Eventful<Object> eventful = new Eventful.Default<Object>() {};
+
+		List<String> received = new ArrayList<>();
+		eventful.on("price", (String s) -> received.add(s));
+
+		CoalescingEventful<Object> coalescing = new CoalescingEventful<>(eventful, 0, TimeUnit.MILLISECONDS)
+				.coalesce("price", (String s) -> s.substring(0, s.indexOf('=')));
+
+		coalescing.fireAll("price", new Object[] {"A=1", "B=1", "A=2", "C=1", "B=2", "A=3"});
+		assertEquals(3, coalescing.slots("price"));
+		coalescing.close();
+
+		assertEquals(Arrays.asList("A=3", "B=2", "C=1"), received);
+		assertEquals(0, coalescing.slots("price")); // delivered keys do not keep their slots
+	}
+
+	@Test
+	public void testScheduled() throws InterruptedException {
+		Eventful<Object> eventful = new Eventful.Concurrent<Object>() {};
+
+		CountDownLatch delivered = new CountDownLatch(1);
+		List<Object> received = new ArrayList<>();
+		eventful.on("tick", (Object o) -> { received.add(o); delivered.countDown(); });
+
+		try (CoalescingEventful<Object> coalescing = new CoalescingEventful<>(eventful, 5, TimeUnit.MILLISECONDS).coalesce("tick")) {
+			coalescing.fire("tick");
+			assertTrue(delivered.await(5, TimeUnit.SECONDS));
+		}
+
+		assertEquals(Arrays.asList((Object) null), received);
+	}
+
+	@Test
+	public void testFailingHandler() {
+		Eventful<Object> eventful = new Eventful.Default<Object>() {};
+
+		List<Integer> received = new ArrayList<>();
+		List<Throwable> reported = new ArrayList<>();
+
+		eventful.on("resize", (Integer i) -> {
+			if (i == 0)
+				throw new AssertionError("boom");
+			received.add(i);
+		});
+
+		Thread thread = Thread.currentThread();
+		UncaughtExceptionHandler uncaught = thread.getUncaughtExceptionHandler();
+		thread.setUncaughtExceptionHandler((t, e) -> reported.add(e));
+
+		try (CoalescingEventful<Object> coalescing = new CoalescingEventful<>(eventful, 0, TimeUnit.MILLISECONDS).coalesce("resize", (Integer i) -> i)) {
+			coalescing.fireAll("resize", new Object[] {0, 1});
+			coalescing.flush();
+			assertEquals(Arrays.asList(1), received);
+
+			coalescing.fire("resize", 2);
+			coalescing.flush();
+			assertEquals(Arrays.asList(1, 2), received);
+		}
+		finally {
+			thread.setUncaughtExceptionHandler(uncaught);
+		}
+
+		assertEquals(1, reported.size());
+		assertTrue(reported.get(0) instanceof AssertionError);
+	}
+
+	@Test
+	public void testAsk() {
+		Eventful<Object> eventful = new Eventful.Default<Object>() {};
+		eventful.on("resize", (Responder<Integer, Integer>) i -> i * 2);
+		eventful.on("other", (Responder<Integer, Integer>) i -> i * 3);
+
+		try (CoalescingEventful<Object> coalescing = new CoalescingEventful<>(eventful, 0, TimeUnit.MILLISECONDS).coalesce("resize")) {
+			assertEquals(Arrays.asList(3), coalescing.ask("other", 1, Collectors.toList()));
+
+			try {
+				coalescing.ask("resize", 1, Collectors.toList());
+				fail();
+			}
+			catch (UnsupportedOperationException e) {
+				assertEquals(0, coalescing.pending());
+			}
+		}
+	}
+}
@@ -0,0 +1,43 @@
+package aanchev.eventful;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Run by failsafe against the packaged (multi-release) JAR, under the java21 profile.
+ */
+public class DispatchExecutorsIT {
+
+	@Test
+	public void testFireOnVirtualThreads() throws Exception {
+		assertTrue(DispatchExecutors.isVirtual());
+
+		Eventful<Object> eventful = new Eventful.Concurrent<Object>() {};
+
+		// all handlers block until all of them have started, which a bounded pool would never get to
+		int handlers = 1000;
+		CountDownLatch started = new CountDownLatch(handlers);
+
+		for (int i = 0; i < handlers; i++) {
+			eventful.on("myevent", (Integer e) -> {
+				started.countDown();
+
+				try {
+					if (!started.await(10, TimeUnit.SECONDS))
+						throw new IllegalStateException("Not all handlers were started");
+				}
+				catch (InterruptedException ex) {
+					throw new IllegalStateException(ex);
+				}
+			});
+		}
+
+		assertTrue(eventful.fireParallel("myevent", 1, DispatchExecutors.virtualThreads()).get());
+		assertEquals(0, started.getCount());
+	}
+}
@@ -0,0 +1,195 @@
+package aanchev.eventful;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import aanchev.eventful.EventJournal.Retention;
+import aanchev.eventful.EventJournal.Serializer;
+
+public class EventJournalTest {
+	private Path directory;
+
+	@Before
+	public void createDirectory() throws IOException {
+		directory = Files.createTempDirectory("eventful-journal");
+	}
+
+	@After
+	public void deleteDirectory() throws IOException {
+		try (Stream<Path> files = Files.walk(directory)) {
+			files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+		}
+	}
+
+	private long segments() throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.count();
+		}
+	}
+
+
+	@Test
+	public void testReplay() throws IOException {
+		Eventful<Object> eventful = new Eventful.Default<Object>() {};
+		List<String> received = new ArrayList<>();
+		eventful.on("myevent", (String s) -> received.add(s));
+
+		long next;
+		try (EventJournal<String> journal = new EventJournal<>(directory, Serializer.strings())) {
+			@SuppressWarnings({ "unchecked", "rawtypes" })
+			Eventful<String> journaled = journal.journaling((Eventful) eventful);
+
+			journaled.fire("myevent", "a");
+			journaled.fire("other", "b");
+			next = journal.endOffset();
+			journaled.fire("myevent", "c");
+		}
+		assertEquals(Arrays.asList("a", "c"), received);
+
+		try (EventJournal<String> journal = new EventJournal<>(directory, Serializer.strings())) { // reopened
+			Eventful<Object> recovered = new Eventful.Default<Object>() {};
+			List<String> replayed = new ArrayList<>();
+			recovered.on("myevent", (String s) -> replayed.add(s));
+			recovered.on("other", (String s) -> replayed.add(s.toUpperCase()));
+
+			long end = journal.replay(0, recovered);
+			assertEquals(Arrays.asList("a", "B", "c"), replayed);
+			assertEquals(journal.endOffset(), end);
+
+			replayed.clear();
+			journal.replay(next, recovered);
+			assertEquals(Arrays.asList("c"), replayed);
+
+			journal.append("myevent", "d");
+			replayed.clear();
+			assertEquals(journal.endOffset(), journal.replay(end, recovered));
+			assertEquals(Arrays.asList("d"), replayed);
+		}
+	}
+
+	@Test
+	public void testSegmentsAndRetention() throws IOException {
+		try (EventJournal<Integer> journal = new EventJournal<>(directory, Serializer.java(), 256, Retention.ofSegments(3))) {
+			EventStream<Integer> stream = journal.journaling(new EventStream.Default<Integer>() {});
+
+			for (int i = 0; i < 100; i++)
+				assertTrue(stream.fire(i));
+
+			assertEquals(3, segments());
+			assertTrue(journal.startOffset() > 0);
+
+			List<Integer> replayed = new ArrayList<>();
+			EventStream<Integer> target = new EventStream.Default<Integer>() {};
+			target.on((Integer i) -> replayed.add(i));
+			journal.replay(0, target);
+
+			assertFalse(replayed.isEmpty());
+			assertEquals(99, (int) replayed.get(replayed.size() - 1));
+			for (int i = 1; i < replayed.size(); i++)
+				assertEquals(replayed.get(i - 1) + 1, (int) replayed.get(i));
+		}
+	}
+
+	@Test
+	public void testSyncForcesRolledSegments() throws IOException {
+		List<MappedByteBuffer> forced = new ArrayList<>();
+
+		try (EventJournal<Integer> journal = new EventJournal<Integer>(directory, Serializer.java(), 256, Retention.FOREVER) {
+			@Override
+			void force(MappedByteBuffer buffer) {
+				forced.add(buffer);
+				super.force(buffer);
+			}
+		}) {
+			for (int i = 0; segments() < 2; i++)
+				journal.append("myevent", i);
+
+			journal.sync();
+			assertEquals(2, forced.size());
+			assertNotSame(forced.get(0), forced.get(1));
+
+			forced.clear();
+			journal.sync(); // the rolled segment is only forced once
+			assertEquals(1, forced.size());
+		}
+	}
+
+	@Test
+	public void testSerializerErrorsDoNotRoll() throws IOException {
+		Serializer<String> strings = Serializer.strings();
+		Serializer<String> failing = new Serializer<String>() {
+			@Override
+			public void write(String data, ByteBuffer buffer) {
+				strings.write(data, buffer);
+				if (data.isEmpty())
+					throw new IllegalArgumentException("empty");
+			}
+
+			@Override
+			public String read(ByteBuffer buffer) {
+				return strings.read(buffer);
+			}
+		};
+
+		try (EventJournal<String> journal = new EventJournal<>(directory, failing, 256, Retention.FOREVER)) {
+			journal.append("myevent", "a");
+			long end = journal.endOffset();
+
+			try {
+				journal.append("myevent", "");
+				fail();
+			}
+			catch (IllegalArgumentException e) {
+				assertEquals("empty", e.getMessage());
+			}
+
+			assertEquals(end, journal.endOffset());
+			assertEquals(1, segments());
+
+			journal.append("myevent", "b");
+			List<String> replayed = new ArrayList<>();
+			journal.replay(0, (event, data) -> replayed.add(data));
+			assertEquals(Arrays.asList("a", "b"), replayed);
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testTooLarge() throws IOException {
+		try (EventJournal<String> journal = new EventJournal<>(directory, Serializer.strings(), 64, Retention.FOREVER)) {
+			journal.append("myevent", new String(new char[100]));
+		}
+	}
+
+	@Test
+	public void testAskIsJournaled() throws IOException {
+		try (EventJournal<String> journal = new EventJournal<>(directory, Serializer.strings())) {
+			Eventful<String> journaled = journal.journaling(new Eventful.Default<String>() {});
+			journaled.on("myevent", (Responder<String, Integer>) String::length);
+
+			assertEquals(Arrays.asList(3), journaled.ask("myevent", "abc", Collectors.toList()));
+
+			List<String> replayed = new ArrayList<>();
+			journal.replay(0, (event, data) -> replayed.add(event + "=" + data));
+			assertEquals(Arrays.asList("myevent=abc"), replayed);
+		}
+	}
+}
@@ -0,0 +1,121 @@
+package aanchev.eventful;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import aanchev.eventful.EventPublisher.Overflow;
+
+public class EventPublisherTest {
+
+	private static class Recorder<E> implements Subscriber<E> {
+		final List<E> received = new ArrayList<>();
+		Subscription subscription;
+		Throwable error;
+		boolean completed;
+
+		@Override
+		public void onSubscribe(Subscription subscription) {
+			this.subscription = subscription;
+		}
+
+		@Override
+		public void onNext(E item) {
+			received.add(item);
+		}
+
+		@Override
+		public void onError(Throwable error) {
+			this.error = error;
+		}
+
+		@Override
+		public void onComplete() {
+			completed = true;
+		}
+	}
+
+
+	@Test
+	public void testDemand() {
+		EventStream<Integer> stream = new EventStream.Default<Integer>() {};
+		EventPublisher<Integer> publisher = EventPublisher.of(stream, 4, Overflow.DROP);
+
+		Recorder<Integer> recorder = new Recorder<>();
+		publisher.subscribe(recorder);
+
+		stream.fire(1);
+		stream.fire(2);
+		assertTrue(recorder.received.isEmpty());
+
+		recorder.subscription.request(1);
+		assertEquals(Arrays.asList(1), recorder.received);
+
+		recorder.subscription.request(2);
+		stream.fire(3);
+		stream.fire(null); // skipped
+		assertEquals(Arrays.asList(1, 2, 3), recorder.received);
+
+		for (int i = 4; i < 10; i++)
+			stream.fire(i);
+		recorder.subscription.request(Long.MAX_VALUE);
+		assertEquals(Arrays.asList(1, 2, 3, 4, 5, 6, 7), recorder.received); // the rest did not fit
+
+		publisher.close();
+		assertTrue(recorder.completed);
+		assertEquals(0, publisher.subscribers());
+		assertTrue(stream.getHandlers().isEmpty());
+	}
+
+	@Test
+	public void testOverflow() {
+		Eventful<Object> eventful = new Eventful.Default<Object>() {};
+
+		Recorder<String> oldest = new Recorder<>();
+		EventPublisher.of(eventful, "myevent", String.class, 2, Overflow.DROP_OLDEST).subscribe(oldest);
+
+		Recorder<String> failing = new Recorder<>();
+		EventPublisher.of(eventful, "myevent", String.class, 2, Overflow.ERROR).subscribe(failing);
+
+		for (String s : new String[] {"a", "b", "c", "d"})
+			eventful.fire("myevent", s);
+		eventful.fire("myevent", 1); // not a string, so not published
+
+		oldest.subscription.request(10);
+		assertEquals(Arrays.asList("c", "d"), oldest.received);
+
+		assertTrue(failing.error instanceof IllegalStateException);
+		assertTrue(failing.received.isEmpty());
+		assertEquals(1, eventful.getHandlers("myevent").size());
+	}
+
+	@Test
+	public void testCancelAndInvalidRequest() {
+		EventStream<Integer> stream = new EventStream.Concurrent<Integer>() {};
+		EventPublisher<Integer> publisher = EventPublisher.of(stream, 8, Overflow.DROP);
+
+		Recorder<Integer> cancelled = new Recorder<>();
+		publisher.subscribe(cancelled);
+		cancelled.subscription.request(1);
+		cancelled.subscription.cancel();
+		stream.fire(1);
+		assertTrue(cancelled.received.isEmpty());
+
+		Recorder<Integer> invalid = new Recorder<>();
+		publisher.subscribe(invalid);
+		invalid.subscription.request(0);
+		assertTrue(invalid.error instanceof IllegalArgumentException);
+		assertNull(cancelled.error);
+
+		assertEquals(0, publisher.subscribers());
+		assertTrue(stream.getHandlers().isEmpty());
+	}
+}
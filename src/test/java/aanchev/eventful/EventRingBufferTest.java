@@ -0,0 +1,196 @@
+package aanchev.eventful;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import aanchev.eventful.EventRingBuffer.Overflow;
+import aanchev.eventful.EventRingBuffer.WaitStrategy;
+
+public class EventRingBufferTest {
+
+	@Test
+	public void testOrder() throws InterruptedException {
+		Eventful<Integer> eventful = new Eventful.Default<Integer>() {};
+
+		List<Integer> received = new ArrayList<>();
+		eventful.on("myevent", (Integer i) -> received.add(i));
+
+		List<Integer> expected = new ArrayList<>();
+		try (EventRingBuffer<Integer> ring = new EventRingBuffer<>(eventful, 8)) {
+			for (int i = 0; i < 1000; i++) {
+				assertTrue(ring.publish("myevent", i));
+				expected.add(i);
+			}
+		}
+
+		assertEquals(expected, received);
+	}
+
+	@Test
+	public void testManyProducers() throws InterruptedException {
+		Eventful<Integer> eventful = new Eventful.Concurrent<Integer>() {};
+
+		int producers = 4, events = 10_000;
+		long[] sum = new long[1];
+		eventful.on("myevent", (Integer i) -> { synchronized (sum) { sum[0] += i; } });
+
+		try (EventRingBuffer<Integer> ring = new EventRingBuffer<>(eventful, 64, 2, WaitStrategy.YIELD, Overflow.BLOCK)) {
+			List<Thread> threads = new ArrayList<>();
+			for (int p = 0; p < producers; p++) {
+				threads.add(new Thread(() -> {
+					for (int i = 1; i <= events; i++)
+						ring.publish("myevent", i);
+				}));
+			}
+
+			for (Thread thread : threads)
+				thread.start();
+			for (Thread thread : threads)
+				thread.join();
+		}
+
+		assertEquals(producers * (long) events * (events + 1) / 2, sum[0]);
+	}
+
+	@Test
+	public void testOverflow() throws InterruptedException {
+		Eventful<Integer> eventful = new Eventful.Default<Integer>() {};
+
+		CountDownLatch entered = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		List<Integer> received = new ArrayList<>();
+
+		eventful.on("myevent", (Integer i) -> {
+			entered.countDown();
+			try {
+				release.await();
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			received.add(i);
+		});
+
+		try (EventRingBuffer<Integer> ring = new EventRingBuffer<>(eventful, 2, 1, WaitStrategy.PARK, Overflow.DROP_OLDEST)) {
+			ring.publish("myevent", 0);
+			entered.await(); // the consumer is now stuck with 0, leaving the buffer empty
+
+			for (int i = 1; i <= 4; i++)
+				assertTrue(ring.publish("myevent", i));
+
+			release.countDown();
+		}
+
+		assertEquals(3, received.size());
+		assertEquals((Integer) 0, received.get(0));
+		assertEquals((Integer) 3, received.get(1));
+		assertEquals((Integer) 4, received.get(2));
+	}
+
+	@Test
+	public void testDrop() throws InterruptedException {
+		Eventful<Integer> eventful = new Eventful.Default<Integer>() {};
+
+		CountDownLatch entered = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+
+		eventful.on("myevent", (Integer i) -> {
+			entered.countDown();
+			try {
+				release.await();
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+
+		try (EventRingBuffer<Integer> ring = new EventRingBuffer<>(eventful, 2, 1, WaitStrategy.PARK, Overflow.DROP)) {
+			ring.publish("myevent", 0);
+			entered.await();
+
+			assertTrue(ring.publish("myevent", 1));
+			assertTrue(ring.publish("myevent", 2));
+			assertFalse(ring.publish("myevent", 3));
+
+			release.countDown();
+		}
+	}
+
+	@Test
+	public void testCloseWhilePublishing() throws InterruptedException {
+		Eventful<Integer> eventful = new Eventful.Concurrent<Integer>() {};
+
+		AtomicInteger received = new AtomicInteger();
+		eventful.on("myevent", (Integer i) -> received.incrementAndGet());
+
+		AtomicInteger accepted = new AtomicInteger();
+		List<Thread> threads = new ArrayList<>();
+
+		EventRingBuffer<Integer> ring = new EventRingBuffer<>(eventful, 16, 2, WaitStrategy.YIELD, Overflow.BLOCK);
+		for (int p = 0; p < 4; p++) {
+			threads.add(new Thread(() -> {
+				try {
+					for (;;) {
+						if (ring.publish("myevent", 1))
+							accepted.incrementAndGet();
+					}
+				}
+				catch (IllegalStateException e) {
+					// closed
+				}
+			}));
+		}
+
+		for (Thread thread : threads)
+			thread.start();
+
+		Thread.sleep(20);
+		ring.close();
+
+		for (Thread thread : threads)
+			thread.join();
+
+		assertTrue(accepted.get() > 0);
+		assertEquals(accepted.get(), received.get());
+	}
+
+	@Test
+	public void testErrorsDoNotStopConsumers() {
+		Eventful<Integer> eventful = new Eventful.Default<Integer>() {};
+
+		List<Integer> received = new ArrayList<>();
+		List<Throwable> reported = new ArrayList<>();
+
+		eventful.on("myevent", (Integer i) -> {
+			if (i == 0)
+				throw new AssertionError("boom");
+			received.add(i);
+		});
+
+		ThreadFactory threads = runnable -> {
+			Thread thread = new Thread(runnable);
+			thread.setDaemon(true);
+			thread.setUncaughtExceptionHandler((t, e) -> reported.add(e));
+			return thread;
+		};
+
+		try (EventRingBuffer<Integer> ring = new EventRingBuffer<>(eventful, 2, 1, WaitStrategy.PARK, Overflow.BLOCK, threads)) {
+			for (int i = 0; i < 4; i++)
+				ring.publish("myevent", i);
+		}
+
+		assertEquals(Arrays.asList(1, 2, 3), received);
+		assertEquals(1, reported.size());
+		assertTrue(reported.get(0) instanceof AssertionError);
+	}
+}
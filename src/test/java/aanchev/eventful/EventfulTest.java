@@ -1,15 +1,30 @@
 package aanchev.eventful;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 import org.junit.Test;
 
@@ -159,6 +174,123 @@ public class EventfulTest {
 		expected1.allMet();
 	}
 
+	@Test
+	public void testTypeResolution() {
+		Eventful<Exception> eventful = new Eventful.Default<Exception>() {};
+
+		Exception[] exceptions = {
+			new IllegalArgumentException("first"),
+			new IOException("second")
+		};
+
+		Expectations<Exception> expected0 = new Expectations<>(exceptions[0]);
+		Expectations<Exception> expected1 = new Expectations<>(exceptions[1]);
+
+		eventful.on("myevent", new Handler<IllegalArgumentException>() {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public void handle(IllegalArgumentException e) {
+				expected0.is(e);
+			}
+		});
+		eventful.on("myevent", (IOException e) -> expected1.is(e));
+
+		eventful.fire("myevent", exceptions[0]);
+		eventful.fire("myevent", exceptions[1]);
+
+		expected0.allMet();
+		expected1.allMet();
+	}
+
+	@Test
+	public void testExplicitType() {
+		class Forward<T> implements Handler<T> {
+			private static final long serialVersionUID = 1L;
+
+			private final Expectations<Exception> expected;
+
+			Forward(Expectations<Exception> expected) {
+				this.expected = expected;
+			}
+
+			@Override
+			public void handle(T e) {
+				expected.is((Exception) e);
+			}
+		}
+
+		Eventful<Exception> eventful = new Eventful.Default<Exception>() {};
+
+		Exception[] exceptions = {
+			new IllegalArgumentException("first"),
+			new IllegalStateException("second")
+		};
+
+		Expectations<Exception> expected = new Expectations<>(exceptions[1]);
+
+		Handler<IllegalStateException> handler = eventful.on("myevent", IllegalStateException.class, new Forward<>(expected));
+
+		for (Exception e : exceptions)
+			eventful.fire("myevent", e);
+
+		eventful.off("myevent", handler);
+		eventful.fire("myevent", exceptions[1]);
+
+		expected.allMet();
+	}
+
+	@Test(expected = ClassCastException.class)
+	public void testHandlerCastExceptionPropagates() {
+		Eventful<Object> eventful = new Eventful.Default<Object>() {};
+
+		eventful.on("myevent", (String s) -> { Object o = s; ((Integer) o).intValue(); });
+
+		eventful.fire("myevent", "not a number");
+	}
+
+	private static <T> Handler<T> wrap(Consumer<T> consumer) {
+		return consumer::accept; // the type is erased to Object
+	}
+
+	@Test
+	public void testUnresolvedTypeIsGuarded() {
+		Eventful.Default<Object> eventful = new Eventful.Default<Object>() {};
+		List<String> received = new ArrayList<>();
+
+		Handler<String> weak = wrap((String s) -> received.add(s.toUpperCase()));
+		eventful.on("myevent", wrap((String s) -> received.add(s)));
+		eventful.onWeak("myevent", weak);
+
+		assertTrue(eventful.fire("myevent", 42));
+		assertTrue(eventful.fire("myevent", "a"));
+
+		eventful.seal();
+		assertTrue(eventful.fire("myevent", 42));
+		assertTrue(eventful.fire("myevent", "b"));
+
+		received.sort(null);
+		assertEquals(Arrays.asList("A", "B", "a", "b"), received);
+		assertTrue(weak != null); // kept reachable until here
+	}
+
+	@Test
+	public void testResolvedObjectTypeIsNotGuarded() {
+		Eventful.Default<Object> eventful = new Eventful.Default<Object>() {};
+		eventful.on("myevent", (Object o) -> { throw new ClassCastException("thrown by the handler"); });
+
+		try {
+			eventful.fire("myevent", "a");
+			fail();
+		}
+		catch (ClassCastException e) {
+			assertEquals("thrown by the handler", e.getMessage());
+		}
+
+		assertFalse(HandlerTypes.isUnresolved((Handler<Object>) o -> {}));
+		assertTrue(HandlerTypes.isUnresolved(wrap((String s) -> {})));
+	}
+
 	@Test
 	public void testRemoval() {
 		Eventful<Exception> eventful = new Eventful<Exception>() {
@@ -186,6 +318,438 @@ public class EventfulTest {
 	}
 	
 	
+	@Test
+	public void testEventKeys() {
+		Eventful<Object> eventful = new Eventful.Default<Object>() {};
+
+		EventKey<Exception> key = eventful.key("myevent");
+		assertTrue(key == eventful.<Exception>key("myevent"));
+
+		List<Object> called = new ArrayList<>();
+		Handler<? extends Exception> byKey = eventful.on(key, (IOException e) -> called.add("key"));
+		eventful.on("myevent", (Exception e) -> called.add("name"));
+
+		assertTrue(eventful.fire(key, new IOException()));
+		assertTrue(eventful.fire(key, new Exception()));
+		called.sort(null); // the handlers of Default are unordered
+		assertEquals(Arrays.asList("key", "name", "name"), called);
+
+		assertTrue(eventful.off(key, byKey));
+		called.clear();
+		eventful.fire(key, new IOException());
+		assertEquals(Arrays.asList("name"), called);
+
+		eventful.dispose();
+		called.clear();
+		eventful.on("myevent", (Exception e) -> called.add("again"));
+		eventful.fire(key, new IOException());
+		assertEquals(Arrays.asList("again"), called);
+
+		assertTrue(eventful.fire(eventful.key("nobody-listens"), new Exception()));
+
+		try {
+			new Eventful.Default<Object>() {}.fire(key, new Exception());
+			fail("A key of another instance should be rejected");
+		}
+		catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testEventKeysWithoutRegistry() {
+		Eventful<Exception> eventful = new Eventful<Exception>() {
+			private Map<String, Set<Handler<Exception>>> handlers = new HashMap<>();
+
+			public Map<String, Set<Handler<Exception>>> getHandlers() {
+				return this.handlers;
+			}
+		};
+
+		Exception exc = new Exception("A");
+
+		Expectations<Exception> expected = new Expectations<>(exc);
+		eventful.on(eventful.key("myevent"), e -> expected.is(e));
+		eventful.fire(eventful.key("myevent"), exc);
+		expected.allMet();
+	}
+
+	@Test
+	public void testTopics() {
+		Eventful<Object> eventful = new Eventful.Concurrent<Object>() {};
+
+		List<String> called = new ArrayList<>();
+		eventful.on("order.created", e -> called.add("exact"));
+		eventful.on("order.*", e -> called.add("order.*"));
+
+		eventful.fire("order.created", "data");
+		eventful.fire("order.item.added", "data");
+		assertEquals(Arrays.asList("exact", "order.*"), called);
+
+		// attaching a pattern drops the cached topics it matches
+		Handler<?> any = eventful.on("order.#", e -> called.add("order.#"));
+		eventful.on("#", (String e) -> called.add("#"));
+		EventKey<Object> key = eventful.key("order");
+
+		called.clear();
+		eventful.fire("order.created", "data");
+		eventful.fire(key, "data");
+		eventful.fire("order.item.added", 42);
+		eventful.fire("user.created", "data");
+		assertEquals(Arrays.asList(
+				"exact", "order.*", "order.#", "#",
+				"order.#", "#",
+				"order.#",
+				"#"), called);
+
+		assertTrue(eventful.off("order.#", any));
+		assertFalse(eventful.off("order.#", any));
+
+		called.clear();
+		eventful.fire("order.created", "data");
+		eventful.fire(key, 42);
+		assertEquals(Arrays.asList("exact", "order.*", "#"), called);
+	}
+
+	@Test
+	public void testDispatchTableUpdatesOnlyItsKey() {
+		DispatchTable table = new DispatchTable();
+		Handler<String> strings = new TypedHandler<>(s -> {}, String.class);
+		Handler<Integer> integers = new TypedHandler<>(i -> {}, Integer.class);
+
+		for (int i = 0; i < 100; i++) { // resized meanwhile
+			table.put("event" + i, "a", Arrays.asList(strings));
+			table.put("event" + i, 1, Arrays.asList(strings));
+		}
+
+		Handler<Object>[] untouched = table.get("event2", "a");
+		table.update("event1", String.class, Arrays.asList(strings, strings));
+
+		assertEquals(2, table.get("event1", "a").length);
+		assertEquals(0, table.get("event1", 1).length); // not affected by a handler of strings
+		assertSame(untouched, table.get("event2", "a"));
+
+		table.update(event -> event.equals("event3"), Integer.class, event -> Arrays.asList(integers));
+		assertEquals(1, table.get("event3", 1).length);
+		assertEquals(1, table.get("event3", "a").length);
+	}
+
+	@Test
+	public void testTopicTrie() {
+		assertTrue(TopicTrie.matches("order.#", "order"));
+		assertTrue(TopicTrie.matches("order.#", "order.item.added"));
+		assertTrue(TopicTrie.matches("#.added", "order.item.added"));
+		assertTrue(TopicTrie.matches("*.item.*", "order.item.added"));
+		assertFalse(TopicTrie.matches("order.*", "order"));
+		assertFalse(TopicTrie.matches("order.*", "orders.x"));
+		assertFalse(TopicTrie.matches("order", "order.x"));
+		assertTrue(TopicTrie.isPattern("order.*"));
+		assertTrue(TopicTrie.isPattern("#"));
+		assertFalse(TopicTrie.isPattern("order.*x"));
+
+		TopicTrie trie = new TopicTrie();
+		Handler<Object> handler = new TypedHandler<>(o -> {}, Object.class);
+		trie.add("order.*", handler);
+
+		for (String topic : new String[] {"order.a", "order.b", "order.a.b", "user.a"})
+			trie.resolve(topic);
+		assertEquals(4, trie.cached());
+
+		trie.add("user.#", new TypedHandler<>(o -> {}, Object.class)); // drops only the cached user topics
+		assertEquals(3, trie.cached());
+		assertEquals(1, trie.resolve("user.a").length);
+
+		trie.remove("order.*", handler);
+		assertEquals(2, trie.cached()); // order.a.b is not matched by order.*
+		assertEquals(0, trie.resolve("order.a").length);
+		assertEquals(0, trie.resolve("order.a.b").length);
+	}
+
+	@Test
+	public void testTopicCachesAreBounded() {
+		Eventful.Default<Object> eventful = new Eventful.Default<Object>() {};
+
+		AtomicInteger calls = new AtomicInteger();
+		eventful.on("order.*", e -> calls.incrementAndGet());
+
+		int topics = DispatchTable.MAX_SIZE + 100;
+		for (int i = 0; i < topics; i++)
+			eventful.fire("order." + i, "data");
+
+		assertEquals(topics, calls.get());
+		assertTrue(eventful.getDispatchTable().size() <= DispatchTable.MAX_SIZE);
+		assertTrue(eventful.getTopics().cached() <= TopicTrie.MAX_CACHED);
+
+		// the caches are still kept up to date, whether the topics were dropped from them or not
+		eventful.on("order.#", e -> calls.incrementAndGet());
+		calls.set(0);
+		eventful.fire("order.0", "data");
+		eventful.fire("order." + (topics - 1), "data");
+		assertEquals(4, calls.get());
+	}
+
+	@Test
+	public void testRankedTopics() {
+		Eventful.Ranked<Object> eventful = new Eventful.Ranked.Default<Object>() {};
+
+		List<Integer> called = new ArrayList<>();
+		eventful.on("a.b", e -> called.add(2), 2);
+		eventful.on("a.*", e -> called.add(1), 1);
+		eventful.on("a.#", e -> called.add(3), 3);
+		eventful.on("a.b", e -> called.add(0), 0);
+
+		eventful.fire("a.b", "data");
+		assertEquals(Arrays.asList(0, 1, 2, 3), called);
+	}
+
+	@Test
+	public void testSignals() {
+		Eventful.Ranked<Object> eventful = new Eventful.Ranked.Default<Object>() {};
+
+		List<String> called = new ArrayList<>();
+		eventful.on("myevent", (SignalHandler<String>) s -> s.isEmpty()? Signal.VETO : Signal.CONTINUE, 0);
+		eventful.on("myevent", (SignalHandler<String>) s -> s.equals("stop")? Signal.CONSUME : Signal.CONTINUE, 1);
+		eventful.on("myevent", (String s) -> called.add(s), 2);
+
+		assertFalse(eventful.fire("myevent", ""));
+		assertTrue(eventful.fire("myevent", "stop"));
+		assertTrue(eventful.fire("myevent", "go"));
+		assertTrue(eventful.fire("myevent", 42)); // the type of signal handlers is resolved as well
+		assertEquals(Arrays.asList("go"), called);
+
+		BitSet vetoed = eventful.fireAll("myevent", new Object[] {"a", "", "stop", ""});
+		assertEquals(BitSet.valueOf(new long[] {0b1010}), vetoed);
+
+		EventStream<Object> stream = new EventStream.Default<Object>() {};
+		stream.on((SignalHandler<Integer>) i -> (i < 0)? Signal.VETO : Signal.CONTINUE);
+		assertFalse(stream.fire(-1));
+		assertTrue(stream.fire(1));
+	}
+
+	@Test
+	public void testAsk() {
+		Eventful.Ranked<Object> eventful = new Eventful.Ranked.Default<Object>() {};
+
+		List<Object> called = new ArrayList<>();
+		eventful.on("lookup", (Responder<String, Integer>) s -> s.isEmpty()? null : s.length(), 0);
+		eventful.on("lookup", (Object o) -> called.add(o), 1); // not a responder, but still called
+		eventful.on("lookup", (Responder<Integer, Integer>) i -> -i, 2);
+		eventful.on("lookup", (Responder<Object, Integer>) o -> { called.add("last"); return 42; }, 3);
+		eventful.on("lookup", new Responder<Double, Integer>() {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public Integer respond(Double d) throws VetoEventException {
+				if (d < 0)
+					throw new VetoEventException();
+				return d.intValue();
+			}
+		}, 4);
+
+		assertEquals(Arrays.asList(3, 42), eventful.ask("lookup", "abc", Collectors.toList()));
+		assertEquals(Arrays.asList(-7, 42), eventful.ask(eventful.key("lookup"), 7, Collectors.toList()));
+		assertEquals(Arrays.asList(42, 2), eventful.ask("lookup", 2.5, Collectors.toList()));
+		assertEquals(Arrays.asList(42), eventful.ask("lookup", -1.0, Collectors.toList())); // vetoed, with the results so far
+		assertEquals(Arrays.asList("abc", "last", 7, "last", 2.5, "last", -1.0, "last"), called);
+
+		called.clear();
+		assertEquals(Optional.of(3), eventful.ask("lookup", "abc", Responses.first()));
+		assertEquals(Optional.of(42), eventful.ask("lookup", "", Responses.first())); // skips the null
+		assertEquals(Arrays.asList("", "last"), called);
+
+		assertTrue(eventful.ask("lookup", "abc", Responses.anyMatch((Integer i) -> i == 3)));
+		assertEquals(Arrays.asList(42), eventful.ask("lookup", "", Responses.limit(1)));
+		assertEquals(Optional.empty(), eventful.ask("nobody", "abc", Responses.first()));
+		assertTrue(eventful.fire("lookup", "abc")); // the results are ignored
+	}
+
+	private static class Order {
+		private final String tenant;
+
+		Order(String tenant) {
+			this.tenant = tenant;
+		}
+
+		String getTenant() {
+			return tenant;
+		}
+	}
+
+	@Test
+	public void testAskFiltered() {
+		Eventful<Object> eventful = new Eventful.Concurrent<Object>() {};
+
+		eventful.on("order", (Responder<Order, Integer>) o -> 1);
+		eventful.on("order", (Order o) -> "t1".equals(o.getTenant()), (Responder<Order, Integer>) o -> 2);
+		eventful.on("order", (Order o) -> false, (Responder<Order, Integer>) o -> -2);
+		eventful.on("order", KeyFilter.filterBy(Order::getTenant, "t1"), (Responder<Order, Integer>) o -> 3);
+		eventful.on("order", KeyFilter.filterBy(Order::getTenant, "t2"), (Responder<Order, Integer>) o -> -3);
+
+		assertEquals(Arrays.asList(1, 2, 3), eventful.ask("order", new Order("t1"), Collectors.toList()));
+		assertEquals(Arrays.asList(1, -3), eventful.ask("order", new Order("t2"), Collectors.toList()));
+		assertEquals(Optional.of(1), eventful.ask("order", new Order("t1"), Responses.first()));
+	}
+
+	@Test
+	public void testFilteredSubscriptions() {
+		Eventful.Ranked.Concurrent<Object> eventful = new Eventful.Ranked.Concurrent<Object>() {};
+
+		int[] calls = new int[1000];
+		List<Handler<Order>> handlers = new ArrayList<>();
+		for (int i = 0; i < calls.length; i++) {
+			int tenant = i;
+			handlers.add(eventful.on("order", KeyFilter.filterBy(Order::getTenant, "t" + i), (Order o) -> calls[tenant]++));
+		}
+
+		List<Object> called = new ArrayList<>();
+		eventful.on("order", KeyFilter.filterBy(Order::getTenant, "t1"), (Order o) -> called.add("keyed")); // same key, elsewhere
+		eventful.on("order", (Order o) -> o != null && "t7".equals(o.getTenant()), (Order o) -> called.add("predicate"));
+		Handler<Order> veto = eventful.on("order", KeyFilter.filterBy(Order::getTenant, null), (Order o) -> { throw new VetoEventException(); });
+		eventful.on("order", (Object o) -> called.add("plain"));
+
+		assertEquals(3, eventful.getHandlers("order").size()); // all keyed handlers are in one index
+
+		assertTrue(eventful.fire("order", new Order("t1")));
+		assertTrue(eventful.fire("order", new Order("t7")));
+		assertTrue(eventful.fire("order", new Order("other")));
+		assertTrue(eventful.fire("order", "not an order"));
+		assertFalse(eventful.fire("order", new Order(null)));
+
+		assertEquals(1, calls[1]);
+		assertEquals(1, calls[7]);
+		assertEquals(2, Arrays.stream(calls).sum());
+		assertEquals(Arrays.asList("keyed", "plain", "predicate", "plain", "plain", "plain"), called);
+
+		assertTrue(eventful.off("order", handlers.get(1)));
+		assertFalse(eventful.off("order", handlers.get(1)));
+		eventful.fire("order", new Order("t1"));
+		assertEquals(1, calls[1]);
+
+		for (Handler<Order> handler : handlers)
+			eventful.off("order", handler);
+		eventful.off("order", veto);
+		assertEquals(3, eventful.getHandlers("order").size()); // the "t1" one is left
+
+		called.clear();
+		eventful.fire("order", new Order("t1"));
+		eventful.fire("order", null); // has no key
+		assertEquals(Arrays.asList("keyed", "plain", "plain"), called);
+	}
+
+	@Test
+	public void testStacklessExceptions() {
+		Eventful<Object> eventful = new Eventful.Default<Object>() {};
+		eventful.on("myevent", e -> { throw VetoEventException.INSTANCE; });
+
+		assertFalse(eventful.fire("myevent", "data"));
+		assertEquals(0, VetoEventException.INSTANCE.getStackTrace().length);
+		assertEquals(0, ConsumeEventException.INSTANCE.getStackTrace().length);
+		assertNotEquals(0, new VetoEventException().getStackTrace().length);
+		assertNotEquals(0, new ConsumeEventException().getStackTrace().length);
+	}
+
+	@Test
+	public void testInstrumentation() {
+		Eventful.Default<Object> eventful = new Eventful.Default<Object>() {};
+		DispatchMetrics metrics = new DispatchMetrics();
+
+		Handler<String> strings = s -> { if (s.isEmpty()) throw new VetoEventException(); };
+		eventful.on("myevent", strings);
+		eventful.on("myevent", (SignalHandler<Integer>) i -> (i < 0)? Signal.CONSUME : Signal.CONTINUE);
+
+		eventful.fire("myevent", "uninstrumented");
+		assertNull(eventful.instrument(metrics));
+
+		assertTrue(eventful.fire("myevent", "a"));
+		assertFalse(eventful.fire("myevent", ""));
+		assertTrue(eventful.fire("myevent", -1));
+		assertTrue(eventful.fire("myevent", 2.0));
+		assertTrue(eventful.fire("other"));
+
+		DispatchMetrics.EventMetrics myevent = metrics.snapshot().of("myevent");
+		assertEquals(4, myevent.fired());
+		assertEquals(1, myevent.unmatched());
+		assertEquals(1, myevent.vetoed());
+		assertEquals(1, myevent.consumed());
+		assertEquals(2, myevent.latencies().size());
+		assertEquals(2, myevent.latencyOf(strings).count());
+		assertEquals(1, metrics.snapshot().of("other").unmatched());
+
+		assertEquals(metrics, eventful.instrument(null));
+		eventful.fire("myevent", "b");
+		assertEquals(4, metrics.snapshot().of("myevent").fired());
+
+		EventStream.Concurrent<Object> stream = new EventStream.Concurrent<Object>() {};
+		stream.instrument(metrics);
+		stream.on((Integer i) -> {});
+		stream.fire(1);
+		stream.fire(null);
+		assertEquals(1, metrics.snapshot().of(Integer.class).fired());
+		assertEquals(1, metrics.snapshot().of(Void.class).fired());
+
+		metrics.reset();
+		assertTrue(metrics.snapshot().events().isEmpty());
+	}
+
+	@Test
+	public void testLatencyHistogram() {
+		for (long v : new long[] {0, 1, 7, 8, 9, 15, 16, 17, 100, 1000, 123456789, Long.MAX_VALUE}) {
+			int i = LatencyHistogram.indexOf(v);
+			assertTrue(v + " in bucket " + i, LatencyHistogram.lowestOf(i) <= v && v <= LatencyHistogram.highestOf(i));
+		}
+
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (int v = 1; v <= 100; v++)
+			histogram.record(v);
+
+		LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+		assertEquals(100, snapshot.count());
+		assertEquals(50.5, snapshot.mean(), 0.001);
+		assertEquals(100, snapshot.max());
+		assertTrue(snapshot.percentile(50) >= 50 && snapshot.percentile(50) < 50 * 9 / 8 + 1);
+		assertEquals(100, snapshot.percentile(100));
+	}
+
+	@Test
+	public void testSealing() {
+		Eventful.Ranked.Concurrent<Object> eventful = new Eventful.Ranked.Concurrent<Object>() {};
+
+		List<Object> called = new ArrayList<>();
+		eventful.on("myevent", (SignalHandler<String>) s -> s.isEmpty()? Signal.VETO : Signal.CONTINUE, 0);
+		eventful.on("myevent", (String s) -> { if (s.equals("stop")) throw new ConsumeEventException(); }, 1);
+		eventful.on("myevent", (Object o) -> called.add(o), 3);
+		eventful.on("my.*", (Integer i) -> called.add(-i), 2);
+
+		eventful.seal();
+		assertTrue(eventful.getSealedDispatch() != null);
+
+		assertFalse(eventful.fire("myevent", ""));
+		assertTrue(eventful.fire("myevent", "stop"));
+		assertTrue(eventful.fire("myevent", "go"));
+		assertTrue(eventful.fire("my.event", 1));
+		assertTrue(eventful.fire(eventful.key("myevent"), 2));
+		assertTrue(eventful.fire("other", "nobody"));
+		assertEquals(Arrays.asList("go", -1, 2), called);
+		assertEquals(2, eventful.getSealedDispatch().compiled()); // not "other", which has no handlers
+
+		eventful.on("myevent", (Object o) -> called.add("new"), 4); // unseals
+		assertNull(eventful.getSealedDispatch());
+		eventful.fire("myevent", "go");
+		assertEquals(Arrays.asList("go", -1, 2, "go", "new"), called);
+
+		AtomicInteger count = new AtomicInteger();
+		for (int i = 0; i < SealedDispatch.MAX_COMPILED + 1; i++) // dispatched by a loop instead
+			eventful.on("many", (Integer n) -> count.addAndGet(n), i);
+
+		eventful.seal();
+		eventful.fire("many", 2);
+		eventful.fire("many", "ignored");
+		assertEquals(2 * (SealedDispatch.MAX_COMPILED + 1), count.get());
+
+		eventful.dispose();
+		assertNull(eventful.getSealedDispatch());
+	}
+
 	@Test
 	public void testRanked() {
 		Eventful.Ranked<Exception> eventful = new Eventful.Ranked<Exception>() {
@@ -290,4 +854,313 @@ public class EventfulTest {
 		expected.allMet();
 	}
 
+	@Test
+	public void testConcurrent() throws InterruptedException {
+		Eventful<Object> eventful = new Eventful.Concurrent<Object>() {};
+
+		int threads = 4, rounds = 2_000;
+		AtomicInteger calls = new AtomicInteger();
+		AtomicReference<Throwable> failure = new AtomicReference<>();
+
+		Handler<? extends Object> permanent = eventful.on("myevent", (Integer i) -> calls.incrementAndGet());
+
+		List<Thread> workers = new ArrayList<>();
+		for (int t = 0; t < threads; t++) {
+			workers.add(new Thread(() -> {
+				try {
+					for (int i = 0; i < rounds; i++) {
+						Handler<? extends Object> handler = eventful.on("myevent", (String s) -> {});
+						eventful.fire("myevent", i);
+						eventful.fire("myevent", "text");
+						eventful.off("myevent", handler);
+					}
+				}
+				catch (Throwable e) {
+					failure.set(e);
+				}
+			}));
+		}
+
+		for (Thread worker : workers)
+			worker.start();
+		for (Thread worker : workers)
+			worker.join();
+
+		assertNull(failure.get());
+		assertEquals(threads * rounds, calls.get());
+		assertEquals(1, eventful.getHandlers("myevent").size());
+		assertTrue(eventful.off("myevent", permanent));
+	}
+
+	@Test
+	public void testRankedOrder() {
+		Eventful.Ranked<Integer> eventful = new Eventful.Ranked.Default<Integer>() {};
+
+		List<Integer> called = new ArrayList<>();
+		List<Handler<? extends Integer>> handlers = new ArrayList<>();
+
+		for (int i = 0; i < 100; i++) {
+			int n = i;
+			handlers.add(eventful.on("myevent", (Integer e) -> called.add(n), (i * 7) % 5));
+		}
+
+		for (int i = 0; i < 100; i += 3)
+			assertTrue(eventful.off("myevent", handlers.get(i)));
+		assertFalse(eventful.off("myevent", handlers.get(0)));
+
+		eventful.fire("myevent", 0);
+
+		List<Integer> expected = new ArrayList<>();
+		for (int priority = 0; priority < 5; priority++) {
+			for (int i = 0; i < 100; i++) {
+				if ((i * 7) % 5 == priority && i % 3 != 0)
+					expected.add(i);
+			}
+		}
+
+		assertEquals(expected, called);
+	}
+
+	@Test
+	public void testRankedConcurrent() {
+		Eventful.Ranked<Exception> eventful = new Eventful.Ranked.Concurrent<Exception>() {};
+
+		Exception exc = new Exception("A");
+
+		Expectations<Integer> expected = new Expectations<>(1, 2, 3, 4, 5);
+
+		eventful.on("myevent", e -> expected.is(4), 40);
+		eventful.on("myevent", e -> expected.is(2), 20);
+		eventful.on("myevent", e -> expected.is(1), 10);
+		eventful.on("myevent", e -> expected.is(3), 20);
+		eventful.on("myevent", e -> expected.is(5), 100);
+
+		eventful.fire("myevent", exc);
+
+		expected.allMet();
+	}
+
+	@Test
+	public void testFireAsync() throws Exception {
+		Eventful.Ranked<Exception> eventful = new Eventful.Ranked.Concurrent<Exception>() {};
+
+		Exception exc = new Exception("A");
+
+		Expectations<Integer> expected = new Expectations<>(1, 2, 1, 2);
+
+		eventful.on("myevent", e -> expected.is(3), 30);
+		eventful.on("myevent", e -> { expected.is(2); throw new VetoEventException(); }, 20);
+		eventful.on("myevent", e -> expected.is(1), 10);
+
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			assertFalse(eventful.fireAsync("myevent", exc, executor).get());
+			assertFalse(eventful.fireParallel("myevent", exc, executor).get()); // ranked, so still in order
+		}
+		finally {
+			executor.shutdown();
+		}
+
+		expected.allMet();
+	}
+
+	@Test
+	public void testFireParallel() throws Exception {
+		Eventful<Object> eventful = new Eventful.Concurrent<Object>() {};
+
+		AtomicInteger calls = new AtomicInteger();
+
+		for (int i = 0; i < 10; i++)
+			eventful.on("myevent", (Integer e) -> calls.addAndGet(e));
+		eventful.on("myevent", (String e) -> { throw new IllegalStateException("not matching"); });
+
+		assertTrue(eventful.fireParallel("myevent", 2).get());
+		assertEquals(20, calls.get());
+
+		eventful.on("myevent", (Integer e) -> { throw new VetoEventException(); });
+		assertFalse(eventful.fireParallel("myevent", 1).get());
+	}
+
+	@Test
+	public void testFireOnVirtualThreads() throws Exception {
+		Eventful<Object> eventful = new Eventful.Concurrent<Object>() {};
+
+		// the Java 21 classes (and so the virtual threads) are only used from the JAR - see DispatchExecutorsIT
+		AtomicInteger calls = new AtomicInteger();
+		for (int i = 0; i < 10; i++)
+			eventful.on("myevent", (Integer e) -> calls.addAndGet(e));
+
+		assertTrue(eventful.fireParallel("myevent", 1, DispatchExecutors.virtualThreads()).get());
+		assertTrue(eventful.fireAsync("myevent", 1, DispatchExecutors.virtualThreads()).get());
+		assertEquals(20, calls.get());
+	}
+
+	@Test
+	public void testFireAll() {
+		Eventful<Exception> eventful = new Eventful.Default<Exception>() {};
+
+		Exception[] exceptions = {
+			new IllegalArgumentException("first"),
+			new IllegalArgumentException("second"),
+			new IOException("third"),
+			new IllegalArgumentException("fourth")
+		};
+
+		Expectations<Exception> expected = new Expectations<>(exceptions[0], exceptions[1], exceptions[3]);
+
+		eventful.on("myevent", (IllegalArgumentException e) -> expected.is(e));
+		eventful.on("myevent", (IOException e) -> { throw new VetoEventException(); });
+
+		BitSet vetoed = eventful.fireAll("myevent", exceptions);
+
+		assertEquals(1, vetoed.cardinality());
+		assertTrue(vetoed.get(2));
+		assertTrue(eventful.fireAll("unknown", exceptions).isEmpty());
+
+		expected.allMet();
+	}
+
+	@Test
+	public void testDefaultIsCollectable() throws InterruptedException {
+		Eventful<Object> eventful = new Eventful.Default<Object>() {};
+		eventful.on("myevent", (String e) -> {});
+		eventful.fire("myevent", "data");
+
+		WeakReference<Eventful<Object>> ref = new WeakReference<>(eventful);
+		eventful = null;
+
+		for (int i = 0; i < 50 && ref.get() != null; i++) {
+			System.gc();
+			Thread.sleep(10);
+		}
+
+		assertNull(ref.get());
+	}
+
+	private static void collect(WeakReference<?> ref) throws InterruptedException {
+		for (int i = 0; i < 50 && ref.get() != null; i++) {
+			System.gc();
+			Thread.sleep(10);
+		}
+
+		assertNull(ref.get());
+	}
+
+	@Test
+	public void testWeakHandlerOwnerIsCollectable() throws InterruptedException {
+		Handler<String> handler = e -> {};
+		Listener listener = new Listener();
+
+		Eventful<Object> eventful = new Eventful.Default<Object>() {};
+		Eventful<Object> concurrent = new Eventful.Concurrent<Object>() {};
+		EventStream<Object> stream = new EventStream.Default<Object>() {};
+
+		eventful.onWeak("myevent", handler);
+		concurrent.onWeak("myevent", listener, Listener::onEvent);
+		stream.onWeak(handler);
+
+		List<WeakReference<?>> refs = Arrays.asList(new WeakReference<>(eventful), new WeakReference<>(concurrent), new WeakReference<>(stream));
+		eventful = null;
+		concurrent = null;
+		stream = null;
+
+		for (WeakReference<?> ref : refs)
+			collect(ref);
+
+		assertTrue(handler != null && listener != null); // kept reachable until here
+	}
+
+	@Test
+	public void testSealedIsCollectable() throws InterruptedException {
+		Eventful<Object> eventful = new Eventful.Concurrent<Object>() {};
+		EventStream<Object> stream = new EventStream.Concurrent<Object>() {};
+
+		eventful.on("myevent", (String s) -> {});
+		stream.on((String s) -> {});
+		((Eventful.Concurrent<Object>) eventful).seal();
+		((EventStream.Concurrent<Object>) stream).seal();
+		eventful.fire("myevent", "compiled");
+		stream.fire("compiled");
+
+		List<WeakReference<?>> refs = Arrays.asList(new WeakReference<>(eventful), new WeakReference<>(stream));
+		eventful = null;
+		stream = null;
+
+		for (WeakReference<?> ref : refs)
+			collect(ref);
+	}
+
+	@Test
+	public void testWeakHandler() throws InterruptedException {
+		Eventful<Object> eventful = new Eventful.Default<Object>() {};
+
+		AtomicInteger calls = new AtomicInteger();
+		Handler<String> handler = e -> calls.incrementAndGet();
+		Handler<?> weak = eventful.onWeak("myevent", handler);
+
+		eventful.fire("myevent", "data");
+		assertEquals(1, calls.get());
+		assertEquals(1, eventful.getHandlers("myevent").size());
+
+		WeakReference<Handler<String>> ref = new WeakReference<>(handler);
+		handler = null;
+		collect(ref);
+
+		eventful.fire("myevent", "data");
+		assertEquals(1, calls.get());
+		assertEquals(0, eventful.getHandlers("myevent").size());
+		assertTrue(((WeakHandler<?, ?>) weak).isExpired());
+	}
+
+	public static class Listener {
+		final AtomicInteger calls = new AtomicInteger();
+
+		void onEvent(String event) {
+			calls.incrementAndGet();
+		}
+	}
+
+	@Test
+	public void testWeakTarget() throws InterruptedException {
+		Eventful<Object> eventful = new Eventful.Concurrent<Object>() {};
+
+		Listener listener = new Listener();
+		AtomicInteger calls = listener.calls;
+		eventful.onWeak("myevent", listener, Listener::onEvent);
+		eventful.on("myevent", (Integer i) -> fail("Weak handler type should be resolved"));
+
+		eventful.fire("myevent", "data");
+		assertEquals(1, calls.get());
+
+		WeakReference<Listener> ref = new WeakReference<>(listener);
+		listener = null;
+		collect(ref);
+
+		// the background cleaner detaches the handler without a fire
+		for (int i = 0; i < 50 && eventful.getHandlers("myevent").size() > 1; i++)
+			Thread.sleep(10);
+
+		assertEquals(1, eventful.getHandlers("myevent").size());
+	}
+
+	@Test
+	public void testDispose() {
+		Eventful<Exception> eventful = new Eventful.Default<Exception>() {};
+
+		Exception[] exceptions = {
+			new IllegalArgumentException("first"),
+			new IllegalStateException("second")
+		};
+
+		Expectations<Exception> expected = new Expectations<>(exceptions[0]);
+
+		eventful.on("myevent", e -> expected.is(e));
+		eventful.fire("myevent", exceptions[0]);
+		eventful.dispose();
+		eventful.fire("myevent", exceptions[1]);
+
+		assertTrue(eventful.getHandlers().isEmpty());
+		expected.allMet();
+	}
+
 }
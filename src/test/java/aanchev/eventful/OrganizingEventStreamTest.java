@@ -1,88 +1,160 @@
 package aanchev.eventful;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 import org.junit.Test;
 
 public class OrganizingEventStreamTest {
 
 
+	private interface Tagged {}
+
 	private static class Elem {
 		private static class A extends Elem {}
 		private static class B extends Elem {}
+		private static class C extends A implements Tagged {}
 	}
 
 
-	protected static class Avg {
-		private double avg = 0;
-		private int cnt = 0;
-
-		public double get() {
-			return avg;
+	@Test
+	public void testSameAsDefault() {
+		EventStream<Elem> plain = new EventStream.Default<Elem>() {};
+		EventStream<Elem> organizing = new EventStream.Organizing.Default<Elem>() {};
+
+		int[] plainCalls = new int[3], organizingCalls = new int[3];
+
+		plain.on((Elem.A e) -> plainCalls[0]++);
+		plain.on((Elem.B e) -> plainCalls[1]++);
+		plain.on((Elem e) -> plainCalls[2]++);
+		organizing.on((Elem.A e) -> organizingCalls[0]++);
+		organizing.on((Elem.B e) -> organizingCalls[1]++);
+		organizing.on((Elem e) -> organizingCalls[2]++);
+
+		Elem[] elems = { new Elem.A(), new Elem.B(), new Elem.A(), new Elem() };
+		for (Elem elem : elems) {
+			plain.fire(elem);
+			organizing.fire(elem);
 		}
 
-		public void add(long i) {
-			avg = ((avg * cnt) + i) / (cnt+1);
-			cnt++;
-		}
+		assertArrayEquals(new int[] {2, 1, 4}, plainCalls);
+		assertArrayEquals(plainCalls, organizingCalls);
 	}
 
-
 	@Test
-	public void reportSpeedSame() {
-		System.out.println("Report with Same streams...");
-		reportSpeedComparison(
-				new EventStream.Default<Elem>(){},
-				new EventStream.Default<Elem>(){});
+	public void testIncrementalUpdates() {
+		EventStream.Organizing<Object> stream = new EventStream.Organizing.Default<Object>() {};
+
+		Elem[] elems = {
+			new Elem.A(),
+			new Elem.B(),
+			new Elem.A()
+		};
+
+		EventfulTest.Expectations<Object> expected = new EventfulTest.Expectations<>(elems[0], elems[1], elems[0], elems[0], elems[2]);
+
+		Handler<? extends Object> handlerA = stream.on((Elem.A e) -> expected.is(e));
+		stream.fire(elems[0]);
+		stream.on((Elem.B e) -> expected.is(e));
+		stream.fire(elems[1]);
+
+		Handler<? extends Object> handlerElem = stream.on((Elem e) -> expected.is(e));
+		stream.fire(elems[0]); // both A and Elem
+		stream.off(handlerA);
+		stream.fire(elems[2]); // Elem only
+		stream.off(handlerElem);
+		stream.fire("ignored");
+
+		expected.allMet();
 	}
 
 	@Test
-	public void reportSpeedDiff() {
-		System.out.println("Report with Different streams...");
-		reportSpeedComparison(
-				new EventStream.Default<Elem>(){},
-				new EventStream.Organizing.Default<Elem>(){});
-	}
+	public void testVetoDoesNotPoisonCache() {
+		EventStream.Organizing<Object> stream = new EventStream.Organizing.Default<Object>() {};
 
-	public static void reportSpeedComparison(EventStream<Elem> evn0, EventStream<Elem> evn1) {
-		int Nf = 10, Nt = 5;
-		int Nc = 10_000_000;
-
-		List<Handler<? extends Elem>> handlers = new ArrayList<>(Nf+Nt);
-		for (int i=0; i<Nf+Nt; i++)
-			handlers.add(i<Nt? ((Elem.A e) -> act(e)) : ((Elem.B e) -> act(e)));
-		Collections.shuffle(handlers);
-
-		for (Handler<? extends Elem> handler : handlers) {
-			evn0.on(handler);
-			evn1.on(handler);
-		}
+		stream.on((Elem.A e) -> { throw new VetoEventException(); });
 
+		assertFalse(stream.fire(new Elem.A()));
+		assertFalse(stream.fire(new Elem.A()));
+		assertTrue(stream.fire(new Elem.B()));
+	}
 
-		long t0;
-		Avg avg0 = new Avg();
-		Avg avg1 = new Avg();
+	@Test
+	public void testTypeIndex() {
+		TypeIndex index = new TypeIndex();
+
+		Handler<Elem> elem = new TypedHandler<>(e -> {}, Elem.class);
+		Handler<Tagged> tagged = new TypedHandler<>(e -> {}, Tagged.class);
+		Handler<Object> object = new TypedHandler<>(e -> {}, Object.class);
+		Handler<Object[]> array = new TypedHandler<>(e -> {}, Object[].class);
+		RankedHandler<Elem.A> first = new RankedHandler<>(e -> {}, Elem.A.class, -1);
+
+		index.add(elem);
+		index.add(tagged);
+		index.add(object);
+		index.add(array);
+		assertFalse(index.add(new TypedHandler<>(elem)));
+
+		assertArrayEquals(new Object[] {elem, tagged, object}, index.get(new Elem.C()));
+		assertArrayEquals(new Object[] {elem, object}, index.get(new Elem.B()));
+		assertArrayEquals(new Object[] {object, array}, index.get(new String[0])); // arrays are covariant
+		assertArrayEquals(new Object[] {object}, index.get(new int[0]));
+		assertArrayEquals(new Object[] {elem, tagged, object, array}, index.get(null));
+
+		index.add(first); // only affects A and its subtypes
+		assertArrayEquals(new Object[] {first, elem, tagged, object}, index.get(new Elem.C()));
+		assertArrayEquals(new Object[] {elem, object}, index.get(new Elem.B()));
+
+		assertTrue(index.remove(new TypedHandler<>(tagged)));
+		assertArrayEquals(new Object[] {first, elem, object}, index.get(new Elem.C()));
+		assertEquals(4, index.size());
+
+		index.clear();
+		assertEquals(0, index.get(new Elem.C()).length);
+	}
 
-		for (int i=0; i<Nc; i++) {
-			final Elem data = new Elem.A();
+	@Test
+	public void testRankedConcurrent() {
+		EventStream.Ranked.Concurrent<Object> stream = new EventStream.Ranked.Concurrent<Object>() {};
+		StringBuilder order = new StringBuilder();
 
-			t0 = System.nanoTime();
-			evn0.fire(data);
-			avg0.add(System.nanoTime() - t0);
+		stream.on((Elem e) -> order.append("b"), 1);
+		stream.on((Tagged e) -> order.append("a"), 0);
+		Handler<?> last = stream.on((Object e) -> order.append("c"), 2);
 
-			t0 = System.nanoTime();
-			evn1.fire(data);
-			avg1.add(System.nanoTime() - t0);
-		}
+		stream.fire(new Elem.C());
+		stream.off(last);
+		stream.fire(new Elem.C());
+		stream.fire(new Elem.B());
 
-		System.out.println("Average firing times for "+Nc+" prcs:");
-		System.out.format("\tEventStream 0:  %6f%n", avg0.get());
-		System.out.format("\tEventStream 1:  %6f%n", avg1.get());
+		assertEquals("abcabb", order.toString());
 	}
 
-	private static <E> void act(E e) {
-//		System.out.println("Caught fire: " + e);
+	@Test
+	public void testSealing() {
+		EventStream.Ranked.Concurrent<Object> stream = new EventStream.Ranked.Concurrent<Object>() {};
+		StringBuilder order = new StringBuilder();
+
+		stream.on((Elem e) -> order.append("b"), 1);
+		stream.on((Tagged e) -> order.append("a"), 0);
+		stream.on((Elem.B e) -> { throw new VetoEventException(); }, 2);
+		stream.seal();
+
+		assertTrue(stream.fire(new Elem.C()));
+		assertFalse(stream.fire(new Elem.B()));
+		assertTrue(stream.fire("ignored"));
+
+		Handler<?> last = stream.on((Object e) -> order.append("c"), 3);
+		assertNull(stream.getSealedDispatch());
+		stream.seal();
+		stream.fire(new Elem.A());
+		stream.off(last);
+		assertNull(stream.getSealedDispatch());
+		stream.fire(new Elem.A());
+
+		assertEquals("abbbcb", order.toString());
 	}
 }
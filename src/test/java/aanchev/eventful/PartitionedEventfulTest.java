@@ -0,0 +1,66 @@
+package aanchev.eventful;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+public class PartitionedEventfulTest {
+
+	@Test
+	public void testPerKeyOrder() {
+		Eventful<int[]> eventful = new Eventful.Concurrent<int[]>() {};
+
+		int keys = 16, events = 1000;
+		Map<Integer, List<Integer>> received = new ConcurrentHashMap<>();
+		Map<Integer, Thread> threads = new ConcurrentHashMap<>();
+		AtomicBoolean switched = new AtomicBoolean(false);
+
+		eventful.on("myevent", (int[] e) -> {
+			received.computeIfAbsent(e[0], k -> new ArrayList<>()).add(e[1]);
+			if (threads.computeIfAbsent(e[0], k -> Thread.currentThread()) != Thread.currentThread())
+				switched.set(true);
+		});
+
+		try (PartitionedEventful<int[]> partitioned = new PartitionedEventful<>(eventful, 4, (int[] e) -> e[0])) {
+			for (int i = 0; i < events; i++) {
+				for (int k = 0; k < keys; k++)
+					assertTrue(partitioned.fire("myevent", new int[] {k, i}));
+			}
+		}
+
+		assertFalse(switched.get());
+		assertEquals(keys, received.size());
+		for (List<Integer> sequence : received.values()) {
+			assertEquals(events, sequence.size());
+			for (int i = 0; i < events; i++)
+				assertEquals(i, (int) sequence.get(i));
+		}
+
+		assertTrue(threads.values().stream().distinct().count() > 1);
+	}
+
+	@Test
+	public void testLanes() {
+		try (PartitionedEventful<String> partitioned = new PartitionedEventful<>(new Eventful.Concurrent<String>() {}, 3, s -> s)) {
+			assertEquals(3, partitioned.lanes());
+			assertEquals(0, partitioned.laneOf(null));
+			assertEquals(partitioned.laneOf("a"), partitioned.laneOf(new String("a")));
+		}
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testAskIsRejected() {
+		try (PartitionedEventful<String> partitioned = new PartitionedEventful<>(new Eventful.Concurrent<String>() {}, 2, s -> s)) {
+			partitioned.ask("myevent", "a", Collectors.toList());
+		}
+	}
+}
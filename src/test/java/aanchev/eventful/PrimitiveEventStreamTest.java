@@ -0,0 +1,72 @@
+package aanchev.eventful;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class PrimitiveEventStreamTest {
+
+	@Test
+	public void testInt() {
+		IntEventStream stream = new IntEventStream.Default() {};
+
+		int[] sum = new int[1];
+		IntHandler adder = i -> sum[0] += i;
+		stream.on(adder);
+		stream.on(i -> { if (i < 0) throw new VetoEventException(); });
+
+		assertTrue(stream.fire(1));
+		assertTrue(stream.fire(2));
+		assertFalse(stream.fire(-10));
+		assertEquals(-7, sum[0]);
+
+		assertTrue(stream.off(adder));
+		assertFalse(stream.off(adder));
+		stream.fire(100);
+		assertEquals(-7, sum[0]);
+	}
+
+	@Test
+	public void testLongRanked() {
+		LongEventStream.Ranked stream = new LongEventStream.Ranked() {};
+
+		List<String> called = new ArrayList<>();
+		LongHandler late = l -> called.add("late");
+		stream.on(late, 10);
+		stream.on(l -> called.add("first"), -1);
+		stream.on(l -> called.add("middle"));
+		stream.on(l -> called.add("middle-too"));
+
+		stream.fire(1L);
+		assertEquals(Arrays.asList("first", "middle", "middle-too", "late"), called);
+
+		assertTrue(stream.off(late));
+
+		called.clear();
+		stream.fire(1L);
+		assertEquals(Arrays.asList("first", "middle", "middle-too"), called);
+	}
+
+	@Test
+	public void testDoubleConsume() {
+		DoubleEventStream stream = new DoubleEventStream.Ranked() {};
+
+		double[] last = {Double.NaN};
+		((DoubleEventStream.Ranked) stream).on(d -> { throw new ConsumeEventException(); }, 0);
+		((DoubleEventStream.Ranked) stream).on(d -> last[0] = d, 1);
+
+		assertTrue(stream.fire(0.5));
+		assertTrue(Double.isNaN(last[0]));
+
+		stream.dispose();
+		stream.on(d -> last[0] = d);
+		stream.fire(0.5);
+		assertEquals(0.5, last[0], 0);
+	}
+}
@@ -0,0 +1,141 @@
+package aanchev.eventful;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import aanchev.eventful.StickyEventful.Eviction;
+
+public class StickyEventfulTest {
+
+	@Test
+	public void testLateSubscriber() {
+		StickyEventful<Object> sticky = new StickyEventful<>(new Eventful.Default<Object>() {}).stick("config");
+
+		sticky.fire("config", "a");
+		sticky.fire("config", 1);
+		sticky.fire("config", "b");
+		sticky.fire("other", "x");
+
+		List<Object> strings = new ArrayList<>();
+		sticky.on("config", (String s) -> strings.add(s));
+		assertEquals(Arrays.asList("b"), strings);
+
+		List<Object> all = new ArrayList<>();
+		sticky.on("config", (Object o) -> all.add(o));
+		assertEquals(Arrays.asList(1, "b"), all);
+
+		List<Object> numbers = new ArrayList<>();
+		sticky.on("config", Number.class, n -> numbers.add(n));
+		assertEquals(Arrays.asList(1), numbers);
+
+		List<Object> others = new ArrayList<>();
+		sticky.on("other", (Object o) -> others.add(o));
+		assertTrue(others.isEmpty());
+
+		sticky.fire("config", "c");
+		assertEquals(Arrays.asList("b", "c"), strings);
+		assertEquals("c", sticky.last("config", String.class));
+		assertEquals(1, (int) sticky.last("config", Integer.class));
+		assertNull(sticky.last("other", String.class));
+	}
+
+	@Test
+	public void testFilteredLateSubscriber() {
+		StickyEventful<Object> sticky = new StickyEventful<>(new Eventful.Default<Object>() {}).stick("config");
+
+		sticky.fire("config", "a");
+		sticky.fire("config", 1);
+
+		List<Object> received = new ArrayList<>();
+		sticky.on("config", (String s) -> s.startsWith("b"), (String s) -> received.add(s));
+		assertTrue(received.isEmpty());
+
+		sticky.fire("config", "b");
+		assertEquals(Arrays.asList("b"), received);
+
+		List<Object> all = new ArrayList<>();
+		sticky.on("config", (Object o) -> o != null, (Object o) -> all.add(o));
+		assertEquals(Arrays.asList(1, "b"), all);
+
+		received.clear();
+		sticky.on("config", (String s) -> s.startsWith("b"), (String s) -> received.add(s));
+		assertEquals(Arrays.asList("b"), received);
+	}
+
+	@Test
+	public void testEviction() throws InterruptedException {
+		StickyEventful<Object> sticky = new StickyEventful<>(new Eventful.Default<Object>() {})
+				.stick("lru", Eviction.lru(2))
+				.stick("fifo", Eviction.maxEntries(2))
+				.stick("ttl", Eviction.ttl(20, TimeUnit.MILLISECONDS));
+
+		for (String event : new String[] {"lru", "fifo"}) {
+			sticky.fire(event, "a");
+			sticky.fire(event, 1);
+			sticky.on(event, (String s) -> {}); // uses "a"
+			sticky.fire(event, 2.0);
+		}
+
+		assertEquals("a", sticky.last("lru", String.class));
+		assertNull(sticky.last("lru", Integer.class));
+		assertNull(sticky.last("fifo", String.class));
+		assertEquals(1, (int) sticky.last("fifo", Integer.class));
+
+		sticky.fire("ttl", "a");
+		assertEquals("a", sticky.last("ttl", String.class));
+		Thread.sleep(50);
+		assertNull(sticky.last("ttl", String.class));
+	}
+
+	@Test
+	public void testReplayPrecedesConcurrentEvents() throws InterruptedException {
+		AtomicReference<StickyEventful<Object>> sticky = new AtomicReference<>();
+		Thread[] firing = new Thread[1];
+
+		Eventful<Object> target = new Eventful.Concurrent<Object>() {
+			@Override
+			public Handler<? extends Object> on(String event, Handler<? extends Object> handler) {
+				Eventful.Concurrent.super.on(event, handler);
+
+				firing[0] = new Thread(() -> sticky.get().fire("config", "v2")); // between attaching and replaying
+				firing[0].start();
+				try {
+					firing[0].join(100); // times out, as the event is held off until the replay is done
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return handler;
+			}
+		};
+
+		sticky.set(new StickyEventful<>(target).stick("config"));
+		sticky.get().fire("config", "v1");
+
+		List<Object> received = Collections.synchronizedList(new ArrayList<>());
+		sticky.get().on("config", (String s) -> received.add(s));
+		firing[0].join();
+
+		assertEquals(Arrays.asList("v1", "v2"), received);
+	}
+
+	@Test
+	public void testAskIsRemembered() {
+		StickyEventful<Object> sticky = new StickyEventful<>(new Eventful.Default<Object>() {}).stick("config");
+		sticky.on("config", (Responder<String, Integer>) String::length);
+
+		assertEquals(Arrays.asList(3), sticky.ask("config", "abc", Collectors.toList()));
+		assertEquals("abc", sticky.last("config", String.class));
+	}
+}